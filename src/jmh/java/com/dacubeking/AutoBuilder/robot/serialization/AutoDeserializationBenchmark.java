@@ -0,0 +1,125 @@
+package com.dacubeking.AutoBuilder.robot.serialization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the streaming trajectory deserializer that {@link Serializer} uses with Jackson's default bean deserialization of the trajectory states.
+ * <p>
+ * By default, a synthetic corpus of trajectory only autos is generated. Set the {@code autobuilder.benchmark.corpus} system property to a directory to benchmark a real set of .json and .auto files
+ * instead. (Autos with scripts need the robot code to be loaded, so they should be left out.)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class AutoDeserializationBenchmark {
+
+    @Param({"json", "msgpack"})
+    public String format;
+
+    /**
+     * The number of states in each trajectory of the synthetic corpus
+     */
+    @Param({"500", "5000"})
+    public int statesPerTrajectory;
+
+    private final List<byte[]> corpus = new ArrayList<>();
+    private File corpusFile;
+    private ObjectReader databindReader;
+
+    @Setup
+    public void setup() throws IOException {
+        boolean json = format.equals("json");
+        corpusFile = new File(json ? "corpus.json" : "corpus.auto");
+        ObjectMapper mapper = json ? new ObjectMapper() : new ObjectMapper(new MessagePackFactory());
+        // A mapper without the streaming deserializer registered
+        databindReader = mapper.readerFor(Autonomous.class);
+
+        String corpusDirectory = System.getProperty("autobuilder.benchmark.corpus");
+        if (corpusDirectory != null) {
+            File[] files = new File(corpusDirectory).listFiles((dir, name) -> name.endsWith(json ? ".json" : ".auto"));
+            if (files == null || files.length == 0) {
+                throw new IllegalStateException("No " + format + " autos found in " + corpusDirectory);
+            }
+            for (File file : files) {
+                corpus.add(Files.readAllBytes(file.toPath()));
+            }
+        } else {
+            Random random = new Random(5805);
+            for (int i = 0; i < 20; i++) {
+                corpus.add(mapper.writeValueAsBytes(createAuto(random, 3, statesPerTrajectory)));
+            }
+        }
+    }
+
+    private static ObjectNode createAuto(Random random, int trajectories, int states) {
+        JsonNodeFactory factory = JsonNodeFactory.instance;
+        ObjectNode auto = factory.objectNode();
+        ArrayNode steps = auto.putArray("autonomousSteps");
+        for (int i = 0; i < trajectories; i++) {
+            ObjectNode step = steps.addObject();
+            step.put("type", "trajectory");
+            ArrayNode stateArray = step.putArray("states");
+            for (int j = 0; j < states; j++) {
+                ObjectNode state = stateArray.addObject();
+                state.put("time", j * 0.01);
+                state.put("velocity", random.nextDouble() * 4);
+                state.put("acceleration", random.nextDouble() * 2 - 1);
+                ObjectNode pose = state.putObject("pose");
+                ObjectNode translation = pose.putObject("translation");
+                translation.put("x", random.nextDouble() * 16);
+                translation.put("y", random.nextDouble() * 8);
+                pose.putObject("rotation").put("radians", random.nextDouble() * 2 * Math.PI - Math.PI);
+                state.put("curvature", random.nextDouble() - 0.5);
+            }
+            ArrayNode rotations = step.putArray("rotations");
+            for (int j = 0; j < states / 50 + 1; j++) {
+                ObjectNode rotation = rotations.addObject();
+                rotation.put("time", j * 0.5);
+                rotation.putObject("rotation").put("radians", random.nextDouble() * 2 * Math.PI - Math.PI);
+            }
+        }
+        return auto;
+    }
+
+    @Benchmark
+    public void streaming(Blackhole blackhole) throws IOException {
+        for (byte[] auto : corpus) {
+            blackhole.consume(Serializer.deserializeAuto(ByteBuffer.wrap(auto), corpusFile));
+        }
+    }
+
+    @Benchmark
+    public void databind(Blackhole blackhole) throws IOException {
+        for (byte[] auto : corpus) {
+            blackhole.consume(databindReader.readValue(auto));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.dacubeking.AutoBuilder.robot.serialization.command;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ways command methods can be called:
+ * <ul>
+ *     <li>{@link Method#invoke(Object, Object...)} (how commands used to be called)</li>
+ *     <li>A method handle spread over an {@code Object[]} of boxed arguments</li>
+ *     <li>The invokers created by {@link SendableCommand#bindArguments(MethodHandle, Object[])}, which have the arguments bound with their exact types</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CommandInvocationBenchmark {
+
+    public static class Subsystem {
+        private int counter = 0;
+
+        public boolean isReady() {
+            return (++counter & 1) == 0;
+        }
+
+        public boolean setSpeed(double speed) {
+            counter += (int) speed;
+            return counter > 0;
+        }
+
+        public boolean moveTo(double position, int slot, boolean fast) {
+            counter += fast ? slot : (int) position;
+            return counter > 0;
+        }
+    }
+
+    private final Subsystem subsystem = new Subsystem();
+
+    private final Object[] zeroArgs = new Object[0];
+    private final Object[] oneArg = {1.5};
+    private final Object[] threeArgs = {2.5, 3, true};
+
+    private Method zeroArgMethod;
+    private Method oneArgMethod;
+    private Method threeArgMethod;
+    private MethodHandle zeroArgSpreadHandle;
+    private MethodHandle oneArgSpreadHandle;
+    private MethodHandle threeArgSpreadHandle;
+    private MethodHandle zeroArgInvoker;
+    private MethodHandle oneArgInvoker;
+    private MethodHandle threeArgInvoker;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        zeroArgMethod = Subsystem.class.getDeclaredMethod("isReady");
+        oneArgMethod = Subsystem.class.getDeclaredMethod("setSpeed", double.class);
+        threeArgMethod = Subsystem.class.getDeclaredMethod("moveTo", double.class, int.class, boolean.class);
+        zeroArgMethod.setAccessible(true);
+        oneArgMethod.setAccessible(true);
+        threeArgMethod.setAccessible(true);
+
+        zeroArgSpreadHandle = createSpreadHandle(zeroArgMethod);
+        oneArgSpreadHandle = createSpreadHandle(oneArgMethod);
+        threeArgSpreadHandle = createSpreadHandle(threeArgMethod);
+
+        zeroArgInvoker = SendableCommand.bindArguments(CommandResolutionCache.createHandle(zeroArgMethod, subsystem), zeroArgs);
+        oneArgInvoker = SendableCommand.bindArguments(CommandResolutionCache.createHandle(oneArgMethod, subsystem), oneArg);
+        threeArgInvoker = SendableCommand.bindArguments(CommandResolutionCache.createHandle(threeArgMethod, subsystem), threeArgs);
+    }
+
+    private MethodHandle createSpreadHandle(Method method) throws IllegalAccessException {
+        return CommandResolutionCache.createHandle(method, subsystem).asSpreader(Object[].class, method.getParameterCount())
+                .asType(MethodType.methodType(Object.class, Object[].class));
+    }
+
+    @Benchmark
+    public Object reflectionZeroArgs() throws ReflectiveOperationException {
+        return zeroArgMethod.invoke(subsystem, zeroArgs);
+    }
+
+    @Benchmark
+    public Object reflectionOneArg() throws ReflectiveOperationException {
+        return oneArgMethod.invoke(subsystem, oneArg);
+    }
+
+    @Benchmark
+    public Object reflectionThreeArgs() throws ReflectiveOperationException {
+        return threeArgMethod.invoke(subsystem, threeArgs);
+    }
+
+    @Benchmark
+    public Object spreadHandleZeroArgs() throws Throwable {
+        return (Object) zeroArgSpreadHandle.invokeExact(zeroArgs);
+    }
+
+    @Benchmark
+    public Object spreadHandleOneArg() throws Throwable {
+        return (Object) oneArgSpreadHandle.invokeExact(oneArg);
+    }
+
+    @Benchmark
+    public Object spreadHandleThreeArgs() throws Throwable {
+        return (Object) threeArgSpreadHandle.invokeExact(threeArgs);
+    }
+
+    @Benchmark
+    public boolean invokerZeroArgs() throws Throwable {
+        return (boolean) zeroArgInvoker.invokeExact();
+    }
+
+    @Benchmark
+    public boolean invokerOneArg() throws Throwable {
+        return (boolean) oneArgInvoker.invokeExact();
+    }
+
+    @Benchmark
+    public boolean invokerThreeArgs() throws Throwable {
+        return (boolean) threeArgInvoker.invokeExact();
+    }
+}
@@ -2,15 +2,18 @@ package com.dacubeking.AutoBuilder.robot;
 
 import com.dacubeking.AutoBuilder.robot.robotinterface.AutonomousContainer;
 import com.dacubeking.AutoBuilder.robot.serialization.AbstractAutonomousStep;
+import com.dacubeking.AutoBuilder.robot.serialization.AutoTask;
 import com.dacubeking.AutoBuilder.robot.serialization.Autonomous;
+import com.dacubeking.AutoBuilder.robot.serialization.BinaryAutoFormat;
+import com.dacubeking.AutoBuilder.robot.serialization.ParallelAutonomousStep;
 import com.dacubeking.AutoBuilder.robot.serialization.Serializer;
 import com.dacubeking.AutoBuilder.robot.serialization.TrajectoryAutonomousStep;
 import com.dacubeking.AutoBuilder.robot.serialization.command.CommandExecutionFailedException;
-import com.dacubeking.AutoBuilder.robot.serialization.command.SendableScript;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.trajectory.Trajectory;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.Timer;
+import org.jetbrains.annotations.ApiStatus.Internal;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -24,7 +27,7 @@ import static com.dacubeking.AutoBuilder.robot.robotinterface.AutonomousContaine
 
 public class GuiAuto implements Runnable {
 
-    private static final Autonomous DO_NOTHING_AUTONOMOUS = new Autonomous(new ArrayList<>());
+    static final Autonomous DO_NOTHING_AUTONOMOUS = new Autonomous(new ArrayList<>());
     private @NotNull Autonomous autonomous = DO_NOTHING_AUTONOMOUS; // default to do nothing in case of some error
     private @Nullable Pose2d initialPose;
 
@@ -34,7 +37,20 @@ public class GuiAuto implements Runnable {
      * @param autonomousFile File location of the auto
      */
     public GuiAuto(File autonomousFile) throws IOException {
-        autonomous = (Autonomous) Serializer.deserializeFromFile(autonomousFile, Autonomous.class, autonomousFile.getName().endsWith(".json"));
+        if (autonomousFile.getName().endsWith(BinaryAutoFormat.FILE_EXTENSION)) {
+            autonomous = Serializer.deserializeBinaryAutoFromFile(autonomousFile);
+        } else {
+            autonomous = (Autonomous) Serializer.deserializeFromFile(autonomousFile, Autonomous.class, autonomousFile.getName().endsWith(".json"));
+        }
+        init();
+    }
+
+    /**
+     * @param autonomous An auto that has already been deserialized
+     */
+    @Internal
+    public GuiAuto(@NotNull Autonomous autonomous) {
+        this.autonomous = autonomous;
         init();
     }
 
@@ -53,19 +69,50 @@ public class GuiAuto implements Runnable {
         init();
     }
 
+    /**
+     * Ensure you are creating the objects for your auto before you run them. The roborio will take multiple seconds to initialize the auto.
+     *
+     * @param autonomousData The serialized autonomous
+     * @param asJson         If the autonomous is serialized as json (true) or message pack (false)
+     */
+    public GuiAuto(byte[] autonomousData, boolean asJson) {
+        try {
+            autonomous = (Autonomous) Serializer.deserialize(autonomousData, Autonomous.class, asJson);
+        } catch (IOException e) {
+            DriverStation.reportError("Failed to deserialize auto. " + e.getMessage(), e.getStackTrace());
+            // The do nothing auto will be used
+        }
+        init();
+    }
+
     /**
      * Finds and saves the initial pose of the robot.
      */
     private void init() {
-        for (AbstractAutonomousStep autonomousStep : autonomous.getAutonomousSteps()) {
+        TrajectoryAutonomousStep trajectoryAutonomousStep = findFirstTrajectory(autonomous.getAutonomousSteps());
+        if (trajectoryAutonomousStep != null) {
+            Trajectory.State initialState = trajectoryAutonomousStep.getTrajectory().getStates().get(0);
+            initialPose = new Pose2d(initialState.poseMeters.getTranslation(),
+                    trajectoryAutonomousStep.getRotations().get(0).getRotation());
+        }
+    }
+
+    /**
+     * @return The first trajectory step, including the ones in parallel groups
+     */
+    private static @Nullable TrajectoryAutonomousStep findFirstTrajectory(@NotNull List<AbstractAutonomousStep> autonomousSteps) {
+        for (AbstractAutonomousStep autonomousStep : autonomousSteps) {
             if (autonomousStep instanceof TrajectoryAutonomousStep) {
-                TrajectoryAutonomousStep trajectoryAutonomousStep = (TrajectoryAutonomousStep) autonomousStep;
-                Trajectory.State initialState = trajectoryAutonomousStep.getTrajectory().getStates().get(0);
-                initialPose = new Pose2d(initialState.poseMeters.getTranslation(),
-                        trajectoryAutonomousStep.getRotations().get(0).getRotation());
-                break;
+                return (TrajectoryAutonomousStep) autonomousStep;
+            }
+            if (autonomousStep instanceof ParallelAutonomousStep) {
+                TrajectoryAutonomousStep trajectoryAutonomousStep = findFirstTrajectory(((ParallelAutonomousStep) autonomousStep).getSteps());
+                if (trajectoryAutonomousStep != null) {
+                    return trajectoryAutonomousStep;
+                }
             }
         }
+        return null;
     }
 
     /**
@@ -97,9 +144,6 @@ public class GuiAuto implements Runnable {
         }
 
         //Loop though all the steps and execute them
-        List<SendableScript> scriptsToExecuteByTime = new ArrayList<>();
-        List<SendableScript> scriptsToExecuteByPercent = new ArrayList<>();
-
         for (AbstractAutonomousStep autonomousStep : autonomous.getAutonomousSteps()) {
             AutonomousContainer.getInstance().printDebug("Doing a step: " + Timer.getFPGATimestamp());
 
@@ -110,7 +154,7 @@ public class GuiAuto implements Runnable {
             }
 
             try {
-                autonomousStep.execute(scriptsToExecuteByTime, scriptsToExecuteByPercent);
+                autonomousStep.execute();
             } catch (InterruptedException e) {
                 getCommandTranslator().stopRobot();
                 AutonomousContainer.getInstance().printDebug("Auto prematurely stopped at " + Timer.getFPGATimestamp() +
@@ -130,6 +174,60 @@ public class GuiAuto implements Runnable {
         getCommandTranslator().stopRobot();
     }
 
+    /**
+     * Creates a task that runs this auto cooperatively from the main thread's periodic instead of on its own thread. The steps and scripts are run the same way as they are in {@link #run()}.
+     *
+     * @see AutonomousContainer#setCooperativeExecutionEnabled(boolean)
+     */
+    @Internal
+    public @NotNull AutoTask createTask() {
+        return new CooperativeRun();
+    }
+
+    private final class CooperativeRun implements AutoTask {
+        private boolean started = false;
+        private int stepIndex = 0;
+        private @Nullable AutoTask currentStep = null;
+
+        @Override
+        public boolean tick(long nowNanos) throws CommandExecutionFailedException, ExecutionException {
+            if (!started) {
+                started = true;
+                if (autonomous == DO_NOTHING_AUTONOMOUS) {
+                    DriverStation.reportError("No auto was loaded. Doing nothing.", false);
+                    return true;
+                }
+
+                AutonomousContainer.getInstance().printDebug("Started Running: " + Timer.getFPGATimestamp());
+                //Set our initial pose in our robot tracker
+                if (initialPose != null) {
+                    getCommandTranslator().setRobotPose(initialPose);
+                    AutonomousContainer.getInstance().printDebug("Set initial pose: " + initialPose);
+                } else {
+                    AutonomousContainer.getInstance().printDebug("No initial pose set");
+                }
+            }
+
+            while (true) {
+                if (currentStep == null) {
+                    if (stepIndex >= autonomous.getAutonomousSteps().size()) {
+                        System.out.println("Finished Autonomous at " + Timer.getFPGATimestamp());
+                        getCommandTranslator().stopRobot();
+                        return true;
+                    }
+                    AutonomousContainer.getInstance().printDebug("Doing a step: " + Timer.getFPGATimestamp());
+                    currentStep = autonomous.getAutonomousSteps().get(stepIndex).createTask();
+                }
+
+                if (!currentStep.tick(nowNanos)) {
+                    return false;
+                }
+                currentStep = null;
+                stepIndex++;
+            }
+        }
+    }
+
     /**
      * Gets the initial pose of the robot.
      *
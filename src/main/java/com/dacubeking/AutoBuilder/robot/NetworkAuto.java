@@ -1,8 +1,10 @@
 package com.dacubeking.AutoBuilder.robot;
 
+import com.dacubeking.AutoBuilder.robot.serialization.Autonomous;
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableEntry;
 import edu.wpi.first.networktables.NetworkTableInstance;
+import org.jetbrains.annotations.ApiStatus.Internal;
 import org.jetbrains.annotations.NotNull;
 
 public class NetworkAuto extends GuiAuto {
@@ -17,4 +19,30 @@ public class NetworkAuto extends GuiAuto {
     public NetworkAuto() {
         super(autoPath.getString(null));
     }
+
+    /**
+     * Deserializes an auto that was published as message pack to the raw {@code autodata/autoPathMsgPack} NT entry.
+     *
+     * @param msgPackAuto The value of the entry
+     */
+    public NetworkAuto(byte[] msgPackAuto) {
+        super(msgPackAuto, false);
+    }
+
+    /**
+     * @param autonomous A network auto that has already been deserialized
+     */
+    @Internal
+    public NetworkAuto(@NotNull Autonomous autonomous) {
+        super(autonomous);
+    }
+
+    /**
+     * @return The auto to use for a network auto that failed to deserialize. It does nothing, and reports that no auto was loaded when it's run (the same as a {@link GuiAuto} that failed to
+     * deserialize).
+     */
+    @Internal
+    public static @NotNull NetworkAuto createFailed() {
+        return new NetworkAuto(DO_NOTHING_AUTONOMOUS);
+    }
 }
\ No newline at end of file
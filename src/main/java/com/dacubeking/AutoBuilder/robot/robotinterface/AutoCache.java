@@ -0,0 +1,134 @@
+package com.dacubeking.AutoBuilder.robot.robotinterface;
+
+import com.dacubeking.AutoBuilder.robot.serialization.BinaryAutoFormat;
+import com.dacubeking.AutoBuilder.robot.serialization.Serializer;
+import edu.wpi.first.wpilibj.DriverStation;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An on-disk cache of autos that have already been parsed. Autos are keyed by a hash of the contents of their file, and are stored in the {@link BinaryAutoFormat}, so an auto that hasn't changed
+ * since the last boot can be loaded without going through Jackson.
+ */
+final class AutoCache {
+    private static final @NotNull String SNAPSHOT_SUFFIX = "-v" + BinaryAutoFormat.VERSION + BinaryAutoFormat.FILE_EXTENSION;
+
+    private final @NotNull File directory;
+    private final @NotNull Set<String> usedHashes = ConcurrentHashMap.newKeySet();
+
+    private final @NotNull AtomicInteger hits = new AtomicInteger(0);
+    private final @NotNull AtomicInteger misses = new AtomicInteger(0);
+    private final @NotNull AtomicLong bytesSaved = new AtomicLong(0);
+
+    /**
+     * @param directory The directory to store the cached autos in. It will be created if it doesn't exist.
+     */
+    AutoCache(@NotNull File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return The hex encoded SHA-256 hash of the remaining bytes in the buffer. The position of the buffer isn't changed.
+     */
+    static @NotNull String hash(@NotNull ByteBuffer data) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(data.duplicate());
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest.digest()) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 should always be available", e);
+        }
+    }
+
+    /**
+     * @param hash The hash of the auto file
+     * @return The cached copy of the auto, or null if the auto hasn't been cached
+     */
+    @Nullable File getSnapshot(@NotNull String hash) {
+        usedHashes.add(hash);
+        File snapshot = new File(directory, hash + SNAPSHOT_SUFFIX);
+        return snapshot.isFile() ? snapshot : null;
+    }
+
+    /**
+     * Saves a copy of an auto in the cache.
+     *
+     * @param hash   The hash of the auto file
+     * @param data   The contents of the auto file
+     * @param source The auto file
+     */
+    void store(@NotNull String hash, @NotNull ByteBuffer data, @NotNull File source) {
+        try {
+            Files.createDirectories(directory.toPath());
+            // Write to a temporary file first so that a partially written snapshot can never be loaded
+            File temporaryFile = File.createTempFile(hash, ".tmp", directory);
+            try {
+                Serializer.convertToBinary(data, source, temporaryFile);
+                Files.move(temporaryFile.toPath(), new File(directory, hash + SNAPSHOT_SUFFIX).toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporaryFile.toPath());
+            }
+        } catch (IOException e) {
+            DriverStation.reportWarning("Failed to cache auto: " + source.getAbsolutePath() + " " + e.getLocalizedMessage(), false);
+        }
+    }
+
+    /**
+     * Deletes cached autos that haven't been looked up since the robot code started. (ex: autos that have been changed or deleted, or were cached with an older version of the format)
+     */
+    void prune() {
+        File[] snapshots = directory.listFiles();
+        if (snapshots == null) return;
+        for (File snapshot : snapshots) {
+            String name = snapshot.getName();
+            if (!name.endsWith(BinaryAutoFormat.FILE_EXTENSION)) continue; // Don't touch snapshots that are still being written
+
+            if (!name.endsWith(SNAPSHOT_SUFFIX) || !usedHashes.contains(name.substring(0, name.length() - SNAPSHOT_SUFFIX.length()))) {
+                if (!snapshot.delete()) {
+                    AutonomousContainer.getInstance().printDebug("Failed to delete old cached auto: " + snapshot.getAbsolutePath());
+                }
+            }
+        }
+    }
+
+    void recordHit(long sourceBytes) {
+        hits.incrementAndGet();
+        bytesSaved.addAndGet(sourceBytes);
+    }
+
+    void recordMiss() {
+        misses.incrementAndGet();
+    }
+
+    int getHits() {
+        return hits.get();
+    }
+
+    int getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return The total size of the auto files that were loaded from the cache instead of being deserialized
+     */
+    long getBytesSaved() {
+        return bytesSaved.get();
+    }
+}
@@ -0,0 +1,41 @@
+package com.dacubeking.AutoBuilder.robot.robotinterface;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+
+/**
+ * How long it took to load an auto. Use this to see where auto loading time is going (ex: to pick the loader parallelism).
+ */
+public final class AutoLoadTime {
+    public final @NotNull File file;
+    /**
+     * Time spent reading the file from disk (seconds)
+     */
+    public final double readTimeSeconds;
+    /**
+     * Time spent deserializing the auto (seconds)
+     */
+    public final double parseTimeSeconds;
+    /**
+     * Name of the thread that deserialized the auto
+     */
+    public final @NotNull String parseThreadName;
+
+    AutoLoadTime(@NotNull File file, long readTimeNanos, long parseTimeNanos, @NotNull String parseThreadName) {
+        this.file = file;
+        this.readTimeSeconds = readTimeNanos / 1e9;
+        this.parseTimeSeconds = parseTimeNanos / 1e9;
+        this.parseThreadName = parseThreadName;
+    }
+
+    @Override
+    public String toString() {
+        return "AutoLoadTime{" +
+                "file=" + file +
+                ", readTimeSeconds=" + readTimeSeconds +
+                ", parseTimeSeconds=" + parseTimeSeconds +
+                ", parseThreadName='" + parseThreadName + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,401 @@
+package com.dacubeking.AutoBuilder.robot.robotinterface;
+
+import com.dacubeking.AutoBuilder.robot.GuiAuto;
+import com.dacubeking.AutoBuilder.robot.serialization.BinaryAutoFormat;
+import com.dacubeking.AutoBuilder.robot.serialization.Serializer;
+import edu.wpi.first.wpilibj.DriverStation;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads autos lazily. Autos are indexed up front and then loaded in the background by a two stage pipeline:
+ * <ol>
+ *     <li>A single reader thread reads the auto files into memory, in queue order.</li>
+ *     <li>A configurable number of parser threads deserialize the autos that have been read. The two stages are connected by a bounded queue so that the reader can't get too far ahead.</li>
+ * </ol>
+ * An auto that is requested before the pipeline gets to it is moved to the front of the queue, or read and parsed on the requesting thread if nothing has started loading it yet.
+ * <p>
+ * If an {@link AutoCache} is used, the reader hashes each auto file and reads the cached copy of the auto instead when there is one. Autos that aren't in the cache are added to it after they're
+ * parsed.
+ * <p>
+ * Autos that change on disk can be {@link #reload reloaded}. The new version is loaded in the background and swapped in once it is ready, so a lookup never sees a half loaded auto or has to wait
+ * for the reload.
+ */
+final class AutoLoader {
+
+    private static final class LoadTask {
+        final @NotNull File file;
+        /**
+         * Tasks with a higher generation replace the tasks for the same file with a lower generation
+         */
+        final long generation;
+        /**
+         * If this task is reloading an auto that was already indexed
+         */
+        final boolean reload;
+        final @NotNull AtomicBoolean claimed = new AtomicBoolean(false);
+        /**
+         * Completes with the loaded auto, or null if the auto failed to load.
+         */
+        final @NotNull CompletableFuture<@Nullable GuiAuto> result = new CompletableFuture<>();
+
+        LoadTask(@NotNull File file, long generation, boolean reload) {
+            this.file = file;
+            this.generation = generation;
+            this.reload = reload;
+        }
+    }
+
+    private static final class ReadAuto {
+        final @NotNull LoadTask task;
+        final @NotNull ByteBuffer data;
+        /**
+         * The hash of the auto file, or null if the auto isn't cacheable
+         */
+        final @Nullable String hash;
+        final @Nullable File snapshot;
+        final @Nullable ByteBuffer snapshotData;
+        final long readTimeNanos;
+
+        ReadAuto(@NotNull LoadTask task, @NotNull ByteBuffer data, @Nullable String hash, @Nullable File snapshot,
+                 @Nullable ByteBuffer snapshotData, long readTimeNanos) {
+            this.task = task;
+            this.data = data;
+            this.hash = hash;
+            this.snapshot = snapshot;
+            this.snapshotData = snapshotData;
+            this.readTimeNanos = readTimeNanos;
+        }
+    }
+
+    private final @NotNull Map<File, LoadTask> tasks = new ConcurrentHashMap<>();
+    private final @NotNull LinkedBlockingDeque<LoadTask> readQueue = new LinkedBlockingDeque<>();
+    private final @NotNull ConcurrentHashMap<File, GuiAuto> loadedAutos;
+    private volatile @Nullable AutoCache cache = null;
+    private final @NotNull Map<File, AutoLoadTime> loadTimes = new ConcurrentHashMap<>();
+
+    private final @NotNull AtomicLong generations = new AtomicLong(0);
+    private final @NotNull AtomicInteger loadedAutosCount = new AtomicInteger(0);
+    private final @NotNull AtomicInteger successfullyLoadedAutosCount = new AtomicInteger(0);
+    private final @NotNull AtomicLong totalReadTimeNanos = new AtomicLong(0);
+    private final @NotNull AtomicLong totalParseTimeNanos = new AtomicLong(0);
+    private final @NotNull List<Thread> threads = new ArrayList<>();
+
+    /**
+     * @param loadedAutos The map that autos are put into once they are loaded
+     */
+    AutoLoader(@NotNull ConcurrentHashMap<File, GuiAuto> loadedAutos) {
+        this.loadedAutos = loadedAutos;
+    }
+
+    /**
+     * Adds an auto file to the index and queues it to be loaded in the background.
+     */
+    void index(@NotNull File file) {
+        LoadTask task = new LoadTask(file, generations.incrementAndGet(), false);
+        if (tasks.putIfAbsent(file, task) == null) {
+            readQueue.addLast(task);
+        }
+    }
+
+    /**
+     * Starts loading the indexed autos in the background.
+     *
+     * @param parallelism The number of threads to deserialize autos on
+     * @param cache       The cache of previously parsed autos to use, or null to always parse the autos
+     */
+    synchronized void start(int parallelism, @Nullable AutoCache cache) {
+        if (!threads.isEmpty()) return;
+        this.cache = cache;
+
+        BlockingQueue<ReadAuto> parseQueue = new ArrayBlockingQueue<>(parallelism * 2);
+
+        threads.add(new Thread(() -> {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    LoadTask task = readQueue.take();
+                    if (task.claimed.compareAndSet(false, true)) {
+                        @Nullable ReadAuto readAuto = read(task);
+                        if (readAuto != null) {
+                            parseQueue.put(readAuto);
+                        }
+                    }
+                }
+            } catch (InterruptedException ignored) {
+            }
+        }, "AutoBuilder Auto Reader"));
+
+        for (int i = 0; i < parallelism; i++) {
+            threads.add(new Thread(() -> {
+                try {
+                    while (!Thread.currentThread().isInterrupted()) {
+                        parse(parseQueue.take());
+                    }
+                } catch (InterruptedException ignored) {
+                }
+            }, "AutoBuilder Auto Parser " + i));
+        }
+
+        for (Thread thread : threads) {
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * @return If the file is a known auto (it may not be loaded yet)
+     */
+    boolean isIndexed(@NotNull File file) {
+        return tasks.containsKey(file);
+    }
+
+    /**
+     * @return All the indexed auto files
+     */
+    @NotNull Set<File> getIndexedFiles() {
+        return tasks.keySet();
+    }
+
+    int getIndexedCount() {
+        return tasks.size();
+    }
+
+    int getLoadedCount() {
+        return loadedAutosCount.get();
+    }
+
+    int getSuccessfullyLoadedCount() {
+        return successfullyLoadedAutosCount.get();
+    }
+
+    double getTotalReadTimeSeconds() {
+        return totalReadTimeNanos.get() / 1e9;
+    }
+
+    double getTotalParseTimeSeconds() {
+        return totalParseTimeNanos.get() / 1e9;
+    }
+
+    @NotNull Map<File, AutoLoadTime> getLoadTimes() {
+        return Collections.unmodifiableMap(loadTimes);
+    }
+
+    /**
+     * Moves an auto to the front of the background loading queue.
+     */
+    void prioritize(@NotNull File file) {
+        LoadTask task = tasks.get(file);
+        if (task != null && !task.claimed.get()) {
+            readQueue.offerFirst(task); // The old queue entry will be skipped since the task will already be claimed
+        }
+    }
+
+    /**
+     * Loads the latest version of an auto file in the background. Until it has loaded, the previous version of the auto (if there was one) is still returned by {@link #get}. If the new version
+     * fails to load, the previous version is kept.
+     */
+    void reload(@NotNull File file) {
+        LoadTask current = tasks.get(file);
+        if (current == null) {
+            // A new auto
+            index(file);
+            prioritize(file);
+            return;
+        }
+        if (!current.claimed.get()) {
+            return; // The file hasn't been read yet, so the new version will be loaded anyway
+        }
+        readQueue.offerFirst(new LoadTask(file, generations.incrementAndGet(), true));
+    }
+
+    /**
+     * Removes an auto from the index. Any load or reload of the auto that is in progress will be discarded.
+     */
+    void remove(@NotNull File file) {
+        LoadTask removedTask = tasks.remove(file);
+        if (removedTask != null) {
+            if (removedTask.claimed.compareAndSet(false, true)) {
+                removedTask.result.complete(null); // Never loaded, so there is nothing to wait on
+            }
+            loadedAutos.remove(file);
+            loadTimes.remove(file);
+        }
+    }
+
+    /**
+     * Gets an auto, waiting for only this auto to load if it hasn't been loaded yet.
+     *
+     * @return The auto, or null if the file isn't indexed or failed to load
+     */
+    @Nullable GuiAuto get(@NotNull File file) {
+        LoadTask task = tasks.get(file);
+        if (task == null) {
+            return null;
+        }
+        if (task.claimed.compareAndSet(false, true)) {
+            // Nothing has started loading this auto yet, so load it on this thread
+            @Nullable ReadAuto readAuto = read(task);
+            if (readAuto != null) {
+                parse(readAuto);
+            }
+        }
+        return task.result.join();
+    }
+
+    /**
+     * @return A future that completes once every indexed auto has been loaded (or failed to load)
+     */
+    @NotNull CompletableFuture<Void> allLoaded() {
+        return CompletableFuture.allOf(tasks.values().stream().map(task -> task.result).toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Reads an auto file into memory.
+     *
+     * @return The contents of the file, or null if it couldn't be read (the task will be completed)
+     */
+    private @Nullable ReadAuto read(@NotNull LoadTask task) {
+        long startTime = System.nanoTime();
+        @Nullable AutoCache cache = this.cache;
+        try {
+            ByteBuffer data = Serializer.readAutoFile(task.file);
+            if (cache == null || task.file.getName().endsWith(BinaryAutoFormat.FILE_EXTENSION)) {
+                // Binary autos are already as fast to load as the cached copy would be
+                return new ReadAuto(task, data, null, null, null, System.nanoTime() - startTime);
+            }
+
+            String hash = AutoCache.hash(data);
+            @Nullable File snapshot = cache.getSnapshot(hash);
+            @Nullable ByteBuffer snapshotData = null;
+            if (snapshot != null) {
+                try {
+                    snapshotData = Serializer.readAutoFile(snapshot);
+                } catch (IOException e) {
+                    AutonomousContainer.getInstance().printDebug("Failed to read cached auto: " + snapshot.getAbsolutePath());
+                }
+            }
+            return new ReadAuto(task, data, hash, snapshot, snapshotData, System.nanoTime() - startTime);
+        } catch (Exception e) {
+            fail(task, e);
+            return null;
+        }
+    }
+
+    private void parse(@NotNull ReadAuto readAuto) {
+        LoadTask task = readAuto.task;
+        @Nullable AutoCache cache = this.cache;
+        long startTime = System.nanoTime();
+        GuiAuto auto = null;
+        boolean shouldCache = readAuto.hash != null;
+        if (readAuto.snapshot != null && readAuto.snapshotData != null) {
+            try {
+                auto = new GuiAuto(Serializer.deserializeAuto(readAuto.snapshotData, readAuto.snapshot));
+                shouldCache = false;
+                assert cache != null;
+                cache.recordHit(readAuto.data.remaining());
+            } catch (IOException e) {
+                // Fall back to parsing the auto file. The cached copy will be overwritten.
+                AutonomousContainer.getInstance().printDebug("Failed to load cached auto: " + readAuto.snapshot.getAbsolutePath() + " " + e.getMessage());
+            } catch (Exception e) {
+                fail(task, e); // The auto itself is invalid (ex: a method in a script doesn't exist)
+                return;
+            }
+        }
+
+        if (auto == null) {
+            try {
+                auto = new GuiAuto(Serializer.deserializeAuto(readAuto.data, task.file));
+            } catch (Exception e) {
+                fail(task, e);
+                return;
+            }
+            if (cache != null && readAuto.hash != null) {
+                cache.recordMiss();
+            }
+        }
+        long parseTimeNanos = System.nanoTime() - startTime;
+
+        AutoLoadTime loadTime = new AutoLoadTime(task.file, readAuto.readTimeNanos, parseTimeNanos, Thread.currentThread().getName());
+        totalReadTimeNanos.addAndGet(readAuto.readTimeNanos);
+        totalParseTimeNanos.addAndGet(parseTimeNanos);
+
+        if (task.reload) {
+            if (!swap(task, auto, loadTime)) {
+                return; // The auto was deleted or a newer version was loaded first
+            }
+        } else {
+            successfullyLoadedAutosCount.incrementAndGet();
+            if (!publish(task, auto, loadTime)) {
+                complete(task, auto); // The auto was deleted or reloaded while it was loading, but something may still be waiting on this task
+                return;
+            }
+        }
+        AutonomousContainer.getInstance().printDebug("Successfully loaded auto: " + task.file.getAbsolutePath() + " (read: "
+                + loadTime.readTimeSeconds + "s, parse: " + loadTime.parseTimeSeconds + "s on " + loadTime.parseThreadName + ")");
+        complete(task, auto);
+
+        if (shouldCache && cache != null) {
+            // Cache the auto after it has been made available so that nothing waiting on it is delayed
+            cache.store(readAuto.hash, readAuto.data, task.file);
+        }
+    }
+
+    /**
+     * Replaces the previous version of a reloaded auto.
+     *
+     * @return If the auto was replaced
+     */
+    private boolean swap(@NotNull LoadTask task, @NotNull GuiAuto auto, @NotNull AutoLoadTime loadTime) {
+        // The task is completed before it's published so that get() never has to wait on it
+        task.result.complete(auto);
+        return publish(task, auto, loadTime);
+    }
+
+    /**
+     * Makes a loaded auto available, unless the auto has been {@link #remove removed} or a newer version has replaced the task since it was loaded. The auto is put while the task's entry is
+     * locked, so a remove can't happen between the check and the put.
+     *
+     * @return If the auto was published
+     */
+    private boolean publish(@NotNull LoadTask task, @NotNull GuiAuto auto, @NotNull AutoLoadTime loadTime) {
+        LoadTask newTask = tasks.computeIfPresent(task.file, (file, oldTask) -> {
+            if (oldTask != task && oldTask.generation > task.generation) {
+                return oldTask;
+            }
+            loadedAutos.put(file, auto);
+            loadTimes.put(file, loadTime);
+            return task;
+        });
+        return newTask == task;
+    }
+
+    private void fail(@NotNull LoadTask task, @NotNull Exception e) {
+        DriverStation.reportError("Failed to deserialize auto: " + task.file.getAbsolutePath() + " " + e.getLocalizedMessage()
+                + (task.reload ? " (keeping the previous version)" : ""), e.getStackTrace());
+        complete(task, null);
+    }
+
+    private void complete(@NotNull LoadTask task, @Nullable GuiAuto auto) {
+        if (!task.reload) {
+            AutonomousContainer.getInstance().printDebug("Loaded Autos: " + loadedAutosCount.incrementAndGet() + "/" + tasks.size());
+        }
+        task.result.complete(auto);
+    }
+}
@@ -0,0 +1,154 @@
+package com.dacubeking.AutoBuilder.robot.robotinterface;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Watches the auto directory for changes and reloads only the autos that were created, changed or deleted. Changes are debounced since editors and deploys usually write a file more than once.
+ */
+final class AutoWatcher {
+    private static final long DEBOUNCE_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    private final @NotNull File directory;
+    private final @NotNull AutoLoader autoLoader;
+    private final @NotNull Predicate<File> isAutoFile;
+    private @Nullable WatchService watchService = null;
+    private @Nullable Thread watchThread = null;
+
+    /**
+     * @param directory  The directory to watch (subdirectories are also watched)
+     * @param autoLoader The loader to reload the changed autos with
+     * @param isAutoFile Returns true for files that should be loaded as autos
+     */
+    AutoWatcher(@NotNull File directory, @NotNull AutoLoader autoLoader, @NotNull Predicate<File> isAutoFile) {
+        this.directory = directory;
+        this.autoLoader = autoLoader;
+        this.isAutoFile = isAutoFile;
+    }
+
+    synchronized void start() throws IOException {
+        if (watchThread != null) return;
+
+        WatchService watchService = FileSystems.getDefault().newWatchService();
+        this.watchService = watchService;
+        registerAll(directory.toPath());
+
+        watchThread = new Thread(() -> watch(watchService), "AutoBuilder Auto Watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    synchronized void stop() {
+        if (watchThread == null) return;
+        watchThread.interrupt();
+        watchThread = null;
+        try {
+            assert watchService != null;
+            watchService.close();
+        } catch (IOException ignored) {
+        }
+        watchService = null;
+    }
+
+    private void registerAll(@NotNull Path root) throws IOException {
+        if (!Files.isDirectory(root)) return;
+        try (Stream<Path> directories = Files.walk(root)) {
+            for (Iterator<Path> it = directories.filter(Files::isDirectory).iterator(); it.hasNext(); ) {
+                assert watchService != null;
+                it.next().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_DELETE);
+            }
+        }
+    }
+
+    private void watch(@NotNull WatchService watchService) {
+        // Files that have changed, and the time that they should be reloaded at
+        Map<File, Long> pendingFiles = new HashMap<>();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key;
+                if (pendingFiles.isEmpty()) {
+                    key = watchService.take();
+                } else {
+                    long nextDeadline = pendingFiles.values().stream().mapToLong(Long::longValue).min().orElseThrow();
+                    key = watchService.poll(Math.max(nextDeadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+                }
+
+                if (key != null) {
+                    Path watchedDirectory = (Path) key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            // We missed some events. Reload everything (in the background) to be safe.
+                            rescan(pendingFiles);
+                            continue;
+                        }
+
+                        Path changedPath = watchedDirectory.resolve((Path) event.context());
+                        if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(changedPath)) {
+                            registerAll(changedPath);
+                            rescan(pendingFiles, changedPath.toFile());
+                            continue;
+                        }
+                        pendingFiles.put(changedPath.toFile().getAbsoluteFile(), System.nanoTime() + DEBOUNCE_NANOS);
+                    }
+                    key.reset();
+                }
+
+                long now = System.nanoTime();
+                for (Iterator<Entry<File, Long>> it = pendingFiles.entrySet().iterator(); it.hasNext(); ) {
+                    Entry<File, Long> entry = it.next();
+                    if (entry.getValue() <= now) {
+                        it.remove();
+                        reload(entry.getKey());
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {
+        } catch (IOException e) {
+            DriverStation.reportError("Auto hot reload stopped: " + e.getLocalizedMessage(), e.getStackTrace());
+        }
+    }
+
+    private void rescan(@NotNull Map<File, Long> pendingFiles) throws IOException {
+        for (File indexedFile : autoLoader.getIndexedFiles()) {
+            pendingFiles.put(indexedFile, System.nanoTime() + DEBOUNCE_NANOS); // Picks up deleted autos
+        }
+        rescan(pendingFiles, directory);
+    }
+
+    private void rescan(@NotNull Map<File, Long> pendingFiles, @NotNull File root) throws IOException {
+        if (!root.isDirectory()) return;
+        try (Stream<Path> files = Files.walk(root.toPath())) {
+            files.filter(Files::isRegularFile).forEach(path -> pendingFiles.put(path.toFile().getAbsoluteFile(), System.nanoTime() + DEBOUNCE_NANOS));
+        }
+    }
+
+    private void reload(@NotNull File file) {
+        if (file.isFile() && isAutoFile.test(file)) {
+            AutonomousContainer.getInstance().printDebug("Reloading changed auto: " + file.getAbsolutePath());
+            autoLoader.reload(file);
+        } else if (!file.exists() && autoLoader.isIndexed(file)) {
+            AutonomousContainer.getInstance().printDebug("Removing deleted auto: " + file.getAbsolutePath());
+            autoLoader.remove(file);
+        }
+    }
+}
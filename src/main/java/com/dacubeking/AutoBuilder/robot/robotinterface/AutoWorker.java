@@ -0,0 +1,119 @@
+package com.dacubeking.AutoBuilder.robot.robotinterface;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A thread that is started before autonomous is enabled and runs the autos that are handed to it, so that starting an auto doesn't have to wait for a new thread to be created and scheduled.
+ * <p>
+ * An auto is handed over by publishing it into {@link #pendingJob} and unparking the worker, without taking any locks. Killing an auto interrupts the worker while it's running that auto; the
+ * worker clears its interrupted flag before it starts the next auto, so an interrupt that was meant for an earlier auto can't stop a later one.
+ */
+final class AutoWorker {
+
+    /**
+     * An auto that has been handed to the worker
+     */
+    static final class Job {
+        private final @NotNull Runnable auto;
+        private volatile boolean cancelled = false;
+        private volatile boolean finished = false;
+
+        private Job(@NotNull Runnable auto) {
+            this.auto = auto;
+        }
+
+        boolean isFinished() {
+            return finished;
+        }
+    }
+
+    private final @NotNull AtomicReference<@Nullable Job> pendingJob = new AtomicReference<>(null);
+    /**
+     * The job that the worker is running, or null if it's waiting
+     */
+    private volatile @Nullable Job runningJob = null;
+    private final @NotNull Thread thread;
+
+    AutoWorker() {
+        thread = new Thread(this::runJobs, "AutoBuilder Auto Worker");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Starts the worker thread. Does nothing if it has already been started.
+     */
+    synchronized void start() {
+        if (thread.getState() == Thread.State.NEW) {
+            thread.start();
+        }
+    }
+
+    /**
+     * Hands an auto to the worker. The previous auto must have finished (or been {@link #cancel(Job) cancelled}).
+     *
+     * @return The job, which can be used to cancel the auto
+     */
+    @NotNull Job submit(@NotNull Runnable auto) {
+        start();
+        Job job = new Job(auto);
+        Job previousJob = pendingJob.getAndSet(job);
+        if (previousJob != null) {
+            previousJob.finished = true; // It was never started
+        }
+        LockSupport.unpark(thread);
+        return job;
+    }
+
+    /**
+     * Stops an auto from starting, or interrupts it if it's running. Use {@link Job#isFinished()} to wait for it to stop.
+     */
+    void cancel(@NotNull Job job) {
+        job.cancelled = true;
+        if (pendingJob.compareAndSet(job, null)) {
+            job.finished = true; // It was never started
+            return;
+        }
+        if (runningJob == job) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * @return The stack trace of the worker thread, to find out what an auto that won't stop is doing
+     */
+    @NotNull StackTraceElement @NotNull [] getStackTrace() {
+        return thread.getStackTrace();
+    }
+
+    private void runJobs() {
+        while (true) {
+            Job job = pendingJob.getAndSet(null);
+            if (job == null) {
+                LockSupport.park(this);
+                continue;
+            }
+
+            runningJob = job;
+            Thread.interrupted(); // Clear any interrupt that was meant for an earlier auto
+            try {
+                // If the job was cancelled after runningJob was set, it will have interrupted us, so we only have to check for the ones that were cancelled before
+                if (!job.cancelled) {
+                    job.auto.run();
+                }
+            } catch (Throwable e) {
+                // Report it like an uncaught exception, but keep the worker alive for the next auto
+                Thread.UncaughtExceptionHandler handler = thread.getUncaughtExceptionHandler();
+                if (handler != null) {
+                    handler.uncaughtException(thread, e);
+                }
+            } finally {
+                runningJob = null;
+                job.finished = true;
+            }
+        }
+    }
+}
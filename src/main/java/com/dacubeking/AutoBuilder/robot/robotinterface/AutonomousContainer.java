@@ -4,6 +4,13 @@ import com.dacubeking.AutoBuilder.robot.GuiAuto;
 import com.dacubeking.AutoBuilder.robot.NetworkAuto;
 import com.dacubeking.AutoBuilder.robot.annotations.AutoBuilderAccessible;
 import com.dacubeking.AutoBuilder.robot.annotations.RequireWait;
+import com.dacubeking.AutoBuilder.robot.serialization.AutoTask;
+import com.dacubeking.AutoBuilder.robot.serialization.BinaryAutoFormat;
+import com.dacubeking.AutoBuilder.robot.serialization.DeserializationCancelledException;
+import com.dacubeking.AutoBuilder.robot.serialization.Serializer;
+import com.dacubeking.AutoBuilder.robot.serialization.command.CommandExecutionFailedException;
+import com.dacubeking.AutoBuilder.robot.serialization.command.CommandResolutionCache;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableEntry;
@@ -11,6 +18,7 @@ import edu.wpi.first.networktables.NetworkTableEvent.Kind;
 import edu.wpi.first.networktables.NetworkTableInstance;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj.Timer;
 import org.jetbrains.annotations.ApiStatus.Internal;
@@ -19,16 +27,17 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
-import java.lang.Thread.State;
+import java.nio.charset.StandardCharsets;
 import java.lang.reflect.InvocationTargetException;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
 import java.util.regex.Pattern;
 
 public final class AutonomousContainer {
@@ -36,14 +45,95 @@ public final class AutonomousContainer {
     private final @NotNull NetworkTableInstance instance = NetworkTableInstance.getDefault();
     private final @NotNull NetworkTable autoDataTable = instance.getTable("autodata");
     private final @NotNull NetworkTableEntry autoPath = autoDataTable.getEntry("autoPath");
+    private final @NotNull NetworkTableEntry msgPackAutoPath = autoDataTable.getEntry("autoPathMsgPack");
     private final @NotNull NetworkTableEntry pathProcessingStatusEntry = autoDataTable.getEntry("processing");
 
-    private final @NotNull Lock networkAutoLock = new ReentrantLock();
-    private @Nullable NetworkAuto networkAuto = null;
+    private final @NotNull NetworkTableEntry activeNetworkAutoVersionEntry = autoDataTable.getEntry("activeNetworkAutoVersion");
+    private final @NotNull NetworkTableEntry processingLatencyEntry = autoDataTable.getEntry("processingLatency");
+    private final @NotNull NetworkTableEntry processingQueueDepthEntry = autoDataTable.getEntry("processingQueueDepth");
+
+    /**
+     * A network auto that has been received, but not deserialized yet
+     */
+    private static final class PendingNetworkAuto {
+        final @Nullable String json;
+        final byte @Nullable [] msgPack;
+        final long version;
+        final long receivedTimeNanos;
+
+        PendingNetworkAuto(@Nullable String json, byte @Nullable [] msgPack, long version) {
+            this.json = json;
+            this.msgPack = msgPack;
+            this.version = version;
+            this.receivedTimeNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * The newest network auto that hasn't started deserializing. Older autos that are still waiting are replaced, so only the latest version is ever deserialized.
+     */
+    private final @NotNull AtomicReference<@Nullable PendingNetworkAuto> pendingNetworkAuto = new AtomicReference<>(null);
+    /**
+     * The number of network autos that have been received since the last one started deserializing
+     */
+    private final @NotNull AtomicInteger pendingNetworkAutoCount = new AtomicInteger(0);
+
+    /**
+     * A network auto, and the version of it. Versions are given out in the order that the autos are received.
+     */
+    private static final class PublishedNetworkAuto {
+        final @NotNull NetworkAuto auto;
+        final long version;
+
+        PublishedNetworkAuto(@NotNull NetworkAuto auto, long version) {
+            this.auto = auto;
+            this.version = version;
+        }
+    }
+
+    private final @NotNull AtomicLong networkAutoVersions = new AtomicLong(0);
+    /**
+     * The latest network auto that has been deserialized. Network autos are deserialized into a new object and then published here, so looking up the network auto never has to wait for one to
+     * be deserialized.
+     */
+    private final @NotNull AtomicReference<@Nullable PublishedNetworkAuto> networkAuto = new AtomicReference<>(null);
     private final @NotNull ExecutorService deserializerExecutor = Executors.newSingleThreadExecutor();
 
-    private @Nullable Thread autoThread = null;
+    /**
+     * Runs the autos that aren't run cooperatively. It's started when AutoBuilder is initialized, so that an auto can start as soon as autonomous is enabled.
+     */
+    private final @NotNull AutoWorker autoWorker = new AutoWorker();
+    /**
+     * The auto that was last handed to {@link #autoWorker}
+     */
+    private @Nullable AutoWorker.Job autoJob = null;
+    /**
+     * The auto that is being run cooperatively from {@link #onAutoPeriodic()}, if there is one. See {@link #setCooperativeExecutionEnabled(boolean)}.
+     */
+    private volatile @Nullable AutoTask cooperativeAuto = null;
+    private volatile boolean cooperativeExecution = false;
+    private volatile boolean concurrentScripts = false;
+    private volatile boolean rotationInterpolation = false;
+
+    /**
+     * The number of scripts that can run at the same time during a trajectory when {@link #setConcurrentScriptsEnabled(boolean) concurrent scripts} are enabled. Extra scripts wait for a
+     * thread to be free.
+     */
+    private static final int SCRIPT_THREADS = 4;
+    private final @NotNull AtomicInteger scriptThreadCount = new AtomicInteger(0);
+    /**
+     * Runs the scripts that are started during a trajectory when concurrent scripts are enabled. The threads are only created when they're first needed.
+     */
+    private final @NotNull ExecutorService scriptExecutor = Executors.newFixedThreadPool(SCRIPT_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "AutoBuilder Script Runner " + scriptThreadCount.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+    });
     private final @NotNull Object autoThreadLock = new Object();
+    /**
+     * Held while the {@link #cooperativeAuto} is being ticked, so that {@link #killAuto()} can wait for a tick that's already in progress.
+     */
+    private final @NotNull Object cooperativeTickLock = new Object();
 
     private static final AutonomousContainer autonomousContainer = new AutonomousContainer();
 
@@ -58,18 +148,30 @@ public final class AutonomousContainer {
     private CommandTranslator commandTranslator;
     private boolean isHolonomic;
     private volatile boolean debugPrints = false;
+    private int loaderParallelism = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private boolean autoCacheEnabled = RobotBase.isReal();
+    private volatile @Nullable AutoCache autoCache = null;
+    private @Nullable AutoWatcher autoWatcher = null;
 
     private final ConcurrentHashMap<File, GuiAuto> autonomousList = new ConcurrentHashMap<>();
+    private final @NotNull AutoLoader autoLoader = new AutoLoader(autonomousList);
     private final @NotNull Hashtable<String, Object> parentObjects = new Hashtable<>();
 
     private final @NotNull List<Object> requireWaitObjects = Collections.synchronizedList(new ArrayList<>());
     private static final String AUTO_DIRECTORY = Filesystem.getDeployDirectory().getAbsoluteFile() + "/autos/";
+    private static final File AUTO_CACHE_DIRECTORY = new File(Filesystem.getDeployDirectory().getAbsoluteFile().getParentFile(), "autobuilder-cache");
+    /**
+     * The extensions of auto files, in the order they're preferred when more than one version of an auto exists. (A binary auto that's older than the auto it was converted from isn't
+     * used.)
+     */
+    private static final String[] AUTO_FILE_EXTENSIONS = {BinaryAutoFormat.FILE_EXTENSION, ".auto", ".json"};
 
     /**
      * @param isHolonomic       Is the robot using a holonomic drivetrain? (ex: swerve or mecanum)
      * @param commandTranslator The command translator to use
      * @param crashOnError      Should the robot crash on error? If this is enabled, and an auto fails to load, the robot will crash. If this is disabled, the robot will skip the invalid auto and
-     *                          continue to the next one.
+     *                          continue to the next one. Autos are normally loaded in the background after this method returns, but if this is enabled this method will wait for all the autos to
+     *                          load so that it can crash if one of them fails.
      * @param parentObjects     Objects that can be used to access other objects annotated with {@link AutoBuilderAccessible}.
      * @param timedRobot        The timed robot to use to create the period function for the autos. This can be null if you're running autos completely asynchronously.
      */
@@ -97,24 +199,18 @@ public final class AutonomousContainer {
         initializeAccessibleInstances(parentObjects, crashOnError);
         printDebug("Initialized Accessible Instances");
 
-        //Create the listener for network autos
+        //Create the listeners for network autos
         NetworkTableInstance.getDefault().addListener(autoPath, EnumSet.of(Kind.kValueRemote, Kind.kImmediate, Kind.kProperties), event -> {
-            deserializerExecutor.execute(() -> { //Start deserializing on another thread
-                System.out.println("Starting to Parse Network Autonomous");
-                //Set networktable entries for the gui notifications
-                pathProcessingStatusEntry.setDouble(1);
-                networkAutoLock.lock();
-                try {
-                    networkAuto = new NetworkAuto(); //Create the auto object which will start deserializing the json and the auto
-                } finally {
-                    networkAutoLock.unlock();
-                }
+            String json = autoPath.getString(null);
+            if (json == null) return; // Nothing has been published yet
+            queueNetworkAuto(json, null);
+        });
 
-                // ready to be run
-                System.out.println("Done Parsing Network Autonomous");
-                //Set networktable entries for the gui notifications
-                pathProcessingStatusEntry.setDouble(2);
-            });
+        // Message pack autos are sent as raw bytes, so they can be deserialized without being converted to a string first
+        NetworkTableInstance.getDefault().addListener(msgPackAutoPath, EnumSet.of(Kind.kValueRemote, Kind.kImmediate), event -> {
+            byte[] msgPackAuto = event.valueData != null ? event.valueData.value.getRaw() : msgPackAutoPath.getRaw(null);
+            if (msgPackAuto == null || msgPackAuto.length == 0) return; // Nothing has been published yet
+            queueNetworkAuto(null, msgPackAuto);
         });
 
         this.isHolonomic = isHolonomic;
@@ -122,29 +218,111 @@ public final class AutonomousContainer {
 
         long startLoadingTime = System.currentTimeMillis();
 
-        findAutosAndLoadAutos(new File(AUTO_DIRECTORY), crashOnError);
-        System.out.println("Found " + numAutonomousFiles + " Autos. Waiting for them to load");
-
-        blockedThread = Thread.currentThread();
-        // Wait for all autos to be loaded
-        while (loadedAutosCount.get() < numAutonomousFiles) {
-            try {
-                //noinspection BusyWait
-                Thread.sleep(1000);
-            } catch (InterruptedException ignored) {
-            }
+        findAutos(new File(AUTO_DIRECTORY), crashOnError);
+        if (autoCacheEnabled) {
+            autoCache = new AutoCache(AUTO_CACHE_DIRECTORY);
         }
+        autoWorker.start();
+        autoLoader.start(loaderParallelism, autoCache);
+        autoLoader.allLoaded().thenRun(() -> {
+            printLoadingSummary(startLoadingTime);
+            if (autoCache != null) {
+                autoCache.prune(); // Remove the cached copies of autos that have been changed or deleted
+            }
+        });
 
         if (crashOnError) {
-            Preconditions.checkState(loadedAutosCount.get() == numAutonomousFiles,
+            System.out.println("Found " + autoLoader.getIndexedCount() + " Autos. Waiting for them to load");
+            autoLoader.allLoaded().join();
+            Preconditions.checkState(autoLoader.getSuccessfullyLoadedCount() == autoLoader.getIndexedCount(),
                     "Not all autonomous files were successfully loaded");
+        } else {
+            System.out.println("Found " + autoLoader.getIndexedCount() + " Autos. Loading them in the background");
         }
+    }
 
-        System.out.println("Successfully loaded " + autonomousList.size() + " auto"
-                + (autonomousList.size() == 1 ? "" : "s") + " with "
-                + (loadedAutosCount.get() - successfullyLoadedAutosCount.get()) +
-                " failure" + (loadedAutosCount.get() - successfullyLoadedAutosCount.get() == 1 ? "" : "s") + " in "
-                + ((double) (System.currentTimeMillis() - startLoadingTime)) / 1000 + "s");
+    /**
+     * Queues a network auto to be deserialized. If autos are received faster than they can be deserialized, only the newest one is deserialized, and a deserialization that is in progress is
+     * abandoned.
+     */
+    private void queueNetworkAuto(@Nullable String json, byte @Nullable [] msgPack) {
+        pendingNetworkAutoCount.incrementAndGet();
+        pendingNetworkAuto.set(new PendingNetworkAuto(json, msgPack, networkAutoVersions.incrementAndGet()));
+        deserializerExecutor.execute(this::loadNetworkAuto); //Start deserializing on another thread
+    }
+
+    /**
+     * Deserializes the pending network auto and publishes it, unless a newer version has been received.
+     */
+    private void loadNetworkAuto() {
+        @Nullable PendingNetworkAuto pendingAuto = pendingNetworkAuto.getAndSet(null);
+        if (pendingAuto == null) return; // Already deserialized by an earlier task
+
+        int coalescedAutos = pendingNetworkAutoCount.getAndSet(0);
+        System.out.println("Starting to Parse Network Autonomous (version " + pendingAuto.version + ", skipped "
+                + (coalescedAutos - 1) + " older version" + (coalescedAutos == 2 ? "" : "s") + ")");
+        //Set networktable entries for the gui notifications
+        pathProcessingStatusEntry.setDouble(1);
+        processingQueueDepthEntry.setInteger(coalescedAutos);
+
+        // Deserialize into a staging object first. Nothing can see it until it's published.
+        NetworkAuto stagedAuto;
+        try {
+            BooleanSupplier isSuperseded = () -> networkAutoVersions.get() > pendingAuto.version;
+            stagedAuto = new NetworkAuto(pendingAuto.json != null
+                    ? Serializer.deserializeAuto(pendingAuto.json.getBytes(StandardCharsets.UTF_8), true, isSuperseded)
+                    : Serializer.deserializeAuto(Objects.requireNonNull(pendingAuto.msgPack), false, isSuperseded));
+        } catch (DeserializationCancelledException e) {
+            System.out.println("Abandoned Parsing Network Autonomous (version " + pendingAuto.version + ") because a newer version was received");
+            return; // The task for the newer version will update the status entries
+        } catch (IOException e) {
+            DriverStation.reportError("Failed to deserialize auto. " + e.getMessage(), e.getStackTrace());
+            stagedAuto = NetworkAuto.createFailed(); // The do nothing auto will be used
+        }
+
+        PublishedNetworkAuto activeAuto = networkAuto.accumulateAndGet(new PublishedNetworkAuto(stagedAuto, pendingAuto.version),
+                (current, staged) -> current == null || staged.version > current.version ? staged : current);
+
+        // ready to be run
+        System.out.println("Done Parsing Network Autonomous (version " + pendingAuto.version + ")");
+        //Set networktable entries for the gui notifications
+        activeNetworkAutoVersionEntry.setInteger(activeAuto.version);
+        processingLatencyEntry.setDouble((System.nanoTime() - pendingAuto.receivedTimeNanos) / 1e9);
+        processingQueueDepthEntry.setInteger(pendingNetworkAutoCount.get());
+        pathProcessingStatusEntry.setDouble(2);
+    }
+
+    /**
+     * @return The network auto that would be run, or null if no network auto has been received
+     */
+    private @Nullable NetworkAuto getNetworkAuto() {
+        @Nullable PublishedNetworkAuto publishedNetworkAuto = networkAuto.get();
+        return publishedNetworkAuto == null ? null : publishedNetworkAuto.auto;
+    }
+
+    /**
+     * @return The version of the network auto that would be run (this is also published to {@code autodata/activeNetworkAutoVersion}), or 0 if no network auto has been received
+     */
+    @SuppressWarnings("unused")
+    public long getActiveNetworkAutoVersion() {
+        @Nullable PublishedNetworkAuto publishedNetworkAuto = networkAuto.get();
+        return publishedNetworkAuto == null ? 0 : publishedNetworkAuto.version;
+    }
+
+    private void printLoadingSummary(long startLoadingTime) {
+        int failures = autoLoader.getLoadedCount() - autoLoader.getSuccessfullyLoadedCount();
+        System.out.println("Successfully loaded " + autoLoader.getSuccessfullyLoadedCount() + " auto"
+                + (autoLoader.getSuccessfullyLoadedCount() == 1 ? "" : "s") + " with "
+                + failures + " failure" + (failures == 1 ? "" : "s") + " in "
+                + ((double) (System.currentTimeMillis() - startLoadingTime)) / 1000 + "s (total read time: "
+                + autoLoader.getTotalReadTimeSeconds() + "s, total parse time: " + autoLoader.getTotalParseTimeSeconds() + "s with "
+                + loaderParallelism + " parser thread" + (loaderParallelism == 1 ? "" : "s") + ")");
+        if (autoCache != null) {
+            System.out.println("Auto cache: " + autoCache.getHits() + " hit" + (autoCache.getHits() == 1 ? "" : "s") + ", "
+                    + autoCache.getMisses() + " miss" + (autoCache.getMisses() == 1 ? "" : "es") + ", "
+                    + autoCache.getBytesSaved() + " bytes not deserialized");
+        }
+        printDebug("Command resolution cache: " + CommandResolutionCache.getHits() + " hits, " + CommandResolutionCache.getMisses() + " misses");
     }
 
 
@@ -244,66 +422,53 @@ public final class AutonomousContainer {
 
 
     /**
-     * Recursively finds all autonomous files in the given directory and loads them.
+     * Recursively finds all autonomous files in the given directory and indexes them, so they can be loaded in the background or when they're requested.
      *
      * @param directory    The directory to search in.
      * @param crashOnError Should the robot crash on error? If this is enabled, and an auto fails to load, the robot will crash. If this is disabled, the robot will skip the invalid auto and continue
      *                     to the next one.
      */
-    private synchronized void findAutosAndLoadAutos(File directory, boolean crashOnError) {
+    private synchronized void findAutos(File directory, boolean crashOnError) {
         File[] autos = directory.listFiles();
         if (autos == null) {
             System.out.println("No autos files found");
         } else {
             for (File file : autos) {
                 if (file.isDirectory()) {
-                    findAutosAndLoadAutos(file, crashOnError);
+                    findAutos(file, crashOnError);
                     continue;
                 }
 
-                String fileName = file.getName();
-
-                if (fileName.endsWith(".json") || fileName.endsWith(".auto")) {
+                if (isAutoFile(file)) {
                     if (file.getName().contains("NOTDEPLOYABLE")) {
                         System.out.println("Skipping " + file.getAbsolutePath() + " because it is marked as NOTDEPLOYABLE");
                         if (crashOnError) throw new RuntimeException("An un-deployable file was found");
                         continue;
                     }
                     printDebug("Found auto file: " + file.getAbsolutePath());
-
-                    CompletableFuture.runAsync(() -> {
-                        try {
-                            autonomousList.put(file, new GuiAuto(file));
-                            successfullyLoadedAutosCount.incrementAndGet();
-                            printDebug("Successfully loaded auto: " + file.getAbsolutePath());
-                        } catch (IOException e) {
-                            DriverStation.reportError("Failed to deserialize auto: " + e.getLocalizedMessage(),
-                                    e.getStackTrace());
-                        }
-                    }).thenRun(this::incrementLoadedAutos);
-
-                    numAutonomousFiles++;
+                    autoLoader.index(file);
                 }
             }
         }
     }
 
-    private int numAutonomousFiles = 0;
-    private final AtomicInteger successfullyLoadedAutosCount = new AtomicInteger(0);
-    private final AtomicInteger loadedAutosCount = new AtomicInteger(0);
-    @Nullable private Thread blockedThread = null;
-
-    private void incrementLoadedAutos() {
-        printDebug("Loaded Autos: " + loadedAutosCount.incrementAndGet() + "/" + numAutonomousFiles);
-        if (blockedThread != null) {
-            blockedThread.interrupt();
-        }
+    private static boolean isAutoFile(@NotNull File file) {
+        String fileName = file.getName();
+        return Arrays.stream(AUTO_FILE_EXTENSIONS).anyMatch(fileName::endsWith);
     }
-    
+
     public synchronized static CommandTranslator getCommandTranslator() {
         return getInstance().commandTranslator;
     }
 
+    /**
+     * Replaces the command translator without initializing, so that autos can be run against fake drive code in unit tests.
+     */
+    @VisibleForTesting
+    static synchronized void setCommandTranslatorForTesting(@Nullable CommandTranslator commandTranslator) {
+        getInstance().commandTranslator = commandTranslator;
+    }
+
     @Internal
     public synchronized void isInitialized() {
         Preconditions.checkArgument(commandTranslator != null, "The Autonomous Container must be initialized before any " +
@@ -342,61 +507,233 @@ public final class AutonomousContainer {
         this.debugPrints = debugPrints;
     }
 
+    /**
+     * Sets the number of threads that will deserialize autos in the background. Files are always read from disk by a single separate thread. This must be called before {@link #initialize}.
+     * <p>
+     * The default is one less than the number of processors (so 1 on a roboRIO), leaving a core free for the robot thread. Use {@link #getAutoLoadTimes()} to see where the loading time is going.
+     *
+     * @param loaderParallelism The number of threads to deserialize autos on
+     */
+    @SuppressWarnings("unused")
+    public synchronized void setLoaderParallelism(int loaderParallelism) {
+        Preconditions.checkArgument(loaderParallelism > 0, "The loader parallelism must be at least 1");
+        Preconditions.checkState(this.commandTranslator == null, "The loader parallelism must be set before initializing");
+        this.loaderParallelism = loaderParallelism;
+    }
+
+    /**
+     * Sets whether parsed autos should be cached on disk (next to the deploy directory) so that autos that haven't changed can be loaded faster on the next boot. This is enabled by default on a
+     * real robot and disabled in simulation. This must be called before {@link #initialize}.
+     *
+     * @param autoCacheEnabled Whether to cache parsed autos
+     */
+    @SuppressWarnings("unused")
+    public synchronized void setAutoCacheEnabled(boolean autoCacheEnabled) {
+        Preconditions.checkState(this.commandTranslator == null, "The auto cache must be configured before initializing");
+        this.autoCacheEnabled = autoCacheEnabled;
+    }
+
+    /**
+     * Sets whether autos should be reloaded when they change on disk. While enabled, the auto directory is watched and only the autos that were added, changed or deleted are reloaded. Changed
+     * autos are loaded in the background, and the previous version is used until the new one is ready.
+     * <p>
+     * This is useful when iterating on autos by copying them to the robot without redeploying the code. This must be called after {@link #initialize}.
+     *
+     * @param hotReloadEnabled Whether to watch the auto directory for changes
+     */
+    @SuppressWarnings("unused")
+    public synchronized void setAutoHotReloadEnabled(boolean hotReloadEnabled) {
+        isInitialized();
+        if (hotReloadEnabled) {
+            if (autoWatcher != null) return;
+            autoWatcher = new AutoWatcher(new File(AUTO_DIRECTORY), autoLoader,
+                    file -> isAutoFile(file) && !file.getName().contains("NOTDEPLOYABLE"));
+            try {
+                autoWatcher.start();
+                System.out.println("Watching " + AUTO_DIRECTORY + " for changes to autos");
+            } catch (IOException e) {
+                autoWatcher.stop();
+                autoWatcher = null;
+                DriverStation.reportError("Failed to watch the auto directory: " + e.getLocalizedMessage(), e.getStackTrace());
+            }
+        } else if (autoWatcher != null) {
+            autoWatcher.stop();
+            autoWatcher = null;
+        }
+    }
+
+    /**
+     * @return The number of autos that were loaded from the auto cache
+     */
+    @SuppressWarnings("unused")
+    public int getAutoCacheHits() {
+        @Nullable AutoCache autoCache = this.autoCache;
+        return autoCache == null ? 0 : autoCache.getHits();
+    }
+
+    /**
+     * @return The number of autos that weren't in the auto cache and had to be deserialized
+     */
+    @SuppressWarnings("unused")
+    public int getAutoCacheMisses() {
+        @Nullable AutoCache autoCache = this.autoCache;
+        return autoCache == null ? 0 : autoCache.getMisses();
+    }
+
+    /**
+     * @return The total size (in bytes) of the auto files that were loaded from the auto cache instead of being deserialized
+     */
+    @SuppressWarnings("unused")
+    public long getAutoCacheBytesSaved() {
+        @Nullable AutoCache autoCache = this.autoCache;
+        return autoCache == null ? 0 : autoCache.getBytesSaved();
+    }
+
+    /**
+     * @return The number of command lookups (classes, methods, instances and enum constants) that were reused from a previously loaded command
+     */
+    @SuppressWarnings("unused")
+    public long getCommandResolutionCacheHits() {
+        return CommandResolutionCache.getHits();
+    }
+
+    /**
+     * @return The number of command lookups (classes, methods, instances and enum constants) that had to be resolved through reflection
+     */
+    @SuppressWarnings("unused")
+    public long getCommandResolutionCacheMisses() {
+        return CommandResolutionCache.getMisses();
+    }
 
     /**
-     * @return A list of the names of all the autos that have been loaded. The name is the name of the file, without the .json
+     * @return How long it took to read and deserialize each auto that has been loaded so far
+     */
+    @SuppressWarnings("unused")
+    public @NotNull Map<File, AutoLoadTime> getAutoLoadTimes() {
+        return autoLoader.getLoadTimes();
+    }
+
+
+    /**
+     * @return A list of the names of all the autos that have been found. The name is the name of the file, without the extension. (The autos may still be loading in the background)
      */
     @SuppressWarnings("unused")
     public ArrayList<String> getAutonomousNames() {
-        ArrayList<String> names = new ArrayList<>(autonomousList.size());
-        for (File absoluteFilePath : autonomousList.keySet()) {
+        Set<String> names = new LinkedHashSet<>(autoLoader.getIndexedCount());
+        for (File absoluteFilePath : autoLoader.getIndexedFiles()) {
             String fileName = absoluteFilePath.getName();
             names.add(fileName.substring(0, fileName.lastIndexOf('.'))); // Strip the file extension
         }
-        return names;
+        return new ArrayList<>(names); // An auto may exist in more than one format
     }
 
     /**
-     * @return A list of the absolute paths of all the autos that have been loaded.
+     * @return A list of the absolute paths of all the autos that have been found. (The autos may still be loading in the background)
      */
     @SuppressWarnings("unused")
     public Set<File> getAbsoluteAutonomousPaths() {
-        return autonomousList.keySet();
+        return autoLoader.getIndexedFiles();
     }
 
-
     /**
-     * @param name             The name of the auto to get
-     * @param side             The side of the field to get the auto for
-     * @param allowNetworkAuto If true, the network auto will be returned if one is available
-     * @return The auto with the given name, or null if it is not found
+     * Finds the files of the auto with the given name and side, in the order they should be tried. See {@link #findAutoFiles(AutoLoader, String, String, String)}.
      */
-    public synchronized @Nullable GuiAuto getAuto(String name, String side, boolean allowNetworkAuto) {
-        @Nullable GuiAuto selectedAuto;
-        networkAutoLock.lock();
-        try {
-            if (allowNetworkAuto && networkAuto != null) {
-                selectedAuto = networkAuto;
-            } else {
-                File autoPath = new File(AUTO_DIRECTORY + side + (side.endsWith("/") ? "" : "/") + name + ".auto");
+    private @NotNull List<File> findAutoFiles(String name, String side) {
+        return findAutoFiles(autoLoader, AUTO_DIRECTORY, name, side);
+    }
 
-                if (!autonomousList.containsKey(autoPath)) {
-                    autoPath = new File(AUTO_DIRECTORY + name + ".auto"); // Try the name without the side
-                }
+    /**
+     * Finds the files of the auto with the given name and side, in the order they should be tried. A binary auto is skipped if the auto it was converted from has been changed since (it would run
+     * the old version of the auto), and the auto it was converted from is still returned after it in case it fails to load (ex: it was written by an older version of AutoBuilder).
+     *
+     * @return The files of the auto, or an empty list if no auto with the name exists
+     */
+    @VisibleForTesting
+    static @NotNull List<File> findAutoFiles(@NotNull AutoLoader autoLoader, @NotNull String autoDirectory, String name, String side) {
+        List<File> autoFiles = new ArrayList<>(2);
+        // Try each extension, first with the side and then without it
+        for (String extension : AUTO_FILE_EXTENSIONS) {
+            addAutoFile(autoLoader, autoFiles, new File(autoDirectory + side + (side.endsWith("/") ? "" : "/") + name + extension));
+            addAutoFile(autoLoader, autoFiles, new File(autoDirectory + name + extension)); // Try the name without the side
+        }
+        return autoFiles;
+    }
 
-                // If the auto is still not found, try the json extension
-                if (!autonomousList.containsKey(autoPath)) {
-                    autoPath = new File(AUTO_DIRECTORY + side + (side.endsWith("/") ? "" : "/") + name + ".json");
-                }
+    private static void addAutoFile(@NotNull AutoLoader autoLoader, @NotNull List<File> autoFiles, @NotNull File autoFile) {
+        if (autoLoader.isIndexed(autoFile) && !isStaleBinaryAuto(autoLoader, autoFile)) {
+            autoFiles.add(autoFile);
+        }
+    }
 
-                if (!autonomousList.containsKey(autoPath)) {
-                    autoPath = new File(AUTO_DIRECTORY + name + ".json"); // Try the name without the side
-                }
+    /**
+     * @return If the file is a binary auto that is older than the auto it was converted from
+     */
+    private static boolean isStaleBinaryAuto(@NotNull AutoLoader autoLoader, @NotNull File autoFile) {
+        String path = autoFile.getPath();
+        if (!path.endsWith(BinaryAutoFormat.FILE_EXTENSION)) {
+            return false;
+        }
+        String pathWithoutExtension = path.substring(0, path.length() - BinaryAutoFormat.FILE_EXTENSION.length());
+        for (String extension : AUTO_FILE_EXTENSIONS) {
+            File source = new File(pathWithoutExtension + extension);
+            if (!extension.equals(BinaryAutoFormat.FILE_EXTENSION) && autoLoader.isIndexed(source) && source.lastModified() > autoFile.lastModified()) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-                selectedAuto = autonomousList.get(autoPath);
+    /**
+     * @return The first of the auto files that loads, or null if none of them do
+     */
+    @VisibleForTesting
+    static @Nullable GuiAuto loadFirst(@NotNull AutoLoader autoLoader, @NotNull List<File> autoFiles) {
+        for (File autoFile : autoFiles) {
+            @Nullable GuiAuto auto = autoLoader.get(autoFile);
+            if (auto != null) {
+                return auto;
             }
-        } finally {
-            networkAutoLock.unlock();
+            // The loader has already reported why it failed
+        }
+        return null;
+    }
+
+    /**
+     * Moves an auto to the front of the background loading queue so that it's ready as soon as possible. Call this when an auto is selected (ex: from the onChange of a chooser) so that it will
+     * already be loaded when autonomous starts.
+     *
+     * @param name The name of the auto
+     * @param side The side of the field to get the auto for
+     */
+    @SuppressWarnings("unused")
+    public void prewarmAuto(String name, String side) {
+        List<File> autoFiles = findAutoFiles(name, side);
+        if (!autoFiles.isEmpty()) {
+            autoLoader.prioritize(autoFiles.get(0));
+        }
+    }
+
+    /**
+     * Moves an auto to the front of the background loading queue so that it's ready as soon as possible.
+     *
+     * @param file The absolute file path of the auto
+     */
+    @SuppressWarnings("unused")
+    public void prewarmAuto(File file) {
+        autoLoader.prioritize(file);
+    }
+
+
+    /**
+     * @param name             The name of the auto to get
+     * @param side             The side of the field to get the auto for
+     * @param allowNetworkAuto If true, the network auto will be returned if one is available
+     * @return The auto with the given name, or null if it is not found. If the auto hasn't been loaded yet, this will wait for it to load (without blocking other calls to the container).
+     */
+    public @Nullable GuiAuto getAuto(String name, String side, boolean allowNetworkAuto) {
+        @Nullable GuiAuto selectedAuto = allowNetworkAuto ? getNetworkAuto() : null;
+        if (selectedAuto == null) {
+            selectedAuto = loadFirst(autoLoader, findAutoFiles(name, side));
         }
         return selectedAuto;
     }
@@ -411,20 +748,21 @@ public final class AutonomousContainer {
      * @param allowRunningNetworkAuto Weather to allow network autos to be run instead of the selected auto. If a network auto is loaded and this is true, it will be run instead of the selected auto.
      */
     @SuppressWarnings("unused")
-    public synchronized void runAutonomous(String name, String side, boolean allowRunningNetworkAuto) {
+    public void runAutonomous(String name, String side, boolean allowRunningNetworkAuto) {
         @Nullable GuiAuto selectedAuto;
 
         selectedAuto = getAuto(name, side, allowRunningNetworkAuto);
 
         // If the auto is null, it means that the auto was not found.
         if (selectedAuto == null) {
+            StringBuilder expectedPaths = new StringBuilder();
+            for (String extension : AUTO_FILE_EXTENSIONS) {
+                expectedPaths.append(expectedPaths.length() == 0 ? "" : "\nOr:\n")
+                        .append(AUTO_DIRECTORY).append(side).append(side.endsWith("/") ? "" : "/").append(name).append(extension)
+                        .append("\nOr:\n").append(AUTO_DIRECTORY).append(name).append(extension);
+            }
             DriverStation.reportError("Could not find auto: " + name +
-                            "\nExpected to find the auto in:\n" +
-                            AUTO_DIRECTORY + side + (side.endsWith("/") ? "" : "/") + name + ".auto" +
-                            "\nOr:\n" + AUTO_DIRECTORY + name + ".auto" +
-                            "\nOr:\n" + AUTO_DIRECTORY + side + (side.endsWith("/") ? "" : "/") + name + ".json" +
-                            "\nOr:\n" + AUTO_DIRECTORY + name + ".json",
-                    false);
+                    "\nExpected to find the auto in:\n" + expectedPaths, false);
             return;
         }
 
@@ -439,17 +777,10 @@ public final class AutonomousContainer {
      * @param allowRunningNetworkAuto Weather to allow network autos to be run instead of the selected auto. If a network auto is loaded and this is true, it will be run instead of the selected auto.
      */
     @SuppressWarnings("unused")
-    public synchronized void runAutonomous(File file, boolean allowRunningNetworkAuto) {
-        @Nullable GuiAuto selectedAuto;
-        networkAutoLock.lock();
-        try {
-            if (allowRunningNetworkAuto && networkAuto != null) {
-                selectedAuto = networkAuto;
-            } else {
-                selectedAuto = autonomousList.get(file);
-            }
-        } finally {
-            networkAutoLock.unlock();
+    public void runAutonomous(File file, boolean allowRunningNetworkAuto) {
+        @Nullable GuiAuto selectedAuto = allowRunningNetworkAuto ? getNetworkAuto() : null;
+        if (selectedAuto == null) {
+            selectedAuto = autoLoader.get(file);
         }
 
         // If the auto is null, it means that the auto was not found.
@@ -461,34 +792,113 @@ public final class AutonomousContainer {
         runAuto(selectedAuto);
     }
 
-    private void runAuto(@NotNull GuiAuto selectedAuto) {
+    /**
+     * Replaces the running auto. Only this part of running an auto holds the container's lock; the auto is looked up (and waited for if it's still loading) before it's called.
+     */
+    @VisibleForTesting
+    synchronized void runAuto(@NotNull GuiAuto selectedAuto) {
         // Ensure that no other autos are currently running
         killAuto();
         commandTranslator.clearCommandQueue();
+        // Marked once the old auto is gone, so that it can't take the mark by setting a trajectory while it's dying, and waiting for it isn't counted
+        commandTranslator.markAutoStart();
 
-        // We then create a new thread to run the auto and run it
+        if (cooperativeExecution && commandTranslator.runOnMainThread) {
+            // The auto will be advanced from the main thread's periodic, so it doesn't need a thread of its own
+            synchronized (autoThreadLock) {
+                cooperativeAuto = selectedAuto.createTask();
+            }
+            return;
+        }
+
+        // Hand the auto to the worker thread, which is already running
         synchronized (autoThreadLock) {
-            autoThread = new Thread(selectedAuto);
-            autoThread.start();
+            autoJob = autoWorker.submit(selectedAuto);
         }
     }
 
+    /**
+     * Sets whether scripts that are triggered during a trajectory should run alongside it instead of pausing it. While they're disabled (the default), the trajectory step waits for each script
+     * to finish before it updates the rotation or triggers the next script.
+     * <p>
+     * When enabled, the scripts are run on a small pool of threads (or alongside the trajectory if autos are {@link #setCooperativeExecutionEnabled(boolean) run cooperatively}). The trajectory step
+     * waits for all of them to finish before it ends, and they're cancelled if the auto is killed. The methods that they call must be safe to call at the same time as each other.
+     *
+     * @param concurrentScripts Whether to run scripts concurrently with the trajectory
+     */
+    @SuppressWarnings("unused")
+    public void setConcurrentScriptsEnabled(boolean concurrentScripts) {
+        this.concurrentScripts = concurrentScripts;
+    }
+
+    @Internal
+    public boolean areConcurrentScriptsEnabled() {
+        return concurrentScripts;
+    }
+
+    @Internal
+    public @NotNull ExecutorService getScriptExecutor() {
+        return scriptExecutor;
+    }
+
+    /**
+     * Sets whether the rotation of holonomic trajectories should be interpolated. While it's disabled (the default), each rotation is sent to the drivetrain once its time has been passed. When
+     * enabled, the rotation sent to the drivetrain moves from each rotation towards the next one (the shorter way around) so that the next rotation is reached at its time. The rotation is then
+     * sent on every tick that it changes, instead of once per rotation.
+     *
+     * @param rotationInterpolation Whether to interpolate between the rotations of trajectories
+     */
+    @SuppressWarnings("unused")
+    public void setRotationInterpolationEnabled(boolean rotationInterpolation) {
+        this.rotationInterpolation = rotationInterpolation;
+    }
+
+    @Internal
+    public boolean isRotationInterpolationEnabled() {
+        return rotationInterpolation;
+    }
+
+    /**
+     * Sets whether autos should be run cooperatively on the main thread instead of on their own thread. The auto is advanced every time the main thread runs the queued commands (every 1ms), so
+     * there are no threads to start and the commands don't have to be handed off to the main thread. The steps and scripts behave the same way.
+     * <p>
+     * This only has an effect if the command translator runs commands on the main thread. The methods that the autos call must not block, since they would block the robot loop.
+     *
+     * @param cooperativeExecution Whether to run autos cooperatively on the main thread
+     */
+    @SuppressWarnings("unused")
+    public void setCooperativeExecutionEnabled(boolean cooperativeExecution) {
+        this.cooperativeExecution = cooperativeExecution;
+    }
+
     /**
      * Kills the currently running autonomous.
      */
     public void killAuto() {
+        boolean stopCooperativeAuto;
         synchronized (autoThreadLock) {
-            if (autoThread != null && autoThread.isAlive()) {
-                autoThread.interrupt();
+            stopCooperativeAuto = cooperativeAuto != null;
+            cooperativeAuto = null;
+        }
+        if (stopCooperativeAuto) {
+            // Wait for a tick that's already in progress, so that it can't move the robot after it has been stopped. (The auto lock isn't held while waiting, since the tick may need it.)
+            synchronized (cooperativeTickLock) {
+                getCommandTranslator().stopRobot();
+            }
+        }
+
+        synchronized (autoThreadLock) {
+            if (autoJob != null && !autoJob.isFinished()) {
+                autoWorker.cancel(autoJob);
 
                 double nextStackTracePrint = Timer.getFPGATimestamp() + 1;
-                while (autoThread.isAlive() && autoThread.getState() != State.TERMINATED) {
+                while (!autoJob.isFinished()) {
                     if (Timer.getFPGATimestamp() > nextStackTracePrint) {
                         Exception throwable = new Exception(
-                                "Waiting for auto to die. autoThread.getState() = " + autoThread.getState() +
+                                "Waiting for auto to die." +
                                         "\n Take a look at the stack trace for the auto thread bellow. Ensure that your auto will " +
                                         "exit when it is interrupted.");
-                        throwable.setStackTrace(autoThread.getStackTrace());
+                        throwable.setStackTrace(autoWorker.getStackTrace());
                         throwable.printStackTrace();
                         if (commandTranslator.runOnMainThread) {
                             Exception throwable2 = new Exception("The auto is running on the main thread. " +
@@ -509,10 +919,38 @@ public final class AutonomousContainer {
                 }
                 getCommandTranslator().stopRobot();
             }
+            autoJob = null;
         }
     }
 
-    private void onAutoPeriodic() {
+    @VisibleForTesting
+    void onAutoPeriodic() {
         commandTranslator.onPeriodic();
+
+        synchronized (cooperativeTickLock) {
+            AutoTask auto = cooperativeAuto;
+            if (auto != null) {
+                boolean finished;
+                try {
+                    finished = auto.tick(System.nanoTime());
+                } catch (CommandExecutionFailedException | ExecutionException e) {
+                    getCommandTranslator().stopRobot();
+                    e.printStackTrace(); // We should always print this out since it is a fatal error
+                    finished = true;
+                } catch (RuntimeException e) {
+                    DriverStation.reportError("Uncaught exception in auto: " + e.getMessage(), e.getStackTrace());
+                    getCommandTranslator().stopRobot();
+                    finished = true;
+                }
+
+                if (finished) {
+                    synchronized (autoThreadLock) {
+                        if (cooperativeAuto == auto) {
+                            cooperativeAuto = null;
+                        }
+                    }
+                }
+            }
+        }
     }
 }
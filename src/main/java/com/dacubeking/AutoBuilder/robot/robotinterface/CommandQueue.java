@@ -0,0 +1,100 @@
+package com.dacubeking.AutoBuilder.robot.robotinterface;
+
+import com.google.common.base.Preconditions;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free queue of commands with many producers (the threads that send commands to the main thread) and a single consumer (the main thread).
+ * <p>
+ * The commands are stored in a ring buffer. A producer claims the next index with a CAS on {@link #tail} and then publishes its command into that cell. The consumer only reads a cell once the
+ * command has been published, and clears it before moving {@link #head} forward, so a producer can never overwrite a command that hasn't been run.
+ */
+final class CommandQueue {
+    private final @NotNull AtomicReferenceArray<Runnable> buffer;
+    private final int mask;
+
+    /**
+     * The index of the next command to be claimed by a producer
+     */
+    private final @NotNull AtomicLong tail = new AtomicLong(0);
+    /**
+     * The index of the next command to be run. Only written by the consumer.
+     */
+    private final @NotNull AtomicLong head = new AtomicLong(0);
+
+    /**
+     * @param capacity The maximum number of commands that can be queued. Must be a power of two.
+     */
+    CommandQueue(int capacity) {
+        Preconditions.checkArgument(capacity > 0 && Integer.bitCount(capacity) == 1, "The capacity must be a power of two");
+        buffer = new AtomicReferenceArray<>(capacity);
+        mask = capacity - 1;
+    }
+
+    /**
+     * Adds a command to the queue. Safe to call from any thread.
+     *
+     * @return false if the queue is full
+     */
+    boolean offer(@NotNull Runnable command) {
+        while (true) {
+            long index = tail.get();
+            if (index - head.get() >= buffer.length()) {
+                return false;
+            }
+            if (tail.compareAndSet(index, index + 1)) {
+                buffer.lazySet((int) (index & mask), command);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Removes the next command from the queue. Must only be called by the consumer.
+     *
+     * @return The next command, or null if the queue is empty (or the next command is still being published)
+     */
+    @Nullable Runnable poll() {
+        long index = head.get();
+        int cell = (int) (index & mask);
+        Runnable command = buffer.get(cell);
+        if (command == null) {
+            return null;
+        }
+        buffer.lazySet(cell, null);
+        head.lazySet(index + 1);
+        return command;
+    }
+
+    /**
+     * Returns the command that {@link #poll()} would return without removing it. Must only be called by the consumer.
+     */
+    @Nullable Runnable peek() {
+        return buffer.get((int) (head.get() & mask));
+    }
+
+    /**
+     * @return The index that the next command added to the queue will have
+     */
+    long getTailIndex() {
+        return tail.get();
+    }
+
+    /**
+     * @return The index of the next command that will be removed from the queue
+     */
+    long getHeadIndex() {
+        return head.get();
+    }
+
+    /**
+     * @return The number of commands in the queue (including the ones that are still being published)
+     */
+    int size() {
+        return (int) Math.max(tail.get() - head.get(), 0);
+    }
+}
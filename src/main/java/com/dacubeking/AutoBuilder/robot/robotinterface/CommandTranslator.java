@@ -9,9 +9,10 @@ import org.jetbrains.annotations.ApiStatus.Internal;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 import java.util.function.DoubleSupplier;
@@ -72,28 +73,198 @@ public class CommandTranslator {
         }
 
         this.stopRobot = stopRobot;
+        this.stopRobotCommand = () -> {
+            trajectorySampleTable = null;
+            stopRobot.run();
+        };
         this.isTrajectoryDone = isTrajectoryDone;
         this.setRobotPose = setRobotPose;
         this.runOnMainThread = runOnMainThread;
+        this.isTrajectoryDoneCall = this.isTrajectoryDone::getAsBoolean;
+        this.getTrajectoryElapsedTimeCall = this.getTrajectoryElapsedTime::getAsDouble;
+    }
+
+    /**
+     * The maximum number of commands that can be waiting to run on the main thread. Threads that queue commands while it's full will wait for the main thread to catch up.
+     */
+    private static final int COMMAND_QUEUE_CAPACITY = 1024;
+
+    private final @NotNull CommandQueue commandQueue = new CommandQueue(COMMAND_QUEUE_CAPACITY);
+
+    /**
+     * Commands with an index lower than this were cleared and will be skipped instead of run
+     */
+    private volatile long clearedCommandIndex = 0;
+
+    /**
+     * The thread that runs {@link #onPeriodic()}
+     */
+    private volatile @Nullable Thread mainThread;
+
+    private volatile long drainTimeBudgetNanos = 500_000;
+
+    // These are only written by the main thread
+    private volatile long lastDrainTimeNanos = 0;
+    private volatile long maxDrainTimeNanos = 0;
+    private volatile long drainOverrunCount = 0;
+    private volatile long coalescedCommandCount = 0;
+
+    private final @NotNull AtomicLong queueFullCount = new AtomicLong(0);
+
+    /**
+     * The latest sample of the drive state. See {@link #getDriveState()}.
+     */
+    private volatile @NotNull DriveStateSnapshot driveState = new DriveStateSnapshot(0, System.nanoTime(), false, 0.0, 0, null);
+    private final @NotNull AtomicLong driveStateSequence = new AtomicLong(0);
+    /**
+     * The number of users of the drive state. The drive state is only sampled while there are any, since the suppliers may not be cheap.
+     */
+    private final @NotNull AtomicInteger driveStateSamplers = new AtomicInteger(0);
+    /**
+     * The number of threads waiting in {@link #awaitNextDriveState()}. Only changed while holding {@link #driveStateLock}.
+     */
+    private volatile int driveStateWaiters = 0;
+    private final @NotNull Object driveStateLock = new Object();
+
+    /**
+     * A queued call to {@link #setAutonomousRotation}. These are coalesced when they're next to each other in the queue, since only the last rotation matters.
+     */
+    private final class SetRotationCommand implements Runnable {
+        private final @NotNull Rotation2d rotation;
+
+        private SetRotationCommand(@NotNull Rotation2d rotation) {
+            this.rotation = rotation;
+        }
+
+        @Override
+        public void run() {
+            assert setAutonomousRotation != null;
+            setAutonomousRotation.accept(rotation);
+        }
     }
 
-    private final @NotNull ConcurrentLinkedQueue<Runnable> commandQueue = new ConcurrentLinkedQueue<>();
+    /**
+     * Used to get values from the main thread without allocating. There's usually only one thread waiting (the autonomous thread), but a few extra slots are kept for other callers.
+     */
+    private final @NotNull MainThreadBridge mainThreadBridge = new MainThreadBridge(8, commandQueue::getTailIndex);
+    private final @NotNull MainThreadBridge.BooleanCall isTrajectoryDoneCall;
+    private final @NotNull MainThreadBridge.DoubleCall getTrajectoryElapsedTimeCall;
+
+    /**
+     * The sample table of the trajectory that is being driven, or null if it doesn't have one or the robot has been stopped since it was set. See
+     * {@link #sampleTrajectory(double, TrajectorySample)}.
+     */
+    private volatile @Nullable TrajectorySampleTable trajectorySampleTable = null;
+
+    /**
+     * Stops the robot and drops the sample table of the trajectory it was driving. Created once so that queueing it doesn't allocate.
+     */
+    private final @NotNull Runnable stopRobotCommand;
 
     @Internal
     public void setNewTrajectory(@NotNull Trajectory trajectory) {
+        setNewTrajectory(trajectory, null);
+    }
+
+    /**
+     * Sets a new trajectory along with its sample table. The table is swapped in right before the trajectory is passed to the drive code, so the drive code always samples the trajectory that
+     * it was given.
+     */
+    @Internal
+    public void setNewTrajectory(@NotNull Trajectory trajectory, @Nullable TrajectorySampleTable sampleTable) {
         if (runOnMainThread) {
-            commandQueue.add(() -> setNewTrajectory.accept(trajectory));
+            queueCommand(() -> {
+                trajectorySampleTable = sampleTable;
+                setNewTrajectory.accept(trajectory);
+                recordAutoStartLatency();
+            });
         } else {
+            trajectorySampleTable = sampleTable;
             setNewTrajectory.accept(trajectory);
+            recordAutoStartLatency();
+        }
+    }
+
+    /**
+     * When the auto that is starting was started (from {@link System#nanoTime()}), or -1 if its first trajectory has already been set
+     */
+    private final @NotNull AtomicLong autoStartTime = new AtomicLong(-1);
+    private volatile long lastAutoStartLatencyNanos = -1;
+    private final @NotNull AtomicLong maxAutoStartLatencyNanos = new AtomicLong(-1);
+
+    /**
+     * Records that an auto is being started, so that the time until its first trajectory is passed to the drive code can be measured. See {@link #getLastAutoStartLatency()}.
+     */
+    @Internal
+    void markAutoStart() {
+        autoStartTime.set(System.nanoTime());
+    }
+
+    private void recordAutoStartLatency() {
+        long startTime = autoStartTime.getAndSet(-1);
+        if (startTime == -1) {
+            return; // Not the first trajectory of the auto
+        }
+        long latency = System.nanoTime() - startTime;
+        lastAutoStartLatencyNanos = latency;
+        maxAutoStartLatencyNanos.accumulateAndGet(latency, Math::max);
+        if (AutonomousContainer.getInstance().areDebugPrintsEnabled()) {
+            AutonomousContainer.getInstance().printDebug("Set the first trajectory " + latency / 1e6 + "ms after the auto was started");
+        }
+    }
+
+    /**
+     * @return The time between the last auto being started (ex: {@link AutonomousContainer#runAutonomous(String, String, boolean)} being called when autonomous is enabled, after the previous
+     * auto has been stopped) and its first trajectory being passed to the drive code, in seconds. NaN if no auto has set a trajectory yet.
+     */
+    @SuppressWarnings("unused")
+    public double getLastAutoStartLatency() {
+        long latency = lastAutoStartLatencyNanos;
+        return latency == -1 ? Double.NaN : latency / 1e9;
+    }
+
+    /**
+     * @return The longest time between an auto being started and its first trajectory being passed to the drive code, in seconds. NaN if no auto has set a trajectory yet.
+     */
+    @SuppressWarnings("unused")
+    public double getMaxAutoStartLatency() {
+        long latency = maxAutoStartLatencyNanos.get();
+        return latency == -1 ? Double.NaN : latency / 1e9;
+    }
+
+    /**
+     * Samples the trajectory that is being driven, without allocating anything. This can be used instead of {@link Trajectory#sample(double)}, which searches the trajectory and creates new
+     * objects on every call. The samples are precomputed when the auto is loaded (see {@link TrajectorySampleTable}).
+     *
+     * @param time   The time since the start of the trajectory in seconds
+     * @param sample The sample to write the result into. Keep one and reuse it.
+     * @return false if the trajectory that is being driven doesn't have a sample table (ex: it wasn't set by AutoBuilder) or no trajectory is being driven (the robot has been stopped or the auto
+     * was killed), in which case the sample isn't changed
+     */
+    @SuppressWarnings("unused")
+    public boolean sampleTrajectory(double time, @NotNull TrajectorySample sample) {
+        TrajectorySampleTable sampleTable = trajectorySampleTable;
+        if (sampleTable == null) {
+            return false;
         }
+        sampleTable.sample(time, sample);
+        return true;
+    }
+
+    /**
+     * @return The sample table of the trajectory that is being driven, or null if it doesn't have one
+     */
+    @SuppressWarnings("unused")
+    public @Nullable TrajectorySampleTable getTrajectorySampleTable() {
+        return trajectorySampleTable;
     }
 
     @Internal
     public void stopRobot() {
         if (runOnMainThread) {
-            commandQueue.add(stopRobot);
+            queueCommand(stopRobotCommand);
         } else {
-            stopRobot.run();
+            stopRobotCommand.run();
         }
     }
 
@@ -102,7 +273,7 @@ public class CommandTranslator {
         if (AutonomousContainer.getInstance().isHolonomic()) {
             assert setAutonomousRotation != null;
             if (runOnMainThread) {
-                commandQueue.add(() -> setAutonomousRotation.accept(rotation));
+                queueCommand(new SetRotationCommand(rotation));
             } else {
                 setAutonomousRotation.accept(rotation);
             }
@@ -111,13 +282,14 @@ public class CommandTranslator {
 
     @Internal
     protected void clearCommandQueue() {
-        commandQueue.clear();
+        clearedCommandIndex = commandQueue.getTailIndex();
+        trajectorySampleTable = null; // The stop that was queued when the auto was killed may have just been cleared
     }
 
     @Internal
     public void setRobotPose(@NotNull Pose2d pose) {
         if (runOnMainThread) {
-            commandQueue.add(() -> setRobotPose.accept(pose));
+            queueCommand(() -> setRobotPose.accept(pose));
         } else {
             setRobotPose.accept(pose);
         }
@@ -125,44 +297,299 @@ public class CommandTranslator {
 
     @Internal
     public boolean isTrajectoryDone() throws ExecutionException, InterruptedException {
-        if (runOnMainThread) {
-            CompletableFuture<Boolean> future = new CompletableFuture<>();
-            commandQueue.add(() -> future.complete(isTrajectoryDone.getAsBoolean()));
-            return future.get();
+        if (runOnMainThread && !isMainThread()) {
+            return mainThreadBridge.callBoolean(isTrajectoryDoneCall);
         } else {
+            if (isMainThread()) {
+                runQueuedCommands(); // Let the commands that were queued before this run first
+            }
             return isTrajectoryDone.getAsBoolean();
         }
     }
 
     @Internal
     public double getTrajectoryElapsedTime() throws ExecutionException, InterruptedException {
-        if (runOnMainThread) {
-            CompletableFuture<Double> future = new CompletableFuture<>();
-            commandQueue.add(() -> future.complete(getTrajectoryElapsedTime.getAsDouble()));
-            return future.get();
+        if (runOnMainThread && !isMainThread()) {
+            return mainThreadBridge.callDouble(getTrajectoryElapsedTimeCall);
         } else {
+            if (isMainThread()) {
+                runQueuedCommands(); // Let the commands that were queued before this run first
+            }
             return getTrajectoryElapsedTime.getAsDouble();
         }
     }
 
+    /**
+     * Starts sampling the drive state on every main thread periodic. Must be paired with a call to {@link #stopDriveStateSampling()}.
+     */
+    @Internal
+    public void startDriveStateSampling() {
+        driveStateSamplers.incrementAndGet();
+    }
+
+    @Internal
+    public void stopDriveStateSampling() {
+        driveStateSamplers.decrementAndGet();
+    }
+
+    /**
+     * Returns the latest sample of the drive state without waiting. If the commands are run on the main thread, the sample can be up to one main thread periodic (1ms) old, and won't be updated
+     * unless {@link #startDriveStateSampling()} has been called. Otherwise, the drive state is sampled on the calling thread.
+     *
+     * @throws ExecutionException If the drive state's suppliers threw an exception when it was sampled
+     */
+    @Internal
+    public @NotNull DriveStateSnapshot getDriveState() throws ExecutionException {
+        if (!runOnMainThread || isMainThread()) {
+            return sampleDriveStateNow();
+        }
+        return checkDriveState(driveState);
+    }
+
+    /**
+     * Waits for the drive state to be sampled after all the commands that have been queued on the main thread have run. (ex: after {@link #setNewTrajectory(Trajectory)}.)
+     *
+     * @throws ExecutionException If the drive state's suppliers threw an exception when it was sampled
+     */
+    @Internal
+    public @NotNull DriveStateSnapshot awaitNextDriveState() throws ExecutionException, InterruptedException {
+        if (!runOnMainThread || isMainThread()) {
+            return sampleDriveStateNow();
+        }
+
+        long lastSequence = driveState.sequence;
+        long requiredCommandIndex = commandQueue.getTailIndex();
+        synchronized (driveStateLock) {
+            driveStateWaiters++;
+            try {
+                DriveStateSnapshot snapshot;
+                while ((snapshot = driveState).sequence <= lastSequence || snapshot.commandIndex < requiredCommandIndex) {
+                    driveStateLock.wait();
+                }
+                return checkDriveState(snapshot);
+            } finally {
+                driveStateWaiters--;
+            }
+        }
+    }
+
+    /**
+     * Samples the drive state on the calling thread, after running any commands that are waiting to be run on it.
+     */
+    private @NotNull DriveStateSnapshot sampleDriveStateNow() throws ExecutionException {
+        if (!runOnMainThread) {
+            return sampleDriveState(0);
+        }
+        runQueuedCommands();
+        return checkDriveState(sampleDriveState(commandQueue.getHeadIndex()));
+    }
+
+    private @NotNull DriveStateSnapshot sampleDriveState(long commandIndex) {
+        long sampleTime = System.nanoTime();
+        DriveStateSnapshot snapshot;
+        try {
+            snapshot = new DriveStateSnapshot(driveStateSequence.incrementAndGet(), sampleTime, isTrajectoryDone.getAsBoolean(), getTrajectoryElapsedTime.getAsDouble(),
+                    commandIndex, null);
+        } catch (RuntimeException e) {
+            if (!runOnMainThread) throw e;
+            snapshot = new DriveStateSnapshot(driveStateSequence.incrementAndGet(), sampleTime, false, 0.0, commandIndex, e);
+        }
+        driveState = snapshot;
+        return snapshot;
+    }
+
+    private static @NotNull DriveStateSnapshot checkDriveState(@NotNull DriveStateSnapshot snapshot) throws ExecutionException {
+        if (snapshot.failure != null) {
+            throw new ExecutionException(snapshot.failure);
+        }
+        return snapshot;
+    }
+
     @Internal
     public void runOnMainThread(@NotNull Runnable runnable) {
-        commandQueue.add(runnable);
+        queueCommand(runnable);
+    }
+
+    private void queueCommand(@NotNull Runnable command) {
+        if (isMainThread() && commandQueue.size() == 0) {
+            command.run(); // We're already on the main thread and nothing is waiting to run before this, so there's no need to queue it
+            return;
+        }
+        while (!commandQueue.offer(command)) {
+            queueFullCount.incrementAndGet();
+            if (Thread.currentThread() == mainThread) {
+                // We can't wait for ourselves to drain the queue, so run the oldest command to make space
+                runNextCommand();
+            } else {
+                LockSupport.parkNanos(100_000);
+            }
+        }
+    }
+
+    /**
+     * Runs a call on the main thread and waits for its result. The call is run after all the commands that were queued before it. The call should be created once and reused, since this doesn't
+     * allocate anything itself.
+     *
+     * @throws ExecutionException If the call threw an exception
+     */
+    @Internal
+    public boolean callOnMainThread(@NotNull MainThreadBridge.BooleanCall call) throws ExecutionException, InterruptedException {
+        if (!isMainThread()) {
+            return mainThreadBridge.callBoolean(call);
+        }
+        // Waiting for ourselves would deadlock, so make the call directly
+        runQueuedCommands();
+        try {
+            return call.call();
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ExecutionException(e);
+        }
+    }
+
+    /**
+     * @return If the calling thread is the main thread (the one that runs {@link #onPeriodic()})
+     */
+    @Internal
+    public boolean isMainThread() {
+        return Thread.currentThread() == mainThread;
+    }
+
+    /**
+     * Runs all the commands that are waiting in the queue. Must only be called from the main thread.
+     */
+    private void runQueuedCommands() {
+        //noinspection StatementWithEmptyBody
+        while (runNextCommand()) ;
     }
 
     /**
      * Runs commands on the main thread. (called every 1ms)
+     * <p>
+     * Commands are run until the queue is empty or the {@link #setCommandDrainTimeBudget(double) time budget} is used up. Any commands left over are run on the next call, so a burst of commands
+     * can't overrun the robot loop.
      */
     @Internal
     protected void onPeriodic() {
-        while (!commandQueue.isEmpty()) {
-            @Nullable Runnable commandToRun = commandQueue.poll();
-            if (commandToRun != null) {
-                commandToRun.run();
+        long startTime = System.nanoTime();
+        mainThread = Thread.currentThread();
+
+        long elapsedTime;
+        while (true) {
+            boolean ranCommand = runNextCommand();
+            elapsedTime = System.nanoTime() - startTime;
+            if (!ranCommand) break;
+            if (elapsedTime >= drainTimeBudgetNanos) {
+                if (commandQueue.size() > 0) {
+                    drainOverrunCount++;
+                }
+                break;
+            }
+        }
+
+        // Service the requests whose commands have all been run. The rest are serviced on a later call, once the commands that were queued before them have run.
+        mainThreadBridge.serviceRequests(commandQueue.getHeadIndex());
+
+        if (driveStateSamplers.get() > 0 || driveStateWaiters > 0) {
+            sampleDriveState(commandQueue.getHeadIndex());
+            if (driveStateWaiters > 0) {
+                synchronized (driveStateLock) {
+                    driveStateLock.notifyAll();
+                }
+            }
+        }
+
+        lastDrainTimeNanos = elapsedTime;
+        if (elapsedTime > maxDrainTimeNanos) {
+            maxDrainTimeNanos = elapsedTime;
+        }
+    }
+
+    /**
+     * Runs the next command in the queue (skipping any that have been cleared or coalesced). Must only be called by the main thread.
+     *
+     * @return false if the queue was empty
+     */
+    private boolean runNextCommand() {
+        while (true) {
+            long index = commandQueue.getHeadIndex();
+            @Nullable Runnable command = commandQueue.poll();
+            if (command == null) {
+                return false;
             }
+            if (index < clearedCommandIndex) {
+                continue;
+            }
+            if (command instanceof SetRotationCommand && commandQueue.peek() instanceof SetRotationCommand) {
+                coalescedCommandCount++; // The next command will overwrite this rotation anyway
+                continue;
+            }
+            command.run();
+            return true;
         }
     }
 
+    /**
+     * Sets how long {@link #onPeriodic()} can spend running queued commands each time it's called. (It's called every 1ms.) The command that is running when the budget runs out is always
+     * finished. Defaults to 0.5ms.
+     *
+     * @param seconds The time budget in seconds
+     */
+    @SuppressWarnings("unused")
+    public void setCommandDrainTimeBudget(double seconds) {
+        Preconditions.checkArgument(seconds > 0, "The time budget must be positive");
+        drainTimeBudgetNanos = (long) (seconds * 1e9);
+    }
+
+    /**
+     * @return The number of commands that are waiting to be run on the main thread
+     */
+    @SuppressWarnings("unused")
+    public int getCommandQueueDepth() {
+        return commandQueue.size();
+    }
+
+    /**
+     * @return How long the last call to {@link #onPeriodic()} spent running commands, in seconds
+     */
+    @SuppressWarnings("unused")
+    public double getLastCommandDrainTime() {
+        return lastDrainTimeNanos / 1e9;
+    }
+
+    /**
+     * @return The longest any call to {@link #onPeriodic()} has spent running commands, in seconds
+     */
+    @SuppressWarnings("unused")
+    public double getMaxCommandDrainTime() {
+        return maxDrainTimeNanos / 1e9;
+    }
+
+    /**
+     * @return The number of times {@link #onPeriodic()} ran out of time before the command queue was empty
+     */
+    @SuppressWarnings("unused")
+    public long getCommandDrainOverrunCount() {
+        return drainOverrunCount;
+    }
+
+    /**
+     * @return The number of commands that were skipped because a later command of the same kind replaced them
+     */
+    @SuppressWarnings("unused")
+    public long getCoalescedCommandCount() {
+        return coalescedCommandCount;
+    }
+
+    /**
+     * @return The number of times a command had to wait because the command queue was full
+     */
+    @SuppressWarnings("unused")
+    public long getCommandQueueFullCount() {
+        return queueFullCount.get();
+    }
+
     /**
      * Gets the wanted rotation of the robot. This is the current goal rotation of the robot. This is only used if the robot is holonomic.
      */
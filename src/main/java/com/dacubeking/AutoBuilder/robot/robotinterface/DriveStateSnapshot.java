@@ -0,0 +1,49 @@
+package com.dacubeking.AutoBuilder.robot.robotinterface;
+
+import org.jetbrains.annotations.ApiStatus.Internal;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The state of the drivetrain's trajectory, sampled at one point in time. {@link CommandTranslator} samples it once per main thread periodic (while something needs it), so that the autonomous
+ * thread can read it without waiting for the main thread.
+ */
+@Internal
+public final class DriveStateSnapshot {
+    /**
+     * Increases every time the drive state is sampled
+     */
+    public final long sequence;
+    /**
+     * When the drive state was sampled, from {@link System#nanoTime()}
+     */
+    public final long sampleTimeNanos;
+    public final boolean isTrajectoryDone;
+    public final double trajectoryElapsedTime;
+    /**
+     * Every command that was queued on the main thread with a lower index had been run when this was sampled
+     */
+    final long commandIndex;
+    /**
+     * The exception that was thrown while sampling the drive state, if there was one
+     */
+    final @Nullable Exception failure;
+
+    DriveStateSnapshot(long sequence, long sampleTimeNanos, boolean isTrajectoryDone, double trajectoryElapsedTime, long commandIndex, @Nullable Exception failure) {
+        this.sequence = sequence;
+        this.sampleTimeNanos = sampleTimeNanos;
+        this.isTrajectoryDone = isTrajectoryDone;
+        this.trajectoryElapsedTime = trajectoryElapsedTime;
+        this.commandIndex = commandIndex;
+        this.failure = failure;
+    }
+
+    @Override
+    public String toString() {
+        return "DriveStateSnapshot{" +
+                "sequence=" + sequence +
+                ", sampleTimeNanos=" + sampleTimeNanos +
+                ", isTrajectoryDone=" + isTrajectoryDone +
+                ", trajectoryElapsedTime=" + trajectoryElapsedTime +
+                '}';
+    }
+}
@@ -0,0 +1,226 @@
+package com.dacubeking.AutoBuilder.robot.robotinterface;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.jetbrains.annotations.ApiStatus.Internal;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Lets the autonomous thread(s) ask the main thread for a value and wait for it without allocating. (A {@link java.util.concurrent.CompletableFuture} and a capturing lambda used to be created for
+ * every request, which happens several times every auto tick.)
+ * <p>
+ * There is a fixed set of reusable request slots. A caller claims a free slot, fills in the call it wants made, and parks until the main thread has run the call in {@link #serviceRequests(long)}
+ * and stored the (primitive) result in the slot. The calls themselves should be created once and reused. If every slot is in use, the caller parks until one is released.
+ * <p>
+ * Every request records the end of the main thread's command queue when it's made. The main thread services a request as soon as it has run every command up to that point, so a request always
+ * sees the effects of the commands that were queued before it (ex: {@code isTrajectoryDone} after {@code setNewTrajectory}), but doesn't wait for the ones that were queued after it.
+ */
+@Internal
+public final class MainThreadBridge {
+
+    @FunctionalInterface
+    public interface BooleanCall {
+        boolean call() throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface DoubleCall {
+        double call() throws Exception;
+    }
+
+    private static final int FREE = 0;
+    private static final int CLAIMED = 1;
+    private static final int REQUESTED = 2;
+    private static final int RUNNING = 3;
+    private static final int DONE = 4;
+
+    private static final class Slot {
+        final @NotNull AtomicInteger state = new AtomicInteger(FREE);
+        /**
+         * The index that the next command added to the command queue had when the request was made. The request can be serviced once the command queue's head has reached it. Written before
+         * the slot becomes {@link #REQUESTED}.
+         */
+        long requiredCommandIndex;
+        @Nullable Thread waiter;
+        @Nullable BooleanCall booleanCall;
+        @Nullable DoubleCall doubleCall;
+        boolean booleanResult;
+        double doubleResult;
+        @Nullable Exception failure;
+    }
+
+    private final @NotNull Slot @NotNull [] slots;
+    private final @NotNull LongSupplier commandTailIndex;
+    /**
+     * The threads that are waiting for a slot to be freed. Each release wakes up one of them.
+     */
+    private final @NotNull ConcurrentLinkedQueue<Thread> slotWaiters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param slotCount        The number of requests that can be waiting at the same time. Extra callers will wait for a slot to be freed.
+     * @param commandTailIndex Returns the index that the next command added to the main thread's command queue will have
+     */
+    public MainThreadBridge(int slotCount, @NotNull LongSupplier commandTailIndex) {
+        this.commandTailIndex = commandTailIndex;
+        slots = new Slot[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    /**
+     * Runs a call on the main thread and waits for the result.
+     *
+     * @throws ExecutionException   If the call threw an exception
+     * @throws InterruptedException If the calling thread was interrupted while waiting. (The call may or may not have been run.)
+     */
+    public boolean callBoolean(@NotNull BooleanCall call) throws ExecutionException, InterruptedException {
+        Slot slot = claimSlot();
+        slot.booleanCall = call;
+        await(slot);
+        boolean result = slot.booleanResult;
+        release(slot);
+        return result;
+    }
+
+    /**
+     * Runs a call on the main thread and waits for the result.
+     *
+     * @throws ExecutionException   If the call threw an exception
+     * @throws InterruptedException If the calling thread was interrupted while waiting. (The call may or may not have been run.)
+     */
+    public double callDouble(@NotNull DoubleCall call) throws ExecutionException, InterruptedException {
+        Slot slot = claimSlot();
+        slot.doubleCall = call;
+        await(slot);
+        double result = slot.doubleResult;
+        release(slot);
+        return result;
+    }
+
+    /**
+     * @return The number of requests that are waiting to be serviced
+     */
+    @VisibleForTesting
+    int getWaitingRequestCount() {
+        int count = 0;
+        for (Slot slot : slots) {
+            if (slot.state.get() == REQUESTED) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Runs the calls of the waiting requests whose commands have all been run, and wakes up their callers. Must only be called from the main thread.
+     *
+     * @param commandHeadIndex The index of the next command that will be removed from the command queue
+     */
+    public void serviceRequests(long commandHeadIndex) {
+        for (Slot slot : slots) {
+            if (slot.state.get() != REQUESTED || slot.requiredCommandIndex > commandHeadIndex || !slot.state.compareAndSet(REQUESTED, RUNNING)) {
+                continue;
+            }
+
+            try {
+                if (slot.booleanCall != null) {
+                    slot.booleanResult = slot.booleanCall.call();
+                } else if (slot.doubleCall != null) {
+                    slot.doubleResult = slot.doubleCall.call();
+                }
+            } catch (Exception e) {
+                slot.failure = e;
+            }
+            Thread waiter = slot.waiter;
+            slot.state.set(DONE);
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    private @NotNull Slot claimSlot() throws InterruptedException {
+        Slot slot = tryClaimSlot();
+        if (slot != null) {
+            return slot;
+        }
+
+        // All the slots are in use
+        Thread currentThread = Thread.currentThread();
+        while (true) {
+            slotWaiters.add(currentThread);
+            slot = tryClaimSlot(); // A slot may have been released before we were added
+            if (slot == null) {
+                LockSupport.park(this);
+                slot = tryClaimSlot();
+            }
+            slotWaiters.remove(currentThread);
+
+            if (slot != null) {
+                return slot;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    private @Nullable Slot tryClaimSlot() {
+        for (Slot slot : slots) {
+            if (slot.state.get() == FREE && slot.state.compareAndSet(FREE, CLAIMED)) {
+                slot.waiter = Thread.currentThread();
+                return slot;
+            }
+        }
+        return null;
+    }
+
+    private void await(@NotNull Slot slot) throws ExecutionException, InterruptedException {
+        slot.requiredCommandIndex = commandTailIndex.getAsLong();
+        slot.state.set(REQUESTED);
+
+        while (slot.state.get() != DONE) {
+            LockSupport.park(this);
+            if (Thread.interrupted()) {
+                if (slot.state.compareAndSet(REQUESTED, CLAIMED)) {
+                    release(slot); // The main thread hasn't started the call, so it won't run
+                } else {
+                    // The main thread is already running the call, and will be using the slot until it's done. It wakes us up when it is.
+                    while (slot.state.get() != DONE) {
+                        LockSupport.park(this);
+                        Thread.interrupted(); // We're already going to throw, so don't let another interrupt stop us from parking
+                    }
+                    release(slot);
+                }
+                throw new InterruptedException();
+            }
+        }
+
+        if (slot.failure != null) {
+            Exception failure = slot.failure;
+            release(slot);
+            throw new ExecutionException(failure);
+        }
+    }
+
+    private void release(@NotNull Slot slot) {
+        clear(slot);
+        slot.state.set(FREE);
+        Thread slotWaiter = slotWaiters.poll();
+        if (slotWaiter != null) {
+            LockSupport.unpark(slotWaiter);
+        }
+    }
+
+    private static void clear(@NotNull Slot slot) {
+        slot.waiter = null;
+        slot.booleanCall = null;
+        slot.doubleCall = null;
+        slot.failure = null;
+    }
+}
@@ -0,0 +1,118 @@
+package com.dacubeking.AutoBuilder.robot.robotinterface;
+
+import com.google.common.base.Preconditions;
+import org.jetbrains.annotations.ApiStatus.Internal;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Paces a polling loop at a fixed period. The deadlines are absolute ({@code start + n * period}, from {@link System#nanoTime()}) so that time spent in the loop body and late wake-ups don't
+ * accumulate into drift, and the loop waits with {@link LockSupport#parkNanos(Object, long)} instead of {@link Thread#sleep(long)}, which can only wait for whole milliseconds.
+ * <p>
+ * How late every wake-up is compared to its deadline is recorded in a histogram that is shared by all the loops. See {@link #getWakeUpJitterHistogram()}.
+ */
+@Internal
+public final class PeriodicScheduler {
+
+    /**
+     * Bucket {@code i} counts the wake-ups that were between {@code 2^(i-1)} and {@code 2^i} microseconds late. (Bucket 0 counts the ones that were less than 1 microsecond late.) The last bucket
+     * also counts everything later than that.
+     */
+    private static final int JITTER_BUCKETS = 21;
+    private static final @NotNull AtomicLongArray jitterHistogram = new AtomicLongArray(JITTER_BUCKETS);
+    private static final @NotNull AtomicLong maxJitterNanos = new AtomicLong(0);
+    private static final @NotNull AtomicLong missedDeadlines = new AtomicLong(0);
+
+    private final long periodNanos;
+    private long nextDeadline;
+
+    /**
+     * Creates a scheduler whose first deadline is one period from now.
+     *
+     * @param periodSeconds The period of the loop in seconds
+     */
+    public PeriodicScheduler(double periodSeconds) {
+        Preconditions.checkArgument(periodSeconds > 0, "The period must be positive");
+        this.periodNanos = (long) (periodSeconds * 1e9);
+        this.nextDeadline = System.nanoTime() + periodNanos;
+    }
+
+    /**
+     * Waits until the next deadline. If the loop has fallen more than a whole period behind, the deadlines that were missed are skipped instead of being run back to back.
+     *
+     * @throws InterruptedException If the thread is interrupted while waiting (or was already interrupted)
+     */
+    public void waitForNextPeriod() throws InterruptedException {
+        long now = System.nanoTime();
+        while (now - nextDeadline < 0) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            LockSupport.parkNanos(this, nextDeadline - now);
+            now = System.nanoTime();
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+
+        recordJitter(now - nextDeadline);
+
+        nextDeadline += periodNanos;
+        if (now - nextDeadline >= 0) {
+            long missed = (now - nextDeadline) / periodNanos + 1;
+            missedDeadlines.addAndGet(missed);
+            nextDeadline += missed * periodNanos;
+        }
+    }
+
+    private static void recordJitter(long jitterNanos) {
+        long jitterMicros = jitterNanos / 1000;
+        int bucket = Math.min(64 - Long.numberOfLeadingZeros(jitterMicros), JITTER_BUCKETS - 1);
+        jitterHistogram.incrementAndGet(bucket);
+        maxJitterNanos.accumulateAndGet(jitterNanos, Math::max);
+    }
+
+    /**
+     * Returns how many wake-ups of the autonomous loops were late by each amount. Element {@code i} is the number of wake-ups that were between {@code 2^(i-1)} and {@code 2^i} microseconds late.
+     * (Element 0 is the number that were less than 1 microsecond late, and the last element includes all the later wake-ups.)
+     */
+    @SuppressWarnings("unused")
+    public static long @NotNull [] getWakeUpJitterHistogram() {
+        long[] histogram = new long[JITTER_BUCKETS];
+        for (int i = 0; i < JITTER_BUCKETS; i++) {
+            histogram[i] = jitterHistogram.get(i);
+        }
+        return histogram;
+    }
+
+    /**
+     * @return The latest any autonomous loop has woken up after its deadline, in seconds
+     */
+    @SuppressWarnings("unused")
+    public static double getMaxWakeUpJitter() {
+        return maxJitterNanos.get() / 1e9;
+    }
+
+    /**
+     * @return The number of periods that were skipped because a loop fell more than a period behind
+     */
+    @SuppressWarnings("unused")
+    public static long getMissedDeadlineCount() {
+        return missedDeadlines.get();
+    }
+
+    /**
+     * Clears the wake-up jitter histogram and the other statistics
+     */
+    @SuppressWarnings("unused")
+    public static void resetStatistics() {
+        for (int i = 0; i < JITTER_BUCKETS; i++) {
+            jitterHistogram.set(i, 0);
+        }
+        maxJitterNanos.set(0);
+        missedDeadlines.set(0);
+    }
+}
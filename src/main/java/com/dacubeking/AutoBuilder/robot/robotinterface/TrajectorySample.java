@@ -0,0 +1,84 @@
+package com.dacubeking.AutoBuilder.robot.robotinterface;
+
+/**
+ * The state of a trajectory at a point in time, written by {@link TrajectorySampleTable#sample(double, TrajectorySample)}. Unlike {@link edu.wpi.first.math.trajectory.Trajectory.State}, it's
+ * meant to be reused for every sample (ex: keep one in your drive class), so that sampling the trajectory doesn't allocate.
+ */
+public final class TrajectorySample {
+    double time;
+    double velocity;
+    double acceleration;
+    double x;
+    double y;
+    double heading;
+    double curvature;
+
+    /**
+     * @return The time since the start of the trajectory in seconds
+     */
+    @SuppressWarnings("unused")
+    public double getTime() {
+        return time;
+    }
+
+    /**
+     * @return The velocity in meters per second
+     */
+    @SuppressWarnings("unused")
+    public double getVelocity() {
+        return velocity;
+    }
+
+    /**
+     * @return The acceleration in meters per second squared
+     */
+    @SuppressWarnings("unused")
+    public double getAcceleration() {
+        return acceleration;
+    }
+
+    /**
+     * @return The x position in meters
+     */
+    @SuppressWarnings("unused")
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * @return The y position in meters
+     */
+    @SuppressWarnings("unused")
+    public double getY() {
+        return y;
+    }
+
+    /**
+     * @return The heading of the path (the direction that the robot is moving in) in radians
+     */
+    @SuppressWarnings("unused")
+    public double getHeading() {
+        return heading;
+    }
+
+    /**
+     * @return The curvature in radians per meter
+     */
+    @SuppressWarnings("unused")
+    public double getCurvature() {
+        return curvature;
+    }
+
+    @Override
+    public String toString() {
+        return "TrajectorySample{" +
+                "time=" + time +
+                ", velocity=" + velocity +
+                ", acceleration=" + acceleration +
+                ", x=" + x +
+                ", y=" + y +
+                ", heading=" + heading +
+                ", curvature=" + curvature +
+                '}';
+    }
+}
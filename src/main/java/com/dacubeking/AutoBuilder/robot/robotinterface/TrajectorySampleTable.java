@@ -0,0 +1,129 @@
+package com.dacubeking.AutoBuilder.robot.robotinterface;
+
+import com.google.common.base.Preconditions;
+import edu.wpi.first.math.trajectory.Trajectory;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A trajectory sampled at a fixed interval, stored in flat arrays. Sampling it finds the two samples around a time by dividing by the interval instead of searching, and writes the result into a
+ * {@link TrajectorySample} that is reused, so (unlike {@link Trajectory#sample(double)}) it takes constant time and doesn't allocate.
+ * <p>
+ * The tables for the trajectories of an auto are created when the auto is loaded. The table of the trajectory that is being driven can be sampled through
+ * {@link CommandTranslator#sampleTrajectory(double, TrajectorySample)}.
+ */
+public final class TrajectorySampleTable {
+    /**
+     * The interval between the samples in seconds. Between the samples, the values are interpolated linearly.
+     */
+    public static final double DEFAULT_SAMPLE_INTERVAL = 0.005;
+
+    private final @NotNull Trajectory trajectory;
+    private final double interval;
+    private final double totalTime;
+    private final double @NotNull [] velocity;
+    private final double @NotNull [] acceleration;
+    private final double @NotNull [] x;
+    private final double @NotNull [] y;
+    private final double @NotNull [] heading;
+    private final double @NotNull [] curvature;
+
+    /**
+     * Samples a trajectory. The last sample is at the end of the trajectory, so it's less than an interval after the one before it.
+     *
+     * @param trajectory The trajectory to sample
+     * @param interval   The interval between the samples in seconds
+     */
+    public TrajectorySampleTable(@NotNull Trajectory trajectory, double interval) {
+        Preconditions.checkArgument(interval > 0, "The interval must be positive");
+        this.trajectory = trajectory;
+        this.interval = interval;
+        this.totalTime = trajectory.getTotalTimeSeconds();
+
+        int size = (int) Math.ceil(totalTime / interval) + 1;
+        velocity = new double[size];
+        acceleration = new double[size];
+        x = new double[size];
+        y = new double[size];
+        heading = new double[size];
+        curvature = new double[size];
+        for (int i = 0; i < size; i++) {
+            Trajectory.State state = trajectory.sample(Math.min(i * interval, totalTime));
+            velocity[i] = state.velocityMetersPerSecond;
+            acceleration[i] = state.accelerationMetersPerSecondSq;
+            x[i] = state.poseMeters.getX();
+            y[i] = state.poseMeters.getY();
+            heading[i] = state.poseMeters.getRotation().getRadians();
+            curvature[i] = state.curvatureRadPerMeter;
+        }
+    }
+
+    public TrajectorySampleTable(@NotNull Trajectory trajectory) {
+        this(trajectory, DEFAULT_SAMPLE_INTERVAL);
+    }
+
+    /**
+     * Samples the trajectory at a time. Times before the start or after the end of the trajectory are sampled at the start or end.
+     *
+     * @param time   The time since the start of the trajectory in seconds
+     * @param sample The sample to write the result into
+     * @return The sample that was passed in
+     */
+    public @NotNull TrajectorySample sample(double time, @NotNull TrajectorySample sample) {
+        time = Math.min(Math.max(time, 0), totalTime);
+        int index = (int) (time / interval);
+        if (index >= x.length - 1) {
+            index = x.length - 1;
+        }
+
+        sample.time = time;
+        if (index == x.length - 1) {
+            sample.velocity = velocity[index];
+            sample.acceleration = acceleration[index];
+            sample.x = x[index];
+            sample.y = y[index];
+            sample.heading = heading[index];
+            sample.curvature = curvature[index];
+            return sample;
+        }
+
+        double sampleTime = index * interval;
+        double nextSampleTime = Math.min(sampleTime + interval, totalTime);
+        double fraction = nextSampleTime > sampleTime ? (time - sampleTime) / (nextSampleTime - sampleTime) : 0;
+        sample.velocity = interpolate(velocity, index, fraction);
+        sample.acceleration = interpolate(acceleration, index, fraction);
+        sample.x = interpolate(x, index, fraction);
+        sample.y = interpolate(y, index, fraction);
+        sample.heading = heading[index] + Math.IEEEremainder(heading[index + 1] - heading[index], 2 * Math.PI) * fraction; // Turn the shorter way
+        sample.curvature = interpolate(curvature, index, fraction);
+        return sample;
+    }
+
+    private static double interpolate(double @NotNull [] values, int index, double fraction) {
+        return values[index] + (values[index + 1] - values[index]) * fraction;
+    }
+
+    /**
+     * @return The trajectory that was sampled
+     */
+    public @NotNull Trajectory getTrajectory() {
+        return trajectory;
+    }
+
+    @SuppressWarnings("unused")
+    public double getTotalTime() {
+        return totalTime;
+    }
+
+    @SuppressWarnings("unused")
+    public double getInterval() {
+        return interval;
+    }
+
+    /**
+     * @return The number of samples in the table
+     */
+    @SuppressWarnings("unused")
+    public int size() {
+        return x.length;
+    }
+}
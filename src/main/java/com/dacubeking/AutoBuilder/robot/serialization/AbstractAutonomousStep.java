@@ -1,15 +1,14 @@
 package com.dacubeking.AutoBuilder.robot.serialization;
 
 import com.dacubeking.AutoBuilder.robot.serialization.command.CommandExecutionFailedException;
-import com.dacubeking.AutoBuilder.robot.serialization.command.SendableScript;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonSubTypes.Type;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import org.jetbrains.annotations.ApiStatus.Internal;
+import org.jetbrains.annotations.NotNull;
 
-import java.util.List;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -17,6 +16,7 @@ import java.util.concurrent.ExecutionException;
  *
  * @see TrajectoryAutonomousStep
  * @see ScriptAutonomousStep
+ * @see ParallelAutonomousStep
  */
 @JsonTypeInfo(use = JsonTypeInfo.Id.NAME,
         include = JsonTypeInfo.As.PROPERTY,
@@ -24,6 +24,7 @@ import java.util.concurrent.ExecutionException;
 @JsonSubTypes({
         @Type(value = TrajectoryAutonomousStep.class, name = "trajectory"),
         @Type(value = ScriptAutonomousStep.class, name = "script"),
+        @Type(value = ParallelAutonomousStep.class, name = "parallel"),
 })
 @JsonIgnoreProperties(ignoreUnknown = true)
 @Internal
@@ -34,14 +35,16 @@ public abstract class AbstractAutonomousStep {
     }
 
     /**
-     * Execute this autonomous step.
+     * Execute this autonomous step. (Scripts that are delayed by a time or percent are run by the next trajectory step, see {@link ScriptTimeline}.)
      *
-     * @param scriptsToExecuteByTime    A mutable arraylist representing scripts to run while driving the autonomous path.
-     * @param scriptsToExecuteByPercent A mutable arraylist representing scripts to run while driving the autonomous path.
      * @throws InterruptedException            Thrown if the thread is interrupted (ex: auto is killed).
      * @throws CommandExecutionFailedException Thrown if a script fails to execute.
      * @throws ExecutionException              Thrown if something goes wrong running a command on the main thread.
      */
-    public abstract void execute(List<SendableScript> scriptsToExecuteByTime,
-                                 List<SendableScript> scriptsToExecuteByPercent) throws InterruptedException, CommandExecutionFailedException, ExecutionException;
+    public abstract void execute() throws InterruptedException, CommandExecutionFailedException, ExecutionException;
+
+    /**
+     * Creates a task that runs this step cooperatively on the main thread. The task must behave the same as {@link #execute()}.
+     */
+    public abstract @NotNull AutoTask createTask();
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.dacubeking.AutoBuilder.robot.serialization;
+
+import com.dacubeking.AutoBuilder.robot.serialization.command.CommandExecutionFailedException;
+import org.jetbrains.annotations.ApiStatus.Internal;
+
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A part of an auto that is run cooperatively: instead of blocking a thread until it's done, it's advanced a little every time {@link #tick(long)} is called (from the main thread's periodic).
+ * Each task keeps track of where it is, so that it can carry on where it left off on the next tick.
+ */
+@Internal
+public interface AutoTask {
+    /**
+     * Advances the task as far as it can go without waiting. Must be called from the main thread.
+     *
+     * @param nowNanos The current time, from {@link System#nanoTime()}
+     * @return true once the task has finished
+     * @throws CommandExecutionFailedException If a command fails to execute
+     * @throws ExecutionException              If something goes wrong getting the state of the robot
+     */
+    boolean tick(long nowNanos) throws CommandExecutionFailedException, ExecutionException;
+
+    /**
+     * A task that has nothing to do
+     */
+    AutoTask FINISHED = nowNanos -> true;
+}
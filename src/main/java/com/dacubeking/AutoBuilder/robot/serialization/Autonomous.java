@@ -1,11 +1,13 @@
 package com.dacubeking.AutoBuilder.robot.serialization;
 
+import com.dacubeking.AutoBuilder.robot.serialization.command.SendableScript;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.jetbrains.annotations.ApiStatus.Internal;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
 import java.util.List;
 
 
@@ -17,6 +19,32 @@ public class Autonomous {
     @JsonCreator
     public Autonomous(@JsonProperty(required = true, value = "autonomousSteps") List<AbstractAutonomousStep> autonomousSteps) {
         this.autonomousSteps = autonomousSteps;
+        compileScriptTimelines(autonomousSteps);
+    }
+
+    /**
+     * Attaches the delayed scripts to the trajectory that they run during. (A delayed script runs during the next trajectory in the auto, or in its parallel group if it's in one.)
+     */
+    private static void compileScriptTimelines(@NotNull List<AbstractAutonomousStep> autonomousSteps) {
+        List<SendableScript> scriptsByTime = new ArrayList<>();
+        List<SendableScript> scriptsByPercent = new ArrayList<>();
+        for (AbstractAutonomousStep autonomousStep : autonomousSteps) {
+            if (autonomousStep instanceof ScriptAutonomousStep) {
+                SendableScript script = ((ScriptAutonomousStep) autonomousStep).getSendableScript();
+                if (script.getDelayType() == SendableScript.DelayType.TIME) {
+                    scriptsByTime.add(script);
+                } else if (script.getDelayType() == SendableScript.DelayType.PERCENT) {
+                    scriptsByPercent.add(script);
+                }
+            } else if (autonomousStep instanceof TrajectoryAutonomousStep) {
+                TrajectoryAutonomousStep trajectoryStep = (TrajectoryAutonomousStep) autonomousStep;
+                trajectoryStep.setScriptTimeline(ScriptTimeline.compile(scriptsByTime, scriptsByPercent, trajectoryStep.getTrajectory().getTotalTimeSeconds()));
+                scriptsByTime.clear();
+                scriptsByPercent.clear();
+            } else if (autonomousStep instanceof ParallelAutonomousStep) {
+                compileScriptTimelines(((ParallelAutonomousStep) autonomousStep).getSteps());
+            }
+        }
     }
 
     @JsonProperty
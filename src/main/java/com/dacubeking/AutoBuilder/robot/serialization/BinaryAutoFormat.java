@@ -0,0 +1,260 @@
+package com.dacubeking.AutoBuilder.robot.serialization;
+
+import com.dacubeking.AutoBuilder.robot.serialization.command.SendableScript;
+import com.fasterxml.jackson.databind.JsonNode;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.math.trajectory.Trajectory.State;
+import org.jetbrains.annotations.ApiStatus.Internal;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A compact, precompiled binary representation of an {@link Autonomous}.
+ * <p>
+ * Trajectory states and rotations are stored as flat arrays of doubles so that they can be read straight out of a memory mapped file without going through Jackson. Everything is big endian.
+ * <pre>
+ * int    magic ("ABAU")
+ * short  version
+ * int    step count
+ * step:
+ *   byte type (0 = trajectory, 1 = script, 2 = parallel)
+ *   trajectory:
+ *     int n, double[n] time, velocity, acceleration, x, y, heading (radians), curvature
+ *     int m, double[m] rotation time, rotation (radians)
+ *   script: see {@link SendableScript#writeBinary(JsonNode, DataOutputStream)}
+ *   parallel:
+ *     byte join type (0 = all, 1 = race)
+ *     int step count, step[step count]
+ * string: int byte length, UTF-8 bytes (length -1 for null)
+ * </pre>
+ */
+@Internal
+public final class BinaryAutoFormat {
+
+    public static final @NotNull String FILE_EXTENSION = ".autobin";
+
+    private static final int MAGIC = 0x41424155; // "ABAU"
+    /**
+     * The version of the format. Increment this whenever the layout changes.
+     */
+    public static final short VERSION = 3;
+
+    private static final byte TRAJECTORY_STEP = 0;
+    private static final byte SCRIPT_STEP = 1;
+    private static final byte PARALLEL_STEP = 2;
+
+    private BinaryAutoFormat() {
+    }
+
+    /**
+     * Writes an auto in the binary format. The auto is read from the Jackson tree of an existing json or message pack auto, so no robot code needs to be loaded to convert an auto.
+     *
+     * @param autonomous The root node of the existing auto
+     * @param out        The stream to write to
+     * @throws IOException If the tree isn't a valid auto or writing fails
+     */
+    public static void write(@NotNull JsonNode autonomous, @NotNull DataOutputStream out) throws IOException {
+        JsonNode steps = autonomous.get("autonomousSteps");
+        if (steps == null || !steps.isArray()) {
+            throw new IOException("Missing autonomousSteps");
+        }
+
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        writeSteps(steps, out);
+    }
+
+    private static void writeSteps(@NotNull JsonNode steps, @NotNull DataOutputStream out) throws IOException {
+        out.writeInt(steps.size());
+        for (JsonNode step : steps) {
+            String type = step.path("type").asText();
+            switch (type) {
+                case "trajectory" -> {
+                    out.writeByte(TRAJECTORY_STEP);
+                    writeTrajectory(step, out);
+                }
+                case "script" -> {
+                    out.writeByte(SCRIPT_STEP);
+                    SendableScript.writeBinary(step.path("sendableScript"), out);
+                }
+                case "parallel" -> {
+                    out.writeByte(PARALLEL_STEP);
+                    writeParallel(step, out);
+                }
+                default -> throw new IOException("Unknown autonomous step type: " + type);
+            }
+        }
+    }
+
+    private static void writeParallel(@NotNull JsonNode step, @NotNull DataOutputStream out) throws IOException {
+        JsonNode steps = step.path("steps");
+        if (!steps.isArray()) {
+            throw new IOException("Missing steps of parallel step");
+        }
+        String joinType = step.path("joinType").asText(ParallelAutonomousStep.JoinType.ALL.name());
+        try {
+            out.writeByte(ParallelAutonomousStep.JoinType.valueOf(joinType).ordinal());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown join type: " + joinType, e);
+        }
+        writeSteps(steps, out);
+    }
+
+    private static void writeTrajectory(@NotNull JsonNode step, @NotNull DataOutputStream out) throws IOException {
+        JsonNode states = step.path("states");
+        int n = states.size();
+        double[][] columns = new double[7][n];
+        for (int i = 0; i < n; i++) {
+            JsonNode state = states.get(i);
+            JsonNode pose = state.path("pose");
+            columns[0][i] = state.path("time").asDouble();
+            columns[1][i] = state.path("velocity").asDouble();
+            columns[2][i] = state.path("acceleration").asDouble();
+            columns[3][i] = pose.path("translation").path("x").asDouble();
+            columns[4][i] = pose.path("translation").path("y").asDouble();
+            columns[5][i] = pose.path("rotation").path("radians").asDouble();
+            columns[6][i] = state.path("curvature").asDouble();
+        }
+        out.writeInt(n);
+        for (double[] column : columns) {
+            writeDoubles(column, out);
+        }
+
+        JsonNode rotations = step.path("rotations");
+        int m = rotations.size();
+        double[] times = new double[m];
+        double[] radians = new double[m];
+        for (int i = 0; i < m; i++) {
+            times[i] = rotations.get(i).path("time").asDouble();
+            radians[i] = rotations.get(i).path("rotation").path("radians").asDouble();
+        }
+        out.writeInt(m);
+        writeDoubles(times, out);
+        writeDoubles(radians, out);
+    }
+
+    /**
+     * Reads an auto that was written with {@link #write(JsonNode, DataOutputStream)}.
+     *
+     * @param buffer The buffer to read from (usually a memory mapped file). The position of the buffer will be advanced.
+     * @return The deserialized auto
+     * @throws IOException If the buffer doesn't contain a valid auto
+     */
+    public static @NotNull Autonomous read(@NotNull ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a binary auto file");
+            }
+            short version = buffer.getShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported binary auto version: " + version);
+            }
+
+            return new Autonomous(readSteps(buffer));
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Binary auto file is truncated", e);
+        }
+    }
+
+    private static @NotNull List<AbstractAutonomousStep> readSteps(@NotNull ByteBuffer buffer) throws IOException {
+        int stepCount = buffer.getInt();
+        if (stepCount < 0 || stepCount > buffer.remaining()) {
+            throw new BufferUnderflowException(); // Every step takes at least a byte
+        }
+        List<AbstractAutonomousStep> steps = new ArrayList<>(stepCount);
+        for (int i = 0; i < stepCount; i++) {
+            byte type = buffer.get();
+            switch (type) {
+                case TRAJECTORY_STEP -> steps.add(readTrajectory(buffer));
+                case SCRIPT_STEP -> steps.add(new ScriptAutonomousStep(SendableScript.readBinary(buffer)));
+                case PARALLEL_STEP -> steps.add(readParallel(buffer));
+                default -> throw new IOException("Unknown autonomous step type: " + type);
+            }
+        }
+        return steps;
+    }
+
+    private static @NotNull ParallelAutonomousStep readParallel(@NotNull ByteBuffer buffer) throws IOException {
+        byte joinType = buffer.get();
+        ParallelAutonomousStep.JoinType[] joinTypes = ParallelAutonomousStep.JoinType.values();
+        if (joinType < 0 || joinType >= joinTypes.length) {
+            throw new IOException("Unknown join type: " + joinType);
+        }
+        return new ParallelAutonomousStep(joinTypes[joinType], readSteps(buffer));
+    }
+
+    private static @NotNull TrajectoryAutonomousStep readTrajectory(@NotNull ByteBuffer buffer) {
+        int n = buffer.getInt();
+        double[] time = readDoubles(buffer, n);
+        double[] velocity = readDoubles(buffer, n);
+        double[] acceleration = readDoubles(buffer, n);
+        double[] x = readDoubles(buffer, n);
+        double[] y = readDoubles(buffer, n);
+        double[] heading = readDoubles(buffer, n);
+        double[] curvature = readDoubles(buffer, n);
+
+        List<State> states = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            states.add(new State(time[i], velocity[i], acceleration[i], new Pose2d(x[i], y[i], new Rotation2d(heading[i])), curvature[i]));
+        }
+
+        int m = buffer.getInt();
+        double[] rotationTimes = readDoubles(buffer, m);
+        double[] rotationRadians = readDoubles(buffer, m);
+        List<TimedRotation> rotations = new ArrayList<>(m);
+        for (int i = 0; i < m; i++) {
+            rotations.add(new TimedRotation(rotationTimes[i], new Rotation2d(rotationRadians[i])));
+        }
+
+        return new TrajectoryAutonomousStep(new Trajectory(states), rotations);
+    }
+
+    private static void writeDoubles(double @NotNull [] values, @NotNull DataOutputStream out) throws IOException {
+        for (double value : values) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static double @NotNull [] readDoubles(@NotNull ByteBuffer buffer, int length) {
+        if (length < 0 || length > buffer.remaining() / Double.BYTES) {
+            throw new BufferUnderflowException(); // Don't try to allocate a huge array for a corrupt length
+        }
+        double[] values = new double[length];
+        buffer.asDoubleBuffer().get(values); // Bulk copy; the view shares the byte order of the buffer
+        buffer.position(buffer.position() + length * Double.BYTES);
+        return values;
+    }
+
+    public static void writeString(@Nullable String string, @NotNull DataOutputStream out) throws IOException {
+        if (string == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static @Nullable String readString(@NotNull ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,16 @@
+package com.dacubeking.AutoBuilder.robot.serialization;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Thrown when a deserialization is abandoned because it was cancelled. This is a {@link JsonMappingException} so that Jackson passes it through (adding to its path) instead of wrapping it.
+ *
+ * @see Serializer#deserializeAuto(byte[], boolean, BooleanSupplier)
+ */
+public class DeserializationCancelledException extends JsonMappingException {
+    public DeserializationCancelledException() {
+        super(null, "Deserialization was cancelled");
+    }
+}
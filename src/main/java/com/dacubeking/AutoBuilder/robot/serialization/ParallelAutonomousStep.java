@@ -0,0 +1,186 @@
+package com.dacubeking.AutoBuilder.robot.serialization;
+
+import com.dacubeking.AutoBuilder.robot.serialization.command.CommandExecutionFailedException;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.jetbrains.annotations.ApiStatus.Internal;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.dacubeking.AutoBuilder.robot.robotinterface.AutonomousContainer.getCommandTranslator;
+
+/**
+ * A group of steps that run at the same time. Depending on the {@link JoinType}, the group ends when all the steps have finished or as soon as one of them has.
+ * <p>
+ * The steps share the interruption of the group: if the auto is killed, a step fails, or the race is won, the steps that are still running are interrupted, and the group
+ * doesn't end until they've stopped. At most one of the steps should drive
+ * the robot. Delayed scripts in the group run during the next trajectory in the group (see {@link ScriptTimeline}).
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Internal
+public class ParallelAutonomousStep extends AbstractAutonomousStep {
+
+    public enum JoinType {
+        /**
+         * The group ends when all the steps have finished
+         */
+        ALL,
+        /**
+         * The group ends as soon as any of the steps has finished. The others are interrupted.
+         */
+        RACE
+    }
+
+    private static final @NotNull AtomicInteger stepThreadCount = new AtomicInteger(0);
+    /**
+     * Runs the steps of every parallel group. It isn't bounded, so nested groups can't run out of threads while they wait for their steps. Idle threads are kept for a minute, so the threads are
+     * usually already started when a group begins.
+     */
+    private static final @NotNull ExecutorService stepExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "AutoBuilder Parallel Step " + stepThreadCount.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final @NotNull JoinType joinType;
+    private final @NotNull List<AbstractAutonomousStep> steps;
+
+    @JsonCreator
+    ParallelAutonomousStep(@JsonProperty(value = "joinType") JoinType joinType,
+                           @JsonProperty(required = true, value = "steps") @NotNull List<AbstractAutonomousStep> steps) {
+        this.joinType = joinType == null ? JoinType.ALL : joinType;
+        this.steps = steps;
+    }
+
+    @JsonProperty
+    public @NotNull JoinType getJoinType() {
+        return joinType;
+    }
+
+    @JsonProperty
+    public @NotNull List<AbstractAutonomousStep> getSteps() {
+        return steps;
+    }
+
+    /**
+     * Runs the steps on their own threads and waits for the group to end. The steps that are still running when the group ends are interrupted, and this waits for them to stop before it
+     * returns.
+     *
+     * @throws InterruptedException            If the thread is interrupted (ex: the auto is killed). The steps are interrupted too.
+     * @throws CommandExecutionFailedException If one of the steps fails to execute. The other steps are interrupted.
+     * @throws ExecutionException              If something goes wrong running a command on the main thread in one of the steps.
+     */
+    @Override
+    public void execute() throws InterruptedException, CommandExecutionFailedException, ExecutionException {
+        if (steps.isEmpty()) {
+            return;
+        }
+
+        TaskGroup<AbstractAutonomousStep> runningSteps = new TaskGroup<>(stepExecutor);
+        try {
+            for (AbstractAutonomousStep step : steps) {
+                runningSteps.submit(() -> {
+                    step.execute();
+                    return step;
+                });
+            }
+
+            int stepsToWaitFor = joinType == JoinType.RACE ? 1 : steps.size();
+            for (int i = 0; i < stepsToWaitFor; i++) {
+                runningSteps.take();
+            }
+        } finally {
+            runningSteps.cancelAndJoin(); // Only the steps that haven't finished are cancelled
+            for (int i = 0; i < steps.size(); i++) {
+                if (runningSteps.wasCancelled(i) && drivesRobot(steps.get(i))) {
+                    // Don't keep following the trajectory of a step that lost the race or was cancelled because another step failed
+                    getCommandTranslator().stopRobot();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return If the step follows a trajectory
+     */
+    private static boolean drivesRobot(@NotNull AbstractAutonomousStep step) {
+        if (step instanceof TrajectoryAutonomousStep) {
+            return true;
+        }
+        if (step instanceof ParallelAutonomousStep) {
+            for (AbstractAutonomousStep childStep : ((ParallelAutonomousStep) step).steps) {
+                if (drivesRobot(childStep)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public @NotNull AutoTask createTask() {
+        return new ParallelTask();
+    }
+
+    /**
+     * Ticks the tasks of all the steps on every tick. Tasks that are dropped (because the race was won or a task failed) are never ticked again, which is the same as interrupting them.
+     */
+    private final class ParallelTask implements AutoTask {
+        /**
+         * The tasks of the steps that haven't finished. A task is set to null when it finishes.
+         */
+        private final @Nullable AutoTask @NotNull [] tasks = new AutoTask[steps.size()];
+        private int runningTasks = steps.size();
+
+        ParallelTask() {
+            for (int i = 0; i < tasks.length; i++) {
+                tasks[i] = steps.get(i).createTask();
+            }
+        }
+
+        @Override
+        public boolean tick(long nowNanos) throws CommandExecutionFailedException, ExecutionException {
+            try {
+                for (int i = 0; i < tasks.length; i++) {
+                    if (tasks[i] != null && tasks[i].tick(nowNanos)) {
+                        tasks[i] = null;
+                        runningTasks--;
+                        if (joinType == JoinType.RACE) {
+                            stopUnfinishedTrajectories();
+                            return true;
+                        }
+                    }
+                }
+            } catch (CommandExecutionFailedException | ExecutionException | RuntimeException e) {
+                stopUnfinishedTrajectories();
+                throw e;
+            }
+            return runningTasks == 0;
+        }
+
+        private void stopUnfinishedTrajectories() {
+            for (int i = 0; i < tasks.length; i++) {
+                if (tasks[i] != null && drivesRobot(steps.get(i))) {
+                    getCommandTranslator().stopRobot();
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ParallelAutonomousStep{" +
+                "joinType=" + joinType +
+                ", steps=" + steps +
+                '}';
+    }
+}
@@ -0,0 +1,102 @@
+package com.dacubeking.AutoBuilder.robot.serialization;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import org.jetbrains.annotations.ApiStatus.Internal;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * The rotations of a holonomic trajectory, stored as flat arrays of times and angles so that the rotation at a point in the trajectory can be found without walking a list of boxed
+ * {@link TimedRotation}s. The trajectory loop keeps a cursor into the profile and {@link #advance(int, double) advances} it as time passes, so every rotation that was passed since the last tick is
+ * skipped over at once instead of one per tick.
+ * <p>
+ * Profiles are compiled when a {@link TrajectoryAutonomousStep} is created.
+ */
+@Internal
+public final class RotationProfile {
+    static final @NotNull RotationProfile EMPTY = new RotationProfile(new double[0], new double[0], new Rotation2d[0]);
+
+    private final double @NotNull [] times;
+    private final double @NotNull [] radians;
+    /**
+     * The rotations, kept so that we don't have to create a new {@link Rotation2d} when the rotation changes (unless it's being interpolated)
+     */
+    private final @NotNull Rotation2d @NotNull [] rotations;
+
+    private RotationProfile(double @NotNull [] times, double @NotNull [] radians, @NotNull Rotation2d @NotNull [] rotations) {
+        this.times = times;
+        this.radians = radians;
+        this.rotations = rotations;
+    }
+
+    /**
+     * @param timedRotations The rotations of the trajectory, in the order of their times
+     */
+    static @NotNull RotationProfile compile(@NotNull List<TimedRotation> timedRotations) {
+        if (timedRotations.isEmpty()) {
+            return EMPTY;
+        }
+
+        double[] times = new double[timedRotations.size()];
+        double[] radians = new double[timedRotations.size()];
+        Rotation2d[] rotations = new Rotation2d[timedRotations.size()];
+        for (int i = 0; i < timedRotations.size(); i++) {
+            times[i] = timedRotations.get(i).time;
+            rotations[i] = timedRotations.get(i).getRotation();
+            radians[i] = rotations[i].getRadians();
+        }
+        return new RotationProfile(times, radians, rotations);
+    }
+
+    public int size() {
+        return times.length;
+    }
+
+    /**
+     * Finds the rotation that should be targeted at a time. The first rotation is targeted from the start of the trajectory, and each of the others is targeted once its time has been passed.
+     *
+     * @param cursor      The index that was returned for an earlier time (or 0)
+     * @param elapsedTime The time since the trajectory started in seconds. Must not be less than the time that the cursor was found for.
+     * @return The index of the rotation to target
+     */
+    public int advance(int cursor, double elapsedTime) {
+        while (cursor + 1 < times.length && elapsedTime > times[cursor + 1]) {
+            cursor++;
+        }
+        return cursor;
+    }
+
+    public double getTime(int index) {
+        return times[index];
+    }
+
+    public double getRadians(int index) {
+        return radians[index];
+    }
+
+    public @NotNull Rotation2d getRotation(int index) {
+        return rotations[index];
+    }
+
+    /**
+     * Interpolates between the rotation at the index and the one after it (in the shortest direction), so that the rotation is reached at the time of the next rotation instead of starting at
+     * it.
+     *
+     * @param index       The index returned by {@link #advance(int, double)} for the time
+     * @param elapsedTime The time since the trajectory started in seconds
+     * @return The interpolated rotation in radians
+     */
+    public double interpolateRadians(int index, double elapsedTime) {
+        if (index + 1 >= times.length) {
+            return radians[index];
+        }
+        double duration = times[index + 1] - times[index];
+        if (duration <= 0) {
+            return radians[index + 1];
+        }
+        double fraction = Math.min(Math.max((elapsedTime - times[index]) / duration, 0), 1);
+        double difference = Math.IEEEremainder(radians[index + 1] - radians[index], 2 * Math.PI); // Turn the shorter way
+        return radians[index] + difference * fraction;
+    }
+}
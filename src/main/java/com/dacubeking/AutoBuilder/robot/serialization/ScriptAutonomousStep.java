@@ -8,7 +8,6 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import org.jetbrains.annotations.ApiStatus.Internal;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.List;
 import java.util.concurrent.ExecutionException;
 
 
@@ -19,7 +18,7 @@ public class ScriptAutonomousStep extends AbstractAutonomousStep {
     private final SendableScript sendableScript;
 
     @JsonCreator
-    private ScriptAutonomousStep(@JsonProperty(required = true, value = "sendableScript") SendableScript sendableScript) {
+    ScriptAutonomousStep(@JsonProperty(required = true, value = "sendableScript") SendableScript sendableScript) {
         this.sendableScript = sendableScript;
     }
 
@@ -30,28 +29,35 @@ public class ScriptAutonomousStep extends AbstractAutonomousStep {
     }
 
     @JsonProperty
-    private SendableScript getSendableScript() {
+    SendableScript getSendableScript() {
         return sendableScript;
     }
 
+    /**
+     * @return If the script is delayed, in which case it's run by the next trajectory step instead (see {@link ScriptTimeline})
+     */
+    private boolean isDelayed() {
+        return sendableScript.getDelayType() == SendableScript.DelayType.TIME || sendableScript.getDelayType() == SendableScript.DelayType.PERCENT;
+    }
+
     /**
      * Runs the script
      */
     @Override
-    public void execute(@NotNull List<SendableScript> scriptsToExecuteByTime,
-                        @NotNull List<SendableScript> scriptsToExecuteByPercent)
-            throws InterruptedException, CommandExecutionFailedException, ExecutionException {
-
-        if (sendableScript.getDelayType() == SendableScript.DelayType.TIME) {
-            scriptsToExecuteByTime.add(sendableScript);
+    public void execute() throws InterruptedException, CommandExecutionFailedException, ExecutionException {
+        if (isDelayed()) {
             return;
         }
 
-        if (sendableScript.getDelayType() == SendableScript.DelayType.PERCENT) {
-            scriptsToExecuteByPercent.add(sendableScript);
-            return;
+        sendableScript.execute();
+    }
+
+    @Override
+    public @NotNull AutoTask createTask() {
+        if (isDelayed()) {
+            return AutoTask.FINISHED;
         }
 
-        sendableScript.execute();
+        return sendableScript.createTask();
     }
 }
\ No newline at end of file
@@ -0,0 +1,83 @@
+package com.dacubeking.AutoBuilder.robot.serialization;
+
+import com.dacubeking.AutoBuilder.robot.serialization.command.SendableScript;
+import org.jetbrains.annotations.ApiStatus.Internal;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The delayed scripts that run while a trajectory is being driven, merged into one list that is sorted by the time (in seconds since the trajectory started) that each script should run at.
+ * Scripts that are delayed by a percent of the trajectory are converted to a time using the trajectory's total time, so the timeline can be walked with a single cursor.
+ * <p>
+ * Timelines are compiled when an {@link Autonomous} is loaded.
+ */
+@Internal
+public final class ScriptTimeline {
+    static final @NotNull ScriptTimeline EMPTY = new ScriptTimeline(new double[0], new SendableScript[0]);
+
+    private final double @NotNull [] times;
+    private final @NotNull SendableScript @NotNull [] scripts;
+
+    private ScriptTimeline(double @NotNull [] times, @NotNull SendableScript @NotNull [] scripts) {
+        this.times = times;
+        this.scripts = scripts;
+    }
+
+    /**
+     * Merges the scripts into a timeline. Scripts with the same time are kept in the order they were given in (time based scripts first).
+     *
+     * @param scriptsByTime      The scripts that are delayed by a time in seconds
+     * @param scriptsByPercent   The scripts that are delayed by a fraction (0-1) of the trajectory
+     * @param trajectoryDuration The total time of the trajectory in seconds
+     */
+    static @NotNull ScriptTimeline compile(@NotNull List<SendableScript> scriptsByTime, @NotNull List<SendableScript> scriptsByPercent, double trajectoryDuration) {
+        if (scriptsByTime.isEmpty() && scriptsByPercent.isEmpty()) {
+            return EMPTY;
+        }
+
+        List<ScheduledScript> scheduledScripts = new ArrayList<>(scriptsByTime.size() + scriptsByPercent.size());
+        for (SendableScript script : scriptsByTime) {
+            scheduledScripts.add(new ScheduledScript(script.getDelay(), script));
+        }
+        for (SendableScript script : scriptsByPercent) {
+            scheduledScripts.add(new ScheduledScript(script.getDelay() * trajectoryDuration, script));
+        }
+        scheduledScripts.sort(Comparator.comparingDouble(scheduledScript -> scheduledScript.time)); // Stable, so ties keep their order
+
+        double[] times = new double[scheduledScripts.size()];
+        SendableScript[] scripts = new SendableScript[scheduledScripts.size()];
+        for (int i = 0; i < scheduledScripts.size(); i++) {
+            times[i] = scheduledScripts.get(i).time;
+            scripts[i] = scheduledScripts.get(i).script;
+        }
+        return new ScriptTimeline(times, scripts);
+    }
+
+    private static final class ScheduledScript {
+        final double time;
+        final @NotNull SendableScript script;
+
+        ScheduledScript(double time, @NotNull SendableScript script) {
+            this.time = time;
+            this.script = script;
+        }
+    }
+
+    public int size() {
+        return scripts.length;
+    }
+
+    /**
+     * @return The time (in seconds since the trajectory started) that the script at the index should run at
+     */
+    public double getTime(int index) {
+        return times[index];
+    }
+
+    public @NotNull SendableScript getScript(int index) {
+        return scripts[index];
+    }
+}
@@ -1,34 +1,120 @@
 package com.dacubeking.AutoBuilder.robot.serialization;
 
 import com.fasterxml.jackson.core.exc.StreamReadException;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
 import org.jetbrains.annotations.NotNull;
 import org.msgpack.jackson.dataformat.MessagePackFactory;
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
 
+/**
+ * Serializes and deserializes autos and other data sent to/from the gui.
+ * <p>
+ * The mappers are never reconfigured after they are created. All reading and writing goes through immutable {@link ObjectReader}s and {@link ObjectWriter}s that are created once (per format and
+ * type), so the serializer can be used from multiple threads at once (ex: by the parallel auto loader) and Jackson's caches are kept between calls.
+ */
 public class Serializer {
-    static @NotNull ObjectMapper jsonObjectMapper = new ObjectMapper();
-    static @NotNull ObjectMapper msgPackObjectMapper = new ObjectMapper(new MessagePackFactory());
+    /**
+     * The attribute of the deserialization context that holds the {@link BooleanSupplier} used to cancel a deserialization.
+     */
+    static final @NotNull String CANCELLATION_ATTRIBUTE = "autobuilder.cancelled";
 
+    private static final @NotNull ObjectMapper jsonObjectMapper = new ObjectMapper().registerModule(createAutoModule());
+    private static final @NotNull ObjectMapper msgPackObjectMapper = new ObjectMapper(new MessagePackFactory()).registerModule(createAutoModule());
+
+    // Created eagerly so that the deserializers for autos are already built when the first auto is loaded
+    private static final @NotNull ObjectReader jsonAutonomousReader = jsonObjectMapper.readerFor(Autonomous.class);
+    private static final @NotNull ObjectReader msgPackAutonomousReader = msgPackObjectMapper.readerFor(Autonomous.class);
+    private static final @NotNull ObjectReader jsonTreeReader = jsonObjectMapper.reader();
+    private static final @NotNull ObjectReader msgPackTreeReader = msgPackObjectMapper.reader();
+    private static final @NotNull ObjectWriter jsonWriter = jsonObjectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+    private static final @NotNull ObjectWriter prettyJsonWriter = jsonObjectMapper.writer().with(SerializationFeature.INDENT_OUTPUT);
+    private static final @NotNull ObjectWriter msgPackWriter = msgPackObjectMapper.writer();
+
+    // Readers for any other types, created the first time they are used
+    private static final @NotNull ClassValue<ObjectReader> jsonReaders = new ClassValue<>() {
+        @Override
+        protected ObjectReader computeValue(@NotNull Class<?> type) {
+            return type == Autonomous.class ? jsonAutonomousReader : jsonObjectMapper.readerFor(type);
+        }
+    };
+    private static final @NotNull ClassValue<ObjectReader> msgPackReaders = new ClassValue<>() {
+        @Override
+        protected ObjectReader computeValue(@NotNull Class<?> type) {
+            return type == Autonomous.class ? msgPackAutonomousReader : msgPackObjectMapper.readerFor(type);
+        }
+    };
+
+    /**
+     * @return A module with the streaming deserializers used for the large parts of autos
+     */
+    private static @NotNull SimpleModule createAutoModule() {
+        SimpleModule module = new SimpleModule("AutoBuilder");
+        module.addDeserializer(TrajectoryAutonomousStep.class, new TrajectoryAutonomousStepDeserializer());
+        return module;
+    }
+
+    private static @NotNull ObjectReader getReader(@NotNull Class<?> type, boolean asJson) {
+        return asJson ? jsonReaders.get(type) : msgPackReaders.get(type);
+    }
+
+    /**
+     * Serializes an object as (compact) json. Use {@link #serializeToBytes(Object, boolean)} for message pack.
+     */
+    public static String serializeToString(Object obj) throws IOException {
+        return jsonWriter.writeValueAsString(obj);
+    }
+
+    /**
+     * @param asJson Ignored. The object is always serialized as json, since message pack is a binary format that can't be stored in a string.
+     * @deprecated Use {@link #serializeToString(Object)}, or {@link #serializeToBytes(Object, boolean)} for message pack
+     */
+    @Deprecated
     public static String serializeToString(Object obj, boolean asJson) throws IOException {
-        jsonObjectMapper.configure(SerializationFeature.INDENT_OUTPUT, false);
-        return jsonObjectMapper.writeValueAsString(obj);
+        return serializeToString(obj);
+    }
+
+    /**
+     * @param asJson If true, the object is serialized as (compact) json. Otherwise, it is serialized as message pack.
+     */
+    public static byte[] serializeToBytes(Object obj, boolean asJson) throws IOException {
+        return (asJson ? jsonWriter : msgPackWriter).writeValueAsBytes(obj);
     }
 
+    /**
+     * @param asJson If true, the object is written as pretty printed json. Otherwise, it is written as message pack.
+     */
     public static void serializeToFile(Object obj, File file, boolean asJson) throws IOException {
-        jsonObjectMapper.configure(SerializationFeature.INDENT_OUTPUT, true);
-        jsonObjectMapper.writeValue(file, obj);
+        (asJson ? prettyJsonWriter : msgPackWriter).writeValue(file, obj);
     }
 
     public static Autonomous deserializeAutoFromFile(File file) throws IOException {
         try {
-            return msgPackObjectMapper.readValue(file, Autonomous.class);
+            return msgPackAutonomousReader.readValue(file);
         } catch (StreamReadException e) {
             try {
-                return jsonObjectMapper.readValue(file, Autonomous.class);
+                return jsonAutonomousReader.readValue(file);
             } catch (StreamReadException ex) {
                 e.printStackTrace();
                 throw ex;
@@ -37,18 +123,176 @@ public class Serializer {
     }
 
     public static Object deserialize(String object, Class<?> serializableObject, boolean asJson) throws IOException {
-        if (asJson) {
-            return jsonObjectMapper.readValue(object, serializableObject);
-        } else {
-            return msgPackObjectMapper.readValue(object, serializableObject);
+        return getReader(serializableObject, asJson).readValue(object);
+    }
+
+    /**
+     * @param object The serialized object. Message pack should be passed as bytes (and not converted to a string first).
+     */
+    public static Object deserialize(byte[] object, Class<?> serializableObject, boolean asJson) throws IOException {
+        return getReader(serializableObject, asJson).readValue(object);
+    }
+
+    /**
+     * Deserializes an auto, giving up as soon as it is cancelled. The cancellation is checked periodically while the trajectories are being read, which is where most of the time is spent.
+     *
+     * @param data        The serialized auto
+     * @param asJson      If the auto is serialized as json (true) or message pack (false)
+     * @param isCancelled Returns true once the deserialization should be abandoned
+     * @throws DeserializationCancelledException If the deserialization was cancelled
+     */
+    public static Autonomous deserializeAuto(byte[] data, boolean asJson, BooleanSupplier isCancelled) throws IOException {
+        ObjectReader reader = (asJson ? jsonAutonomousReader : msgPackAutonomousReader).withAttribute(CANCELLATION_ATTRIBUTE, isCancelled);
+        Autonomous autonomous = reader.readValue(data);
+        if (isCancelled.getAsBoolean()) {
+            throw new DeserializationCancelledException();
+        }
+        return autonomous;
+    }
+
+    /**
+     * Checks if the deserialization using the context has been cancelled.
+     *
+     * @throws DeserializationCancelledException If the deserialization was cancelled
+     */
+    static void checkCancelled(@NotNull DeserializationContext ctxt) throws DeserializationCancelledException {
+        Object isCancelled = ctxt.getAttribute(CANCELLATION_ATTRIBUTE);
+        if (isCancelled != null && ((BooleanSupplier) isCancelled).getAsBoolean()) {
+            throw new DeserializationCancelledException();
         }
     }
 
     public static Object deserializeFromFile(File file, Class<?> serializableObject, boolean asJson) throws IOException {
-        if (asJson) {
-            return jsonObjectMapper.readValue(file, serializableObject);
+        return getReader(serializableObject, asJson).readValue(file);
+    }
+
+    /**
+     * Reads an auto in the {@link BinaryAutoFormat}. The file is memory mapped and read directly, without going through Jackson.
+     *
+     * @param file The .autobin file to read
+     * @return The deserialized auto
+     */
+    public static Autonomous deserializeBinaryAutoFromFile(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+            return BinaryAutoFormat.read(buffer);
+        }
+    }
+
+    /**
+     * Reads the contents of an auto file into memory so that it can be deserialized later with {@link #deserializeAuto(ByteBuffer, File)}. Binary autos are memory mapped and loaded.
+     *
+     * @param file The auto file to read
+     * @return The contents of the file
+     */
+    public static ByteBuffer readAutoFile(File file) throws IOException {
+        if (file.getName().endsWith(BinaryAutoFormat.FILE_EXTENSION)) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                return channel.map(MapMode.READ_ONLY, 0, channel.size()).load();
+            }
+        } else {
+            return ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        }
+    }
+
+    /**
+     * Deserializes an auto that was read with {@link #readAutoFile(File)}.
+     *
+     * @param data The contents of the auto file
+     * @param file The file the auto was read from. (Used to determine the format of the auto)
+     * @return The deserialized auto
+     */
+    public static Autonomous deserializeAuto(ByteBuffer data, File file) throws IOException {
+        if (file.getName().endsWith(BinaryAutoFormat.FILE_EXTENSION)) {
+            return BinaryAutoFormat.read(data);
+        }
+
+        byte[] bytes;
+        int offset;
+        if (data.hasArray()) {
+            bytes = data.array();
+            offset = data.arrayOffset() + data.position();
+        } else {
+            bytes = new byte[data.remaining()];
+            data.duplicate().get(bytes);
+            offset = 0;
+        }
+        ObjectReader reader = file.getName().endsWith(".json") ? jsonAutonomousReader : msgPackAutonomousReader;
+        return reader.readValue(bytes, offset, data.remaining());
+    }
+
+    /**
+     * Converts a json (.json) or message pack (.auto) auto into the {@link BinaryAutoFormat}. This doesn't need any robot code to be loaded, so it can be run before deploying.
+     *
+     * @param source      The auto to convert
+     * @param destination The file to write the binary auto to
+     */
+    public static void convertToBinary(File source, File destination) throws IOException {
+        convertToBinary(readAutoFile(source), source, destination);
+    }
+
+    /**
+     * Converts a json (.json) or message pack (.auto) auto that was read with {@link #readAutoFile(File)} into the {@link BinaryAutoFormat}.
+     *
+     * @param data        The contents of the auto file
+     * @param source      The file the auto was read from. (Used to determine the format of the auto)
+     * @param destination The file to write the binary auto to
+     */
+    public static void convertToBinary(ByteBuffer data, File source, File destination) throws IOException {
+        ObjectReader reader = source.getName().endsWith(".json") ? jsonTreeReader : msgPackTreeReader;
+        JsonNode autonomous;
+        if (data.hasArray()) {
+            autonomous = reader.readTree(data.array(), data.arrayOffset() + data.position(), data.remaining());
         } else {
-            return msgPackObjectMapper.readValue(file, serializableObject);
+            byte[] bytes = new byte[data.remaining()];
+            data.duplicate().get(bytes);
+            autonomous = reader.readTree(bytes);
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(destination)))) {
+            BinaryAutoFormat.write(autonomous, out);
+        }
+    }
+
+    /**
+     * Converts a json (.json) or message pack (.auto) auto into the {@link BinaryAutoFormat}, saving it next to the original file with the .autobin extension.
+     *
+     * @param source The auto to convert
+     * @return The binary auto that was written
+     */
+    public static File convertToBinary(File source) throws IOException {
+        String name = source.getName();
+        int extensionIndex = name.lastIndexOf('.');
+        File destination = new File(source.getParentFile(),
+                (extensionIndex == -1 ? name : name.substring(0, extensionIndex)) + BinaryAutoFormat.FILE_EXTENSION);
+        convertToBinary(source, destination);
+        return destination;
+    }
+
+    /**
+     * Converts autos into the {@link BinaryAutoFormat} from the command line, writing each one next to the original file with the .autobin extension. Run it with
+     * {@code ./gradlew convertAutosToBinary -Pautos=<file or directory>[,<file or directory>...]} before deploying (ex: on {@code src/main/deploy/autos}).
+     *
+     * @param args The .auto and .json files to convert. Every .auto and .json file in a directory (and its subdirectories) is converted.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: Serializer <file or directory>...");
+            System.exit(1);
+        }
+
+        List<File> sources = new ArrayList<>();
+        for (String arg : args) {
+            try (Stream<Path> paths = Files.walk(Path.of(arg))) {
+                paths.filter(Files::isRegularFile)
+                        .filter(path -> path.toString().endsWith(".auto") || path.toString().endsWith(".json"))
+                        .forEach(path -> sources.add(path.toFile()));
+            }
+        }
+
+        for (File source : sources) {
+            File destination = convertToBinary(source);
+            System.out.println("Converted " + source + " to " + destination);
         }
     }
 }
@@ -0,0 +1,184 @@
+package com.dacubeking.AutoBuilder.robot.serialization;
+
+import com.dacubeking.AutoBuilder.robot.serialization.command.CommandExecutionFailedException;
+import org.jetbrains.annotations.ApiStatus.Internal;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs parts of an auto (steps, scripts or commands) on an executor, and keeps track of them so that the ones that are still running can be stopped.
+ * <p>
+ * Cancelling a {@link Future} only interrupts its thread; it doesn't wait for it to stop. {@link #cancelAndJoin()} also waits for every task that had started to return, so that nothing from
+ * the group can call a robot method or queue a command on the main thread after the group has ended (ex: after the auto has been killed and the command queue cleared).
+ *
+ * @param <T> The result of the tasks
+ */
+@Internal
+public final class TaskGroup<T> {
+
+    /**
+     * A task that can be stopped from starting, and waited for if it has started
+     */
+    private static final class TrackedTask<T> implements Callable<T> {
+        private final @NotNull Callable<T> task;
+        /**
+         * Set when the task starts, or when it's cancelled before it started (so that it won't)
+         */
+        private final @NotNull AtomicBoolean claimed = new AtomicBoolean(false);
+        private final @NotNull CountDownLatch finished = new CountDownLatch(1);
+
+        private TrackedTask(@NotNull Callable<T> task) {
+            this.task = task;
+        }
+
+        @Override
+        public T call() throws Exception {
+            if (!claimed.compareAndSet(false, true)) {
+                throw new InterruptedException("Cancelled before it started");
+            }
+            try {
+                return task.call();
+            } finally {
+                finished.countDown();
+            }
+        }
+
+        /**
+         * Waits for the task to return if it has started, and stops it from starting if it hasn't. The wait can't be interrupted, since we can't leave while the task is still running.
+         */
+        void join() {
+            if (claimed.compareAndSet(false, true)) {
+                return; // It never started, and now it won't
+            }
+
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    finished.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt(); // Keep the interrupt for our caller
+            }
+        }
+    }
+
+    private final @NotNull CompletionService<T> completionService;
+    private final @NotNull List<Future<T>> futures = new ArrayList<>();
+    private final @NotNull List<TrackedTask<T>> tasks = new ArrayList<>();
+    /**
+     * The number of tasks that have been submitted but not taken
+     */
+    private int pendingCount = 0;
+
+    public TaskGroup(@NotNull Executor executor) {
+        completionService = new ExecutorCompletionService<>(executor);
+    }
+
+    /**
+     * Submits a task to the executor.
+     *
+     * @return The index of the task (tasks are numbered in the order they're submitted)
+     */
+    public int submit(@NotNull Callable<T> task) {
+        TrackedTask<T> trackedTask = new TrackedTask<>(task);
+        tasks.add(trackedTask);
+        futures.add(completionService.submit(trackedTask));
+        pendingCount++;
+        return tasks.size() - 1;
+    }
+
+    /**
+     * @return The number of tasks that have been submitted but not returned by {@link #take()} or {@link #pollFinished()}
+     */
+    public int getPendingCount() {
+        return pendingCount;
+    }
+
+    /**
+     * Waits for the next task to finish.
+     *
+     * @return The result of the task
+     * @throws InterruptedException            If the thread is interrupted while waiting
+     * @throws CommandExecutionFailedException If the task failed to execute a command
+     * @throws ExecutionException              If the task failed for any other reason
+     */
+    public T take() throws InterruptedException, CommandExecutionFailedException, ExecutionException {
+        Future<T> finishedTask = completionService.take();
+        pendingCount--;
+        return getResult(finishedTask);
+    }
+
+    /**
+     * Takes every task that has already finished, without waiting, so that a task that failed is noticed straight away.
+     *
+     * @throws CommandExecutionFailedException If one of the tasks failed to execute a command
+     * @throws ExecutionException              If one of the tasks failed for any other reason
+     */
+    public void pollFinished() throws InterruptedException, CommandExecutionFailedException, ExecutionException {
+        Future<T> finishedTask;
+        while ((finishedTask = completionService.poll()) != null) {
+            pendingCount--;
+            getResult(finishedTask);
+        }
+    }
+
+    /**
+     * Waits for all the tasks that haven't been taken to finish.
+     *
+     * @throws CommandExecutionFailedException If one of the tasks failed to execute a command. The other tasks are still running.
+     * @throws ExecutionException              If one of the tasks failed for any other reason
+     */
+    public void awaitAll() throws InterruptedException, CommandExecutionFailedException, ExecutionException {
+        while (pendingCount > 0) {
+            take();
+        }
+    }
+
+    private static <T> T getResult(@NotNull Future<T> finishedTask) throws InterruptedException, CommandExecutionFailedException, ExecutionException {
+        try {
+            return finishedTask.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CommandExecutionFailedException) {
+                throw (CommandExecutionFailedException) e.getCause();
+            }
+            if (e.getCause() instanceof ExecutionException) {
+                throw (ExecutionException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Interrupts the tasks that haven't finished, and waits for the ones that had started to return. Tasks that hadn't started won't be run. If the calling thread is interrupted while waiting,
+     * it keeps waiting, and its interrupted flag is set when this returns.
+     */
+    public void cancelAndJoin() {
+        for (Future<T> future : futures) {
+            future.cancel(true);
+        }
+        for (TrackedTask<T> task : tasks) {
+            task.join();
+        }
+    }
+
+    /**
+     * @return If the task was still running (or hadn't started) when the group was {@link #cancelAndJoin() cancelled}
+     */
+    public boolean wasCancelled(int index) {
+        return futures.get(index).isCancelled();
+    }
+}
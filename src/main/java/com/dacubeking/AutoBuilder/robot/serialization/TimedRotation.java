@@ -27,7 +27,7 @@ public final class TimedRotation {
     }
 
     @JsonCreator
-    private TimedRotation(@JsonProperty("time") double time,
+    TimedRotation(@JsonProperty("time") double time,
                           @JsonProperty("rotation") Rotation2d rotation) {
         this.time = time;
         this.rotation = rotation;
@@ -1,17 +1,23 @@
 package com.dacubeking.AutoBuilder.robot.serialization;
 
+import com.dacubeking.AutoBuilder.robot.robotinterface.AutonomousContainer;
+import com.dacubeking.AutoBuilder.robot.robotinterface.DriveStateSnapshot;
+import com.dacubeking.AutoBuilder.robot.robotinterface.PeriodicScheduler;
+import com.dacubeking.AutoBuilder.robot.robotinterface.TrajectorySampleTable;
 import com.dacubeking.AutoBuilder.robot.serialization.command.CommandExecutionFailedException;
 import com.dacubeking.AutoBuilder.robot.serialization.command.SendableScript;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.trajectory.Trajectory;
 import edu.wpi.first.math.trajectory.Trajectory.State;
-import edu.wpi.first.wpilibj.Timer;
 import org.jetbrains.annotations.ApiStatus.Internal;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.Collections;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 
@@ -23,12 +29,27 @@ public class TrajectoryAutonomousStep extends AbstractAutonomousStep {
     public static final double PERIOD_TIME_S = 0.02;
     private final @NotNull Trajectory trajectory;
     private final @NotNull List<TimedRotation> rotations;
+    private final @NotNull RotationProfile rotationProfile;
+    /**
+     * Lets the drive code sample the trajectory without allocating. Passed to the command translator with the trajectory.
+     */
+    private final @NotNull TrajectorySampleTable sampleTable;
+    /**
+     * The delayed scripts that run during this trajectory. Set when the {@link Autonomous} is created.
+     */
+    private @NotNull ScriptTimeline scriptTimeline = ScriptTimeline.EMPTY;
 
     @JsonCreator
     private TrajectoryAutonomousStep(@JsonProperty(required = true, value = "states") @NotNull List<State> states,
                                      @JsonProperty(required = true, value = "rotations") @NotNull List<TimedRotation> rotations) {
-        this.trajectory = new Trajectory(states);
+        this(new Trajectory(states), rotations);
+    }
+
+    TrajectoryAutonomousStep(@NotNull Trajectory trajectory, @NotNull List<TimedRotation> rotations) {
+        this.trajectory = trajectory;
         this.rotations = rotations;
+        this.rotationProfile = RotationProfile.compile(rotations);
+        this.sampleTable = new TrajectorySampleTable(trajectory);
     }
 
     @NotNull
@@ -40,68 +61,232 @@ public class TrajectoryAutonomousStep extends AbstractAutonomousStep {
         return rotations;
     }
 
+    void setScriptTimeline(@NotNull ScriptTimeline scriptTimeline) {
+        this.scriptTimeline = scriptTimeline;
+    }
+
     /**
-     * Executes the trajectory
+     * Executes the trajectory, running the scripts in the {@link ScriptTimeline} as their times are reached. If {@link AutonomousContainer#setConcurrentScriptsEnabled(boolean) concurrent scripts}
+     * are enabled, the scripts are run on the script executor and this waits for all of them to finish after the trajectory is done. If this is interrupted or one of them fails, the scripts that
+     * are still running are interrupted, and this waits for them to stop before it returns.
      *
-     * @param scriptsToExecuteByTime    An arraylist of the scripts to run during this path.
-     * @param scriptsToExecuteByPercent An arraylist of the scripts to run during this path.
      * @throws InterruptedException            If the thread is interrupted (ex: the auto is killed).
      * @throws CommandExecutionFailedException If a script fails to execute.
      * @throws ExecutionException              Something goes wrong running a command on the main thread.
      */
     @Override
-    public void execute(@NotNull List<SendableScript> scriptsToExecuteByTime,
-                        @NotNull List<SendableScript> scriptsToExecuteByPercent)
+    public void execute() throws InterruptedException, CommandExecutionFailedException, ExecutionException {
+        RotationFollower rotationFollower = new RotationFollower();
+        rotationFollower.start();
+        getCommandTranslator().setNewTrajectory(trajectory, sampleTable); //Send the auto to our drive class to be executed
+
+        @Nullable TaskGroup<Void> runningScripts = AutonomousContainer.getInstance().areConcurrentScriptsEnabled()
+                ? new TaskGroup<>(AutonomousContainer.getInstance().getScriptExecutor()) : null;
+        try {
+            int scriptIndex;
+            getCommandTranslator().startDriveStateSampling();
+            try {
+                // The first sample must be taken after the new trajectory has been set
+                DriveStateSnapshot driveState = getCommandTranslator().awaitNextDriveState();
+                scriptIndex = executeTrajectory(driveState, rotationFollower, runningScripts);
+            } finally {
+                getCommandTranslator().stopDriveStateSampling();
+            }
+            getCommandTranslator().stopRobot();
+
+            if (runningScripts != null) {
+                // Wait for the scripts that were started during the trajectory before running the rest
+                runningScripts.awaitAll();
+            }
+
+            //Execute any remaining scripts
+            for (; scriptIndex < scriptTimeline.size(); scriptIndex++) {
+                scriptTimeline.getScript(scriptIndex).execute();
+            }
+        } finally {
+            if (runningScripts != null) {
+                runningScripts.cancelAndJoin();
+            }
+        }
+    }
+
+    /**
+     * @param runningScripts The scripts that are running on the script executor, or null if scripts should be run on this thread
+     * @return The index of the first script in the timeline that hasn't been run
+     */
+    private int executeTrajectory(@NotNull DriveStateSnapshot driveState, @NotNull RotationFollower rotationFollower, @Nullable TaskGroup<Void> runningScripts)
             throws InterruptedException, CommandExecutionFailedException, ExecutionException {
-        //Sort the lists to make sure they are sorted by time
-        Collections.sort(scriptsToExecuteByTime);
-        Collections.sort(scriptsToExecuteByPercent);
+        PeriodicScheduler scheduler = new PeriodicScheduler(PERIOD_TIME_S);
+        int scriptIndex = 0;
+        while (!driveState.isTrajectoryDone) { // Wait till the auto is done
+            final double elapsedTime = driveState.trajectoryElapsedTime;
+            rotationFollower.update(elapsedTime);
+
+            // Run every script that is due
+            for (; scriptIndex < scriptTimeline.size() && scriptTimeline.getTime(scriptIndex) <= elapsedTime; scriptIndex++) {
+                reportScriptLateness(scriptIndex, elapsedTime);
+                SendableScript script = scriptTimeline.getScript(scriptIndex);
+                if (runningScripts == null) {
+                    script.execute();
+                } else {
+                    runningScripts.submit(() -> {
+                        script.execute();
+                        return null;
+                    });
+                }
+            }
+
+            if (runningScripts != null) {
+                // Stop the trajectory as soon as a script fails, instead of when we join it at the end
+                runningScripts.pollFinished();
+            }
+            scheduler.waitForNextPeriod();
+            driveState = getCommandTranslator().getDriveState(); // The latest sample, without waiting for the main thread
+        }
+        return scriptIndex;
+    }
 
-        if (rotations.size() > 0) {
-            //Scripts for non-holonomic won't have any rotations (since the rotation is based on the driven path)
-            getCommandTranslator().setAutonomousRotation(rotations.get(0).rotation);
+    private void reportScriptLateness(int scriptIndex, double elapsedTime) {
+        if (AutonomousContainer.getInstance().areDebugPrintsEnabled()) {
+            AutonomousContainer.getInstance().printDebug("Running script " + scriptIndex + " of the trajectory " +
+                    (elapsedTime - scriptTimeline.getTime(scriptIndex)) + "s after it was scheduled");
         }
-        getCommandTranslator().setNewTrajectory(trajectory); //Send the auto to our drive class to be executed
+    }
+
+    @Override
+    public @NotNull AutoTask createTask() {
+        return new TrajectoryTask();
+    }
 
-        int rotationIndex = 1; // Start at the second rotation (the first is the starting rotation)
-        while (!getCommandTranslator().isTrajectoryDone()) { // Wait till the auto is done
-            double startTime = Timer.getFPGATimestamp();
-            final double elapsedTime = getCommandTranslator().getTrajectoryElapsedTime();
+    /**
+     * Does what {@link #execute()} does, one tick at a time. The drive state is sampled directly since we're on the main thread. Concurrent scripts are ticked alongside the trajectory instead of
+     * being run on the script executor.
+     */
+    private final class TrajectoryTask implements AutoTask {
+        private static final long PERIOD_TIME_NANOS = (long) (PERIOD_TIME_S * 1e9);
+
+        /**
+         * The scripts that have been started. The trajectory isn't checked while they're running (the same as in {@link #execute()}).
+         */
+        private final @NotNull ArrayDeque<AutoTask> runningScripts = new ArrayDeque<>();
+        /**
+         * The scripts that are running alongside the trajectory, if {@link AutonomousContainer#setConcurrentScriptsEnabled(boolean) concurrent scripts} are enabled
+         */
+        private final @NotNull ArrayList<AutoTask> concurrentScripts = new ArrayList<>();
+        private final boolean runScriptsConcurrently = AutonomousContainer.getInstance().areConcurrentScriptsEnabled();
+        private final @NotNull RotationFollower rotationFollower = new RotationFollower();
+        private boolean started = false;
+        private boolean trajectoryDone = false;
+        private int scriptIndex = 0;
+        private long nextPollTime;
 
-            if (rotationIndex < rotations.size() && elapsedTime > rotations.get(rotationIndex).time) {
-                // We've passed the time for the next rotation
-                getCommandTranslator().setAutonomousRotation(rotations.get(rotationIndex).rotation); //Set the rotation
-                rotationIndex++; // Increment the rotation index
+        @Override
+        public boolean tick(long nowNanos) throws CommandExecutionFailedException, ExecutionException {
+            if (!started) {
+                rotationFollower.start();
+                getCommandTranslator().setNewTrajectory(trajectory, sampleTable); //Send the auto to our drive class to be executed
+                started = true;
+                nextPollTime = nowNanos;
             }
 
-            if (!scriptsToExecuteByTime.isEmpty()
-                    && scriptsToExecuteByTime.get(0).getDelay() <= elapsedTime) {
-                // We have a script to execute, and it is time to execute it
-                scriptsToExecuteByTime.get(0).execute();
-                scriptsToExecuteByTime.remove(0);
+            for (int i = concurrentScripts.size() - 1; i >= 0; i--) {
+                if (concurrentScripts.get(i).tick(nowNanos)) {
+                    concurrentScripts.remove(i);
+                }
             }
 
-            if (!scriptsToExecuteByPercent.isEmpty()
-                    && scriptsToExecuteByPercent.get(0).getDelay() <= elapsedTime / trajectory.getTotalTimeSeconds()) {
-                // We have a script to execute, and it is time to execute it
-                scriptsToExecuteByPercent.get(0).execute();
-                scriptsToExecuteByPercent.remove(0);
+            while (true) {
+                while (!runningScripts.isEmpty()) {
+                    if (!runningScripts.peek().tick(nowNanos)) {
+                        return false;
+                    }
+                    runningScripts.poll();
+                }
+
+                if (trajectoryDone) {
+                    if (!concurrentScripts.isEmpty()) {
+                        return false; // Wait for the scripts that were started during the trajectory before running the rest
+                    }
+                    if (scriptIndex == scriptTimeline.size()) {
+                        return true;
+                    }
+                    //Execute any remaining scripts
+                    for (; scriptIndex < scriptTimeline.size(); scriptIndex++) {
+                        runningScripts.add(scriptTimeline.getScript(scriptIndex).createTask());
+                    }
+                    continue;
+                }
+                if (nowNanos - nextPollTime < 0) {
+                    return false;
+                }
+                nextPollTime += PERIOD_TIME_NANOS;
+                if (nowNanos - nextPollTime >= 0) {
+                    nextPollTime = nowNanos + PERIOD_TIME_NANOS; // Skip the periods that we've missed
+                }
+
+                DriveStateSnapshot driveState = getCommandTranslator().getDriveState();
+                if (driveState.isTrajectoryDone) {
+                    getCommandTranslator().stopRobot();
+                    trajectoryDone = true;
+                    continue;
+                }
+
+                final double elapsedTime = driveState.trajectoryElapsedTime;
+                rotationFollower.update(elapsedTime);
+
+                for (; scriptIndex < scriptTimeline.size() && scriptTimeline.getTime(scriptIndex) <= elapsedTime; scriptIndex++) {
+                    reportScriptLateness(scriptIndex, elapsedTime);
+                    AutoTask script = scriptTimeline.getScript(scriptIndex).createTask();
+                    if (!runScriptsConcurrently) {
+                        runningScripts.add(script);
+                    } else if (!script.tick(nowNanos)) {
+                        concurrentScripts.add(script);
+                    }
+                }
             }
-            //noinspection BusyWait
-            Thread.sleep((long) (1000 * Math.max(startTime + PERIOD_TIME_S - Timer.getFPGATimestamp(), 0)));
         }
-        getCommandTranslator().stopRobot();
+    }
+
+    /**
+     * Sends the rotation that should be targeted to the drivetrain as the trajectory is driven. The rotation is only sent when it changes. Non-holonomic trajectories don't have any rotations
+     * (since the rotation is based on the driven path), so nothing is sent for them.
+     */
+    private final class RotationFollower {
+        private final boolean interpolate = AutonomousContainer.getInstance().isRotationInterpolationEnabled();
+        private int rotationIndex = 0;
+        private double sentRadians = Double.NaN;
 
-        //Execute any remaining scripts
-        for (SendableScript sendableScript : scriptsToExecuteByTime) {
-            sendableScript.execute();
+        /**
+         * Sends the starting rotation
+         */
+        void start() {
+            if (rotationProfile.size() > 0) {
+                send(rotationProfile.getRadians(0), rotationProfile.getRotation(0));
+            }
         }
-        for (SendableScript sendableScript : scriptsToExecuteByPercent) {
-            sendableScript.execute();
+
+        void update(double elapsedTime) {
+            if (rotationProfile.size() == 0) {
+                return;
+            }
+
+            rotationIndex = rotationProfile.advance(rotationIndex, elapsedTime);
+            if (interpolate) {
+                double radians = rotationProfile.interpolateRadians(rotationIndex, elapsedTime);
+                if (radians != sentRadians) {
+                    send(radians, new Rotation2d(radians));
+                }
+            } else {
+                send(rotationProfile.getRadians(rotationIndex), rotationProfile.getRotation(rotationIndex));
+            }
         }
 
-        scriptsToExecuteByTime.clear();
-        scriptsToExecuteByPercent.clear();
+        private void send(double radians, @NotNull Rotation2d rotation) {
+            if (radians != sentRadians) {
+                sentRadians = radians;
+                getCommandTranslator().setAutonomousRotation(rotation);
+            }
+        }
     }
 
     @Override
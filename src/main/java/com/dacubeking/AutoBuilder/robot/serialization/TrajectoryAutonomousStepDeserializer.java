@@ -0,0 +1,196 @@
+package com.dacubeking.AutoBuilder.robot.serialization;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.math.trajectory.Trajectory.State;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Deserializes a {@link TrajectoryAutonomousStep} straight from the token stream. The states are read into a primitive buffer and the {@link Trajectory} is built from it in one pass, instead of
+ * having Jackson create every {@link State}, {@link Pose2d}, {@link edu.wpi.first.math.geometry.Translation2d} and {@link Rotation2d} through reflection. Unknown properties are skipped, the same
+ * as {@link com.fasterxml.jackson.annotation.JsonIgnoreProperties#ignoreUnknown()}.
+ */
+final class TrajectoryAutonomousStepDeserializer extends StdDeserializer<TrajectoryAutonomousStep> {
+
+    // Layout of each state in the buffer
+    private static final int TIME = 0;
+    private static final int VELOCITY = 1;
+    private static final int ACCELERATION = 2;
+    private static final int X = 3;
+    private static final int Y = 4;
+    private static final int HEADING = 5;
+    private static final int CURVATURE = 6;
+    private static final int STATE_SIZE = 7;
+
+    /**
+     * How often (in states) to check if the deserialization has been {@link Serializer#deserializeAuto(byte[], boolean, java.util.function.BooleanSupplier) cancelled}
+     */
+    private static final int CANCELLATION_CHECK_INTERVAL = 128;
+
+    TrajectoryAutonomousStepDeserializer() {
+        super(TrajectoryAutonomousStep.class);
+    }
+
+    @Override
+    public TrajectoryAutonomousStep deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = p.nextToken();
+        }
+
+        List<State> states = null;
+        List<TimedRotation> rotations = null;
+        for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            String fieldName = p.currentName();
+            p.nextToken();
+            switch (fieldName) {
+                case "states" -> states = readStates(p, ctxt);
+                case "rotations" -> rotations = readRotations(p, ctxt);
+                default -> p.skipChildren();
+            }
+        }
+
+        if (token != JsonToken.END_OBJECT) {
+            return (TrajectoryAutonomousStep) ctxt.handleUnexpectedToken(TrajectoryAutonomousStep.class, p);
+        }
+        if (states == null) {
+            return ctxt.reportInputMismatch(this, "Missing required creator property 'states'");
+        }
+        if (rotations == null) {
+            return ctxt.reportInputMismatch(this, "Missing required creator property 'rotations'");
+        }
+        return new TrajectoryAutonomousStep(new Trajectory(states), rotations);
+    }
+
+    private @NotNull List<State> readStates(@NotNull JsonParser p, @NotNull DeserializationContext ctxt) throws IOException {
+        expect(p, ctxt, JsonToken.START_ARRAY);
+        double[] buffer = new double[STATE_SIZE * 64];
+        int count = 0;
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            if (buffer.length < (count + 1) * STATE_SIZE) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            if (count % CANCELLATION_CHECK_INTERVAL == 0) {
+                Serializer.checkCancelled(ctxt);
+            }
+            readState(p, ctxt, buffer, count * STATE_SIZE);
+            count++;
+        }
+
+        List<State> states = new ArrayList<>(count);
+        for (int i = 0; i < count * STATE_SIZE; i += STATE_SIZE) {
+            states.add(new State(buffer[i + TIME], buffer[i + VELOCITY], buffer[i + ACCELERATION],
+                    new Pose2d(buffer[i + X], buffer[i + Y], new Rotation2d(buffer[i + HEADING])), buffer[i + CURVATURE]));
+        }
+        return states;
+    }
+
+    private void readState(@NotNull JsonParser p, @NotNull DeserializationContext ctxt, double @NotNull [] buffer, int offset)
+            throws IOException {
+        expect(p, ctxt, JsonToken.START_OBJECT);
+        Arrays.fill(buffer, offset, offset + STATE_SIZE, 0);
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = p.currentName();
+            p.nextToken();
+            switch (fieldName) {
+                case "time" -> buffer[offset + TIME] = readDouble(p, ctxt);
+                case "velocity" -> buffer[offset + VELOCITY] = readDouble(p, ctxt);
+                case "acceleration" -> buffer[offset + ACCELERATION] = readDouble(p, ctxt);
+                case "curvature" -> buffer[offset + CURVATURE] = readDouble(p, ctxt);
+                case "pose" -> readPose(p, ctxt, buffer, offset);
+                default -> p.skipChildren();
+            }
+        }
+    }
+
+    private void readPose(@NotNull JsonParser p, @NotNull DeserializationContext ctxt, double @NotNull [] buffer, int offset)
+            throws IOException {
+        expect(p, ctxt, JsonToken.START_OBJECT);
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = p.currentName();
+            p.nextToken();
+            switch (fieldName) {
+                case "translation" -> {
+                    expect(p, ctxt, JsonToken.START_OBJECT);
+                    while (p.nextToken() == JsonToken.FIELD_NAME) {
+                        String translationFieldName = p.currentName();
+                        p.nextToken();
+                        switch (translationFieldName) {
+                            case "x" -> buffer[offset + X] = readDouble(p, ctxt);
+                            case "y" -> buffer[offset + Y] = readDouble(p, ctxt);
+                            default -> p.skipChildren();
+                        }
+                    }
+                }
+                case "rotation" -> buffer[offset + HEADING] = readRotationRadians(p, ctxt);
+                default -> p.skipChildren();
+            }
+        }
+    }
+
+    private @NotNull List<TimedRotation> readRotations(@NotNull JsonParser p, @NotNull DeserializationContext ctxt) throws IOException {
+        expect(p, ctxt, JsonToken.START_ARRAY);
+        List<TimedRotation> rotations = new ArrayList<>();
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            expect(p, ctxt, JsonToken.START_OBJECT);
+            double time = 0;
+            double radians = 0;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = p.currentName();
+                p.nextToken();
+                switch (fieldName) {
+                    case "time" -> time = readDouble(p, ctxt);
+                    case "rotation" -> radians = readRotationRadians(p, ctxt);
+                    default -> p.skipChildren();
+                }
+            }
+            rotations.add(new TimedRotation(time, new Rotation2d(radians)));
+        }
+        return rotations;
+    }
+
+    /**
+     * Reads a {@link Rotation2d} object, returning just the angle
+     */
+    private double readRotationRadians(@NotNull JsonParser p, @NotNull DeserializationContext ctxt) throws IOException {
+        expect(p, ctxt, JsonToken.START_OBJECT);
+        double radians = 0;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = p.currentName();
+            p.nextToken();
+            if (fieldName.equals("radians")) {
+                radians = readDouble(p, ctxt);
+            } else {
+                p.skipChildren();
+            }
+        }
+        return radians;
+    }
+
+    private static double readDouble(@NotNull JsonParser p, @NotNull DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_NUMBER_INT) {
+            return p.getDoubleValue();
+        } else if (token == JsonToken.VALUE_NULL) {
+            return 0; // Same as Jackson's default for primitives
+        }
+        return (Double) ctxt.handleUnexpectedToken(double.class, p);
+    }
+
+    private static void expect(@NotNull JsonParser p, @NotNull DeserializationContext ctxt, @NotNull JsonToken expected)
+            throws IOException {
+        if (p.currentToken() != expected) {
+            ctxt.reportWrongTokenException(TrajectoryAutonomousStep.class, expected, "Expected " + expected);
+        }
+    }
+}
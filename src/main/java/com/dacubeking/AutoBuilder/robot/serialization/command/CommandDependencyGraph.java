@@ -0,0 +1,74 @@
+package com.dacubeking.AutoBuilder.robot.serialization.command;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.function.BiPredicate;
+
+/**
+ * The order that the commands of a script have to run in. A command depends on every earlier command that it conflicts with (ex: they need the same subsystem), so it only starts once those have
+ * finished. Commands that don't depend on each other can run at the same time, and commands that conflict always run in the order that they're in the script.
+ */
+final class CommandDependencyGraph {
+    private final int @NotNull [] @NotNull [] dependents;
+    private final int @NotNull [] dependencyCounts;
+    private final boolean sequential;
+
+    private CommandDependencyGraph(int @NotNull [] @NotNull [] dependents, int @NotNull [] dependencyCounts, boolean sequential) {
+        this.dependents = dependents;
+        this.dependencyCounts = dependencyCounts;
+        this.sequential = sequential;
+    }
+
+    /**
+     * @param commands  The commands, in the order they're in the script
+     * @param conflicts If two commands can't run at the same time. Must be symmetric.
+     */
+    static <T> @NotNull CommandDependencyGraph build(@NotNull List<T> commands, @NotNull BiPredicate<T, T> conflicts) {
+        int size = commands.size();
+        int[][] dependents = new int[size][];
+        int[] dependencyCounts = new int[size];
+        int[] buffer = new int[size];
+        boolean sequential = true;
+        for (int i = 0; i < size; i++) {
+            int dependentCount = 0;
+            for (int j = i + 1; j < size; j++) {
+                if (conflicts.test(commands.get(i), commands.get(j))) {
+                    buffer[dependentCount++] = j;
+                    dependencyCounts[j]++;
+                }
+            }
+            dependents[i] = new int[dependentCount];
+            System.arraycopy(buffer, 0, dependents[i], 0, dependentCount);
+            if (i + 1 < size && (dependentCount == 0 || buffer[0] != i + 1)) {
+                sequential = false; // The next command doesn't have to wait for this one
+            }
+        }
+        return new CommandDependencyGraph(dependents, dependencyCounts, sequential);
+    }
+
+    int size() {
+        return dependencyCounts.length;
+    }
+
+    /**
+     * @return The indices of the commands that have to wait for the command to finish, in ascending order. Don't modify the array.
+     */
+    int @NotNull [] getDependents(int command) {
+        return dependents[command];
+    }
+
+    /**
+     * @return A copy of the number of commands that each command has to wait for
+     */
+    int @NotNull [] copyDependencyCounts() {
+        return dependencyCounts.clone();
+    }
+
+    /**
+     * @return If every command has to wait for the one before it, so the commands can only run one after another
+     */
+    boolean isSequential() {
+        return sequential;
+    }
+}
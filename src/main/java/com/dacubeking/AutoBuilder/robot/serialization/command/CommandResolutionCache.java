@@ -0,0 +1,162 @@
+package com.dacubeking.AutoBuilder.robot.serialization.command;
+
+import com.dacubeking.AutoBuilder.robot.robotinterface.AutonomousContainer;
+import org.jetbrains.annotations.ApiStatus.Internal;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the reflective lookups that are needed to create {@link SendableCommand}s. The same commands are usually used by many autos (and by every side of an auto), so each class, method, instance
+ * and enum constant only needs to be looked up once. The cache is shared by all the threads that load autos.
+ */
+@Internal
+public final class CommandResolutionCache {
+
+    /**
+     * A method that a command calls, and the instance to call it on.
+     */
+    static final class ResolvedMethod {
+        final @NotNull Method method;
+        /**
+         * The instance to call the method on, or null if the method is static
+         */
+        final @Nullable Object instance;
+        /**
+         * Calls the method on the instance. See {@link #createHandle(Method, Object)}.
+         */
+        final @NotNull MethodHandle handle;
+
+        ResolvedMethod(@NotNull Method method, @Nullable Object instance) throws IllegalAccessException {
+            this.method = method;
+            this.instance = instance;
+            this.handle = createHandle(method, instance);
+        }
+    }
+
+    private static final @NotNull ConcurrentHashMap<String, Class<?>> classes = new ConcurrentHashMap<>();
+    private static final @NotNull ConcurrentHashMap<String, Enum<?>> enumConstants = new ConcurrentHashMap<>();
+    private static final @NotNull ConcurrentHashMap<String, ResolvedMethod> methods = new ConcurrentHashMap<>();
+
+    private static final @NotNull AtomicLong hits = new AtomicLong(0);
+    private static final @NotNull AtomicLong misses = new AtomicLong(0);
+
+    private CommandResolutionCache() {
+    }
+
+    /**
+     * @return The class with the given name
+     * @throws ClassNotFoundException If the class doesn't exist
+     */
+    static @NotNull Class<?> getClass(@NotNull String className) throws ClassNotFoundException {
+        Class<?> cls = classes.get(className);
+        if (cls != null) {
+            hits.incrementAndGet();
+            return cls;
+        }
+        misses.incrementAndGet();
+        cls = Class.forName(className);
+        classes.putIfAbsent(className, cls);
+        return cls;
+    }
+
+    /**
+     * @return The constant of the enum with the given name
+     * @throws ClassNotFoundException   If the enum class doesn't exist
+     * @throws ClassCastException       If the class isn't an enum
+     * @throws IllegalArgumentException If the enum doesn't have a constant with the given name
+     */
+    static @NotNull Enum<?> getEnumConstant(@NotNull String enumClassName, @NotNull String constantName) throws ClassNotFoundException {
+        String key = enumClassName + "#" + constantName;
+        Enum<?> constant = enumConstants.get(key);
+        if (constant != null) {
+            hits.incrementAndGet();
+            return constant;
+        }
+        misses.incrementAndGet();
+        constant = Enum.valueOf(getClass(enumClassName).asSubclass(Enum.class), constantName);
+        enumConstants.putIfAbsent(key, constant);
+        return constant;
+    }
+
+    /**
+     * Finds a method, and the instance to call it on. The instance is the one registered with {@link com.dacubeking.AutoBuilder.robot.annotations.AutoBuilderAccessible} for the class if there is
+     * one, otherwise it is the object returned by the class's {@code getInstance()} method. (Static methods don't need an instance.)
+     *
+     * @param className      The name of the class the method is in
+     * @param methodName     The name of the method
+     * @param parameterTypes The parameter types of the method
+     * @return The method (which has been made accessible) and the instance to call it on
+     */
+    static @NotNull ResolvedMethod getMethod(@NotNull String className, @NotNull String methodName, @NotNull Class<?> @NotNull [] parameterTypes)
+            throws ClassNotFoundException, NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+        StringBuilder keyBuilder = new StringBuilder(className).append('#').append(methodName).append('(');
+        for (Class<?> parameterType : parameterTypes) {
+            keyBuilder.append(parameterType.getName()).append(',');
+        }
+        String key = keyBuilder.append(')').toString();
+
+        ResolvedMethod resolvedMethod = methods.get(key);
+        if (resolvedMethod != null) {
+            hits.incrementAndGet();
+            return resolvedMethod;
+        }
+        misses.incrementAndGet();
+
+        Class<?> cls = getClass(className); // Get the class that the method is in
+        Method method = cls.getDeclaredMethod(methodName, parameterTypes);
+        method.setAccessible(true); // Make the method accessible so that we can call it if it's private
+
+        Object instance = null;
+        if (AutonomousContainer.getInstance().getAccessibleInstances().containsKey(className)) {
+            // The user has specified an instance to use for this class, so use it
+            instance = AutonomousContainer.getInstance().getAccessibleInstances().get(className);
+        } else if (!Modifier.isStatic(method.getModifiers())) {
+            // If the method isn't static, we need to get an instance of the class
+            Method getInstance = cls.getDeclaredMethod("getInstance"); // Get the getInstance method
+            getInstance.setAccessible(true);
+            instance = getInstance.invoke(null); // Invoke the getInstance method to get an instance of the class
+        }
+
+        resolvedMethod = new ResolvedMethod(method, instance);
+        ResolvedMethod existingMethod = methods.putIfAbsent(key, resolvedMethod);
+        return existingMethod == null ? resolvedMethod : existingMethod;
+    }
+
+    /**
+     * Creates a method handle that calls a method. Access is checked once, when the handle is created, instead of on every call like {@link Method#invoke(Object, Object...)} does, and the
+     * handle can be called without putting the arguments in an array. (The handle is held in a field, so the JIT doesn't treat it as a constant and won't inline the method through it.)
+     *
+     * @param method   The method to call. It must be accessible.
+     * @param instance The instance to call the method on, or null if the method is static
+     * @return A method handle with the same parameter and return types as the method that calls it on the instance
+     */
+    static @NotNull MethodHandle createHandle(@NotNull Method method, @Nullable Object instance) throws IllegalAccessException {
+        MethodHandle handle = MethodHandles.lookup().unreflect(method);
+        if (!Modifier.isStatic(method.getModifiers())) {
+            handle = handle.bindTo(instance);
+        }
+        return handle;
+    }
+
+    /**
+     * @return The number of lookups that were answered from the cache
+     */
+    public static long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return The number of lookups that had to be resolved through reflection
+     */
+    public static long getMisses() {
+        return misses.get();
+    }
+}
@@ -2,24 +2,32 @@ package com.dacubeking.AutoBuilder.robot.serialization.command;
 
 import com.dacubeking.AutoBuilder.robot.annotations.RequireWait;
 import com.dacubeking.AutoBuilder.robot.robotinterface.AutonomousContainer;
+import com.dacubeking.AutoBuilder.robot.robotinterface.MainThreadBridge;
+import com.dacubeking.AutoBuilder.robot.robotinterface.PeriodicScheduler;
+import com.dacubeking.AutoBuilder.robot.serialization.command.CommandResolutionCache.ResolvedMethod;
+import com.dacubeking.AutoBuilder.robot.serialization.BinaryAutoFormat;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.fasterxml.jackson.databind.JsonNode;
 import edu.wpi.first.wpilibj.DriverStation;
-import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.function.Function;
 
@@ -41,6 +49,12 @@ class SendableCommand {
 
     @JsonProperty("command") private final boolean command;
 
+    /**
+     * The names of the {@link com.dacubeking.AutoBuilder.robot.annotations.AutoBuilderAccessible @AutoBuilderAccessible} instances that this command uses, or null if they weren't declared. A
+     * command that doesn't declare what it uses can't run at the same time as any other command in its script. See {@link SendableScript#execute()}.
+     */
+    @JsonProperty("requires") public final String @Nullable [] requires;
+
     private final boolean shouldWait;
 
     private final boolean shouldCancelCommand;
@@ -68,6 +82,17 @@ class SendableCommand {
         INFERABLE_TYPES_PARSER.put(Boolean.class.getName(), Boolean::valueOf);
     }
 
+    private static final @NotNull Map<String, Class<?>> PRIMITIVE_CLASSES = Map.of(
+            int.class.getName(), int.class,
+            double.class.getName(), double.class,
+            float.class.getName(), float.class,
+            long.class.getName(), long.class,
+            short.class.getName(), short.class,
+            byte.class.getName(), byte.class,
+            char.class.getName(), char.class,
+            boolean.class.getName(), boolean.class
+    );
+
     private static final List<String> primitiveTypes = Arrays.asList(
             int.class.getName(),
             double.class.getName(),
@@ -84,9 +109,11 @@ class SendableCommand {
                               @JsonProperty("args") String @NotNull [] args,
                               @JsonProperty("argTypes") String[] argTypes,
                               @JsonProperty("reflection") boolean reflection,
-                              @JsonProperty("command") boolean command) {
+                              @JsonProperty("command") boolean command,
+                              @JsonProperty("requires") String @Nullable [] requires) {
         Method methodToCall = null;
         Object instance = null;
+        MethodHandle invoker = null;
         boolean shouldWait;
 
         this.methodName = methodName;
@@ -94,9 +121,23 @@ class SendableCommand {
         this.argTypes = argTypes;
         this.reflection = reflection;
         this.command = command;
+        this.requires = requires;
 
         objArgs = new Object[args.length];
 
+        if (requires != null) {
+            requiredInstances = new Object[requires.length];
+            for (int i = 0; i < requires.length; i++) {
+                requiredInstances[i] = AutonomousContainer.getInstance().getAccessibleInstances().get(requires[i]);
+                if (requiredInstances[i] == null) {
+                    throwIllegalArgumentException("Required instance " + requires[i] + " of " + methodName + " not found. " +
+                            "Make sure it's annotated with @AutoBuilderAccessible", null);
+                }
+            }
+        } else {
+            requiredInstances = null;
+        }
+
         if (command) {
             // If we're a command, the command name is the method name
             if (AutonomousContainer.getInstance().getAccessibleInstances().containsKey(methodName)) {
@@ -126,7 +167,7 @@ class SendableCommand {
                         objArgs[i] = INFERABLE_TYPES_PARSER.get(argTypes[i]).apply(args[i]);
                     } else {
                         // Convert the string to the correct enum if it's not a primitive type
-                        objArgs[i] = Enum.valueOf(Class.forName(argTypes[i]).asSubclass(Enum.class), args[i]);
+                        objArgs[i] = CommandResolutionCache.getEnumConstant(argTypes[i], args[i]);
                     }
                 } catch (ClassNotFoundException e) {
                     throwIllegalArgumentException("We couldn't find the class " + argTypes[i] +
@@ -147,38 +188,40 @@ class SendableCommand {
                 System.arraycopy(splitMethod, 0, classNameArray, 0, classNameArray.length);
                 String className = String.join(".", classNameArray); // Get the class name that the method is in
                 try {
-                    Class<?> cls = Class.forName(className); // Get the class that the method is in
-
                     // Get an array of the class types to find the correct method
                     Class<?>[] typeArray = new Class[argTypes.length];
+                    Class<?>[] legacyTypeArray = new Class[argTypes.length];
                     for (int i = 0; i < objArgs.length; i++) {
                         if (primitiveTypes.contains(argTypes[i])) {
-                            typeArray[i] = getPrimitiveClass(objArgs[i].getClass());
+                            typeArray[i] = PRIMITIVE_CLASSES.get(argTypes[i]);
+                            legacyTypeArray[i] = getPrimitiveClass(objArgs[i].getClass());
                         } else {
-                            typeArray[i] = objArgs[i].getClass();
+                            typeArray[i] = objArgs[i] instanceof Enum<?> ? ((Enum<?>) objArgs[i]).getDeclaringClass() : objArgs[i].getClass();
+                            legacyTypeArray[i] = objArgs[i].getClass();
                         }
                     }
 
-                    if (typeArray.length == 0) {
-                        // If there are no arguments, just get the method with no arguments
-                        methodToCall = cls.getDeclaredMethod(splitMethod[splitMethod.length - 1]);
-                    } else {
-                        // Get the method with the correct arguments
-                        methodToCall = cls.getDeclaredMethod(splitMethod[splitMethod.length - 1], typeArray);
+                    // Get the method with the correct arguments, and the instance to call it on
+                    ResolvedMethod resolvedMethod;
+                    try {
+                        resolvedMethod = CommandResolutionCache.getMethod(className, splitMethod[splitMethod.length - 1], typeArray);
+                    } catch (NoSuchMethodException e) {
+                        if (Arrays.equals(typeArray, legacyTypeArray)) throw e;
+                        // Older versions looked up int arguments as doubles (ex: a method that takes a double might have been saved with an int argument)
+                        resolvedMethod = CommandResolutionCache.getMethod(className, splitMethod[splitMethod.length - 1], legacyTypeArray);
                     }
-                    methodToCall.setAccessible(true); // Make the method accessible so that we can call it if it's private
+                    methodToCall = resolvedMethod.method;
+                    instance = resolvedMethod.instance;
 
-                    if (AutonomousContainer.getInstance().getAccessibleInstances().containsKey(className)) {
-                        // The user has specified an instance to use for this class, so use it
-                        instance = AutonomousContainer.getInstance().getAccessibleInstances().get(className);
-                    } else {
-                        if (!Modifier.isStatic(methodToCall.getModifiers())) {
-                            // If the method isn't static, we need to get an instance of the class
-                            Method getInstance = cls.getDeclaredMethod("getInstance"); // Get the getInstance method
-                            getInstance.setAccessible(true);
-                            instance = getInstance.invoke(null); // Invoke the getInstance method to get an instance of the class
+                    Class<?>[] parameterTypes = methodToCall.getParameterTypes();
+                    for (int i = 0; i < objArgs.length; i++) {
+                        if (parameterTypes[i].isPrimitive() && INFERABLE_TYPES_PARSER.containsKey(parameterTypes[i].getName())
+                                && !parameterTypes[i].getName().equals(argTypes[i])) {
+                            // The method was found with the legacy types, so reparse the argument as the type that the method takes
+                            objArgs[i] = INFERABLE_TYPES_PARSER.get(parameterTypes[i].getName()).apply(args[i]);
                         }
                     }
+                    invoker = bindArguments(resolvedMethod.handle, objArgs);
                 } catch (ClassNotFoundException e) {
                     throwIllegalArgumentException("Class not found: " + className + ". " + e.getMessage()
                             + ". Try rebuilding your robotCodeData.json by rerunning your robot code in simulation.", e);
@@ -197,10 +240,88 @@ class SendableCommand {
         shouldWait = shouldWait || AutonomousContainer.getInstance().getRequireWaitObjects().contains(instance);
 
         this.methodToCall = methodToCall;
+        this.invoker = invoker;
         this.instance = instance;
         this.shouldWait = shouldWait;
     }
 
+    private static final int REFLECTION_FLAG = 1;
+    private static final int COMMAND_FLAG = 2;
+    private static final int REQUIRES_FLAG = 4;
+
+    static void writeBinary(@NotNull JsonNode command, @NotNull DataOutputStream out) throws IOException {
+        BinaryAutoFormat.writeString(command.path("methodName").asText(), out);
+
+        JsonNode args = command.path("args");
+        out.writeInt(args.size());
+        for (JsonNode arg : args) {
+            BinaryAutoFormat.writeString(arg.asText(), out);
+        }
+
+        JsonNode argTypes = command.get("argTypes");
+        if (argTypes == null || argTypes.isNull()) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(argTypes.size());
+            for (JsonNode argType : argTypes) {
+                BinaryAutoFormat.writeString(argType.asText(), out);
+            }
+        }
+
+        JsonNode requires = command.get("requires");
+        boolean hasRequires = requires != null && !requires.isNull();
+        out.writeByte((command.path("reflection").asBoolean() ? REFLECTION_FLAG : 0)
+                | (command.path("command").asBoolean() ? COMMAND_FLAG : 0)
+                | (hasRequires ? REQUIRES_FLAG : 0));
+        if (hasRequires) {
+            out.writeInt(requires.size());
+            for (JsonNode required : requires) {
+                BinaryAutoFormat.writeString(required.asText(), out);
+            }
+        }
+    }
+
+    /**
+     * Reads a command that was written with {@link #writeBinary(JsonNode, DataOutputStream)}.
+     *
+     * @throws IOException              If the buffer doesn't contain a valid command
+     * @throws BufferUnderflowException If the buffer ends before the command does
+     */
+    static @NotNull SendableCommand readBinary(@NotNull ByteBuffer buffer) throws IOException {
+        String methodName = BinaryAutoFormat.readString(buffer);
+        if (methodName == null) {
+            throw new IOException("Command is missing its method name");
+        }
+
+        String[] args = readStrings(buffer, buffer.getInt());
+
+        int argTypeCount = buffer.getInt();
+        String[] argTypes = argTypeCount < 0 ? null : readStrings(buffer, argTypeCount);
+
+        byte flags = buffer.get();
+        String[] requires = null;
+        if ((flags & REQUIRES_FLAG) != 0) {
+            requires = readStrings(buffer, buffer.getInt());
+        }
+
+        boolean command = (flags & COMMAND_FLAG) != 0;
+        if (!command && args.length > 0 && (argTypes == null || argTypes.length < args.length)) {
+            throw new IOException("Command " + methodName + " has " + args.length + " args but " + (argTypes == null ? 0 : argTypes.length) + " arg types");
+        }
+        return new SendableCommand(methodName, args, argTypes, (flags & REFLECTION_FLAG) != 0, command, requires);
+    }
+
+    private static String @NotNull [] readStrings(@NotNull ByteBuffer buffer, int count) {
+        if (count < 0 || count > buffer.remaining() / Integer.BYTES) {
+            throw new BufferUnderflowException(); // Every string takes at least its length
+        }
+        String[] strings = new String[count];
+        for (int i = 0; i < count; i++) {
+            strings[i] = BinaryAutoFormat.readString(buffer);
+        }
+        return strings;
+    }
+
     private static void throwIllegalArgumentException(@NotNull String errorMessage, @Nullable Exception e) {
         DriverStation.reportError(errorMessage, false);
         throw new IllegalArgumentException(errorMessage, e);
@@ -214,8 +335,67 @@ class SendableCommand {
     @Nullable
     private final Method methodToCall;
 
+    /**
+     * Calls {@link #methodToCall} on {@link #instance} with the arguments. See {@link #bindArguments(MethodHandle, Object[])}. (It saves the access checks and argument array of
+     * {@link Method#invoke(Object, Object...)}, but it isn't a constant, so the JIT doesn't inline the method through it.)
+     */
+    @JsonIgnoreProperties
+    @Nullable
+    private final MethodHandle invoker;
+
     @JsonIgnoreProperties private final Object @NotNull [] objArgs;
 
+    /**
+     * The instances named by {@link #requires}, or null if they weren't declared
+     */
+    @JsonIgnoreProperties private final Object @Nullable [] requiredInstances;
+
+    /**
+     * The calls that are made on the main thread while the command is polled. They're created once so that polling doesn't allocate.
+     */
+    @JsonIgnoreProperties private final @NotNull MainThreadBridge.BooleanCall invokeMethodCall = this::invokeMethod;
+    @JsonIgnoreProperties private final @NotNull MainThreadBridge.BooleanCall isScheduledCall = this::isCommandScheduled;
+
+    private static final @NotNull MethodHandle IS_FINISHED;
+
+    static {
+        try {
+            IS_FINISHED = MethodHandles.lookup().findStatic(SendableCommand.class, "isFinished",
+                    MethodType.methodType(boolean.class, Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * @return If a method that returned the result should stop being called. Methods are called repeatedly until they return something other than false.
+     */
+    private static boolean isFinished(@Nullable Object result) {
+        return !Boolean.FALSE.equals(result);
+    }
+
+    /**
+     * Compiles a method handle and its arguments into an invoker that doesn't take any arguments. The arguments are bound into the method handle with their exact types, so primitive arguments
+     * are stored as primitives, and calling the invoker doesn't box or unbox anything.
+     *
+     * @param handle The method to call
+     * @param args   The arguments to call the method with. They must match the parameter types of the method (after unboxing).
+     * @return A method handle with the type {@code ()boolean}, that returns if the method is {@link #isFinished(Object) finished}
+     */
+    static @NotNull MethodHandle bindArguments(@NotNull MethodHandle handle, Object @NotNull [] args) {
+        MethodHandle invoker = MethodHandles.insertArguments(handle, 0, args);
+        Class<?> returnType = invoker.type().returnType();
+        if (returnType == boolean.class) {
+            return invoker;
+        } else if (returnType == void.class) {
+            return MethodHandles.filterReturnValue(invoker, MethodHandles.constant(boolean.class, true));
+        } else if (returnType.isPrimitive()) {
+            return MethodHandles.filterReturnValue(invoker, MethodHandles.dropArguments(MethodHandles.constant(boolean.class, true), 0, returnType));
+        } else {
+            return MethodHandles.filterReturnValue(invoker.asType(invoker.type().changeReturnType(Object.class)), IS_FINISHED);
+        }
+    }
+
     private static Class<?> getPrimitiveClass(Class<?> clazz) {
         if (clazz.equals(Integer.class)) {
             return double.class;
@@ -258,27 +438,25 @@ class SendableCommand {
         // The built command's shouldn't be run on the main thread
         if (getCommandTranslator().runOnMainThread && reflection) {
             if (!command) {
+                PeriodicScheduler scheduler = new PeriodicScheduler(LOOPING_PERIOD_SECONDS); // Keep the period constant
                 while (true) {
-                    double startTime = Timer.getFPGATimestamp(); // Time the command to keep the period constant
-
-                    CompletableFuture<Object> future = new CompletableFuture<>();
-
-                    getCommandTranslator().runOnMainThread(() -> {
-                        try {
-                            future.complete(invokeMethod());
-                        } catch (CommandExecutionFailedException | InterruptedException e) {
-                            future.complete(new UncheckedExecutionException(e));
-                        }
-                    }); // Schedule the command to run on the main thread
-
                     if (!shouldWait) {
+                        // Schedule the command to run on the main thread without waiting for it
+                        getCommandTranslator().runOnMainThread(() -> {
+                            try {
+                                invokeMethod();
+                            } catch (CommandExecutionFailedException | InterruptedException e) {
+                                DriverStation.reportError("Failed to run command " + methodName + ": " + e.getMessage(), e.getStackTrace());
+                            }
+                        });
                         return;
                     }
 
-                    Object result = future.get(); // Wait for the command to finish
-
-                    if (result instanceof UncheckedExecutionException) { // If the command failed rethrow the exception
-                        Throwable exception = ((UncheckedExecutionException) result).getCause();
+                    boolean result;
+                    try {
+                        result = getCommandTranslator().callOnMainThread(invokeMethodCall); // Run the command on the main thread and wait for it to finish
+                    } catch (ExecutionException e) { // If the command failed rethrow the exception
+                        Throwable exception = e.getCause();
                         if (exception instanceof InterruptedException) {
                             throw (InterruptedException) exception;
                         } else if (exception instanceof CommandExecutionFailedException) {
@@ -289,11 +467,10 @@ class SendableCommand {
                         }
                     }
 
-                    if (!(result instanceof Boolean) || result.equals(true)) break; // If the command returns true or is not a boolean, stop the command
+                    if (result) break; // If the command returns true or is not a boolean, stop the command
 
                     //Keep executing the method if it returns false
-                    //noinspection BusyWait
-                    Thread.sleep((long) Math.max((LOOPING_PERIOD_SECONDS - (Timer.getFPGATimestamp() - startTime)) * 1000, 0));
+                    scheduler.waitForNextPeriod();
                 }
             } else {
                 if (shouldCancelCommand) {
@@ -302,15 +479,11 @@ class SendableCommand {
                     getCommandTranslator().runOnMainThread(() -> ((Command) instance).schedule());
 
                     if (shouldWait) {
-                        CompletableFuture<Boolean> future;
+                        PeriodicScheduler scheduler = new PeriodicScheduler(LOOPING_PERIOD_SECONDS);
                         do {
                             //Wait for the command to finish
-                            //noinspection BusyWait
-                            Thread.sleep((long) LOOPING_PERIOD_SECONDS * 1000);
-                            future = new CompletableFuture<>();
-                            final var finalFuture = future;
-                            getCommandTranslator().runOnMainThread(() -> finalFuture.complete(((Command) instance).isScheduled()));
-                        } while (future.get());
+                            scheduler.waitForNextPeriod();
+                        } while (getCommandTranslator().callOnMainThread(isScheduledCall));
                     }
                 }
             }
@@ -318,34 +491,103 @@ class SendableCommand {
             if (command) {
                 throw new CommandExecutionFailedException("Commands must be run on the main thread");
             }
+            PeriodicScheduler scheduler = new PeriodicScheduler(LOOPING_PERIOD_SECONDS);
             while (true) {
-                double startTime = Timer.getFPGATimestamp();
-                Object result = invokeMethod();
-                if (shouldWait || !(result instanceof Boolean) || result.equals(true)) break;
+                boolean finished = invokeMethod();
+                if (shouldWait || finished) break;
 
                 //Keep executing the method if it returns false
-                //noinspection BusyWait
-                Thread.sleep((long) Math.max((LOOPING_PERIOD_SECONDS - (Timer.getFPGATimestamp() - startTime)) * 1000, 0));
+                scheduler.waitForNextPeriod();
             }
         }
     }
 
-    private @Nullable Object invokeMethod() throws InterruptedException, CommandExecutionFailedException {
+    /**
+     * Polls the command once for a cooperative run (see {@link SendableScript#createTask()}). This does what {@link #execute()} does when the commands are run on the main thread, but it returns
+     * instead of waiting. Must be called from the main thread.
+     *
+     * @param firstPoll If this is the first time the command is being polled
+     * @return true if the command has finished, false if it should be polled again after {@link #LOOPING_PERIOD_SECONDS}
+     * @throws CommandExecutionFailedException If the command fails to execute
+     */
+    boolean poll(boolean firstPoll) throws CommandExecutionFailedException {
+        if (command) {
+            if (instance == null) {
+                throw new CommandExecutionFailedException("Instance is null when calling a command");
+            }
+            if (firstPoll) {
+                if (shouldCancelCommand) {
+                    ((Command) instance).cancel();
+                    return true;
+                }
+                ((Command) instance).schedule();
+                return !shouldWait;
+            }
+            return !isCommandScheduled(); // Wait for the command to finish
+        }
+
+        if (methodToCall == null && reflection) {
+            throw new CommandExecutionFailedException("Method to call is null");
+        }
+        try {
+            boolean finished = invokeMethod();
+            return finished || !shouldWait; // Methods that we don't wait for are only run once
+        } catch (InterruptedException e) {
+            throw new CommandExecutionFailedException("Interrupted while invoking method " + methodName, e);
+        }
+    }
+
+    /**
+     * @return How long this command sleeps for, in nanoseconds, or -1 if it isn't a sleep command. Sleep commands can't be {@link #poll polled}, since they would block the main thread.
+     */
+    long getSleepTimeNanos() {
+        if (reflection || !methodName.equals("sleep")) {
+            return -1;
+        }
+        return ((Number) objArgs[0]).longValue() * 1_000_000;
+    }
+
+    /**
+     * @return If this command can't run at the same time as the other command, because they use the same instance or one of them doesn't declare what it uses
+     */
+    boolean conflictsWith(@NotNull SendableCommand other) {
+        if (requiredInstances == null || other.requiredInstances == null) {
+            return true;
+        }
+        for (Object requiredInstance : requiredInstances) {
+            for (Object otherRequiredInstance : other.requiredInstances) {
+                if (requiredInstance == otherRequiredInstance) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean isCommandScheduled() {
+        assert command && instance != null;
+        return ((Command) instance).isScheduled();
+    }
+
+    /**
+     * @return If the method has finished. (It returns true or isn't a boolean.)
+     */
+    private boolean invokeMethod() throws InterruptedException, CommandExecutionFailedException {
         assert !command;
         try {
             if (reflection) {
-                assert methodToCall != null;
-                return methodToCall.invoke(instance, objArgs); // If the method returns true & is a boolean, stop executing it
+                assert invoker != null;
+                return (boolean) invoker.invokeExact(); // If the method returns true & is a boolean, stop executing it
             } else {
                 switch (methodName) {
                     case "print" -> System.out.println(objArgs[0]);
                     case "sleep" -> Thread.sleep((long) objArgs[0]);
                 }
-                return null;
+                return true;
             }
         } catch (InterruptedException e) {
             throw e;
-        } catch (Exception e) {
+        } catch (Throwable e) {
             throw new CommandExecutionFailedException("Could not invoke method " + methodName + " due to: " + e.getMessage(), e);
         }
     }
@@ -358,6 +600,7 @@ class SendableCommand {
                 ", argTypes=" + Arrays.toString(argTypes) +
                 ", reflection=" + reflection +
                 ", command=" + command +
+                ", requires=" + Arrays.toString(requires) +
                 ", shouldWait=" + shouldWait +
                 ", shouldCancelCommand=" + shouldCancelCommand +
                 ", instance=" + instance +
@@ -1,12 +1,25 @@
 package com.dacubeking.AutoBuilder.robot.serialization.command;
 
+import com.dacubeking.AutoBuilder.robot.serialization.AutoTask;
+import com.dacubeking.AutoBuilder.robot.serialization.BinaryAutoFormat;
+import com.dacubeking.AutoBuilder.robot.serialization.TaskGroup;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.jetbrains.annotations.ApiStatus.Internal;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
@@ -15,13 +28,151 @@ import java.util.concurrent.ExecutionException;
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class SendableScript implements Comparable<SendableScript> {
 
+    private static final int COMMAND_THREADS = 4;
+    private static final @NotNull AtomicInteger commandThreadCount = new AtomicInteger(0);
     /**
-     * @throws InterruptedException if the thread is interrupted while executing the commands
+     * Runs the commands of scripts that can run at the same time. Commands that are submitted while every thread is busy wait for one to be free. The commands don't submit anything themselves,
+     * so they can't deadlock waiting on each other.
+     */
+    private static final @NotNull ExecutorService commandExecutor = Executors.newFixedThreadPool(COMMAND_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "AutoBuilder Script Command " + commandThreadCount.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Runs the commands of the script. If the commands declare the instances they {@link SendableCommand#requires require}, commands that don't use the same instances are run at the same time,
+     * while commands that do are run in the order they're in the script. Commands that don't declare what they use wait for every command before them, and every command after them waits for
+     * them, so scripts without any declarations run one command after another. If a command fails, the commands that are still running are interrupted, and this waits for them to stop before
+     * it throws.
+     *
+     * @throws InterruptedException if the thread is interrupted while executing the commands. The commands that are running are interrupted too.
      */
     public void execute() throws InterruptedException, CommandExecutionFailedException, ExecutionException {
-        for (SendableCommand command : commands) {
-            if (Thread.interrupted()) throw new InterruptedException("Interrupted while trying to execute a script ");
+        if (dependencyGraph.isSequential()) {
+            for (SendableCommand command : commands) {
+                if (Thread.interrupted()) throw new InterruptedException("Interrupted while trying to execute a script ");
+                command.execute();
+            }
+            return;
+        }
+
+        TaskGroup<Integer> runningCommands = new TaskGroup<>(commandExecutor);
+        int[] remainingDependencies = dependencyGraph.copyDependencyCounts();
+        try {
+            for (int i = 0; i < commands.size(); i++) {
+                if (remainingDependencies[i] == 0) {
+                    submitCommand(runningCommands, i);
+                }
+            }
+
+            for (int finishedCommands = 0; finishedCommands < commands.size(); finishedCommands++) {
+                int finishedCommand = runningCommands.take();
+                for (int dependent : dependencyGraph.getDependents(finishedCommand)) {
+                    if (--remainingDependencies[dependent] == 0) {
+                        submitCommand(runningCommands, dependent);
+                    }
+                }
+            }
+        } finally {
+            // Don't leave until the commands that are still running have stopped
+            runningCommands.cancelAndJoin();
+        }
+    }
+
+    private void submitCommand(@NotNull TaskGroup<Integer> runningCommands, int commandIndex) {
+        SendableCommand command = commands.get(commandIndex);
+        runningCommands.submit(() -> {
             command.execute();
+            return commandIndex;
+        });
+    }
+
+    /**
+     * Creates a task that runs the commands of this script on the main thread, in the same order as {@link #execute()} does, but without blocking while a command is being waited on.
+     */
+    @Internal
+    public @NotNull AutoTask createTask() {
+        return new ScriptTask(commands, dependencyGraph);
+    }
+
+    /**
+     * Polls every command that is ready to run (all the commands it depends on have finished) on each tick. A command that finishes is followed by the commands that were waiting for it in the
+     * same tick, since they're always later in the script.
+     */
+    private static final class ScriptTask implements AutoTask {
+        private static final long LOOPING_PERIOD_NANOS = (long) (SendableCommand.LOOPING_PERIOD_SECONDS * 1e9);
+
+        private final @NotNull List<SendableCommand> commands;
+        private final @NotNull CommandDependencyGraph dependencyGraph;
+        private final int @NotNull [] remainingDependencies;
+        /**
+         * If the command has been polled (or started sleeping) yet
+         */
+        private final boolean @NotNull [] started;
+        private final boolean @NotNull [] finished;
+        /**
+         * When the command should next be polled
+         */
+        private final long @NotNull [] resumeTimes;
+        /**
+         * Every command before this one has finished
+         */
+        private int firstUnfinishedCommand = 0;
+
+        private ScriptTask(@NotNull List<SendableCommand> commands, @NotNull CommandDependencyGraph dependencyGraph) {
+            this.commands = commands;
+            this.dependencyGraph = dependencyGraph;
+            this.remainingDependencies = dependencyGraph.copyDependencyCounts();
+            this.started = new boolean[commands.size()];
+            this.finished = new boolean[commands.size()];
+            this.resumeTimes = new long[commands.size()];
+        }
+
+        @Override
+        public boolean tick(long nowNanos) throws CommandExecutionFailedException {
+            for (int i = firstUnfinishedCommand; i < commands.size(); i++) {
+                if (finished[i] || remainingDependencies[i] > 0 || !pollCommand(i, nowNanos)) {
+                    continue;
+                }
+
+                finished[i] = true;
+                for (int dependent : dependencyGraph.getDependents(i)) {
+                    remainingDependencies[dependent]--;
+                }
+            }
+
+            while (firstUnfinishedCommand < commands.size() && finished[firstUnfinishedCommand]) {
+                firstUnfinishedCommand++;
+            }
+            return firstUnfinishedCommand == commands.size();
+        }
+
+        /**
+         * @return If the command has finished
+         */
+        private boolean pollCommand(int commandIndex, long nowNanos) throws CommandExecutionFailedException {
+            if (started[commandIndex] && nowNanos - resumeTimes[commandIndex] < 0) {
+                return false; // Still waiting on the command
+            }
+
+            SendableCommand command = commands.get(commandIndex);
+            boolean commandFinished;
+            long sleepTime = command.getSleepTimeNanos();
+            if (sleepTime >= 0) {
+                commandFinished = started[commandIndex]; // We've already slept if we were started
+                resumeTimes[commandIndex] = nowNanos + sleepTime;
+            } else {
+                commandFinished = command.poll(!started[commandIndex]);
+                // Keep the period constant, unless we've fallen a whole period behind
+                long resumeTime = started[commandIndex] ? resumeTimes[commandIndex] + LOOPING_PERIOD_NANOS : nowNanos + LOOPING_PERIOD_NANOS;
+                if (nowNanos - resumeTime >= 0) {
+                    resumeTime = nowNanos + LOOPING_PERIOD_NANOS;
+                }
+                resumeTimes[commandIndex] = resumeTime;
+            }
+            started[commandIndex] = true;
+            return commandFinished;
         }
     }
 
@@ -35,6 +186,7 @@ public class SendableScript implements Comparable<SendableScript> {
     private double delay;
 
     private final List<SendableCommand> commands;
+    private final @NotNull CommandDependencyGraph dependencyGraph;
 
 
     @JsonCreator
@@ -44,6 +196,7 @@ public class SendableScript implements Comparable<SendableScript> {
         this.delayType = delayType;
         this.delay = delay;
         this.commands = commands;
+        this.dependencyGraph = CommandDependencyGraph.build(commands == null ? List.of() : commands, SendableCommand::conflictsWith);
     }
 
     @JsonProperty("delayType")
@@ -69,6 +222,61 @@ public class SendableScript implements Comparable<SendableScript> {
         this.delayType = delayType;
     }
 
+    /**
+     * Writes a script in the {@link BinaryAutoFormat}.
+     * <pre>
+     * byte   delay type ordinal (-1 for null)
+     * double delay
+     * int    command count
+     * command:
+     *   string methodName
+     *   int argCount, string[argCount] args
+     *   int argTypeCount (-1 for null), string[argTypeCount] argTypes
+     *   byte flags (1 = reflection, 2 = command, 4 = requires)
+     *   int requiresCount, string[requiresCount] requires (only if the requires flag is set)
+     * </pre>
+     *
+     * @param script The json tree of the script
+     * @param out    The stream to write to
+     */
+    @Internal
+    public static void writeBinary(@NotNull JsonNode script, @NotNull DataOutputStream out) throws IOException {
+        JsonNode delayType = script.get("delayType");
+        out.writeByte(delayType == null || delayType.isNull() ? -1 : DelayType.valueOf(delayType.asText()).ordinal());
+        out.writeDouble(script.path("delay").asDouble());
+
+        JsonNode commands = script.path("commands");
+        out.writeInt(commands.size());
+        for (JsonNode command : commands) {
+            SendableCommand.writeBinary(command, out);
+        }
+    }
+
+    /**
+     * Reads a script that was written with {@link #writeBinary(JsonNode, DataOutputStream)}.
+     *
+     * @throws IOException              If the buffer doesn't contain a valid script
+     * @throws BufferUnderflowException If the buffer ends before the script does
+     */
+    @Internal
+    public static @NotNull SendableScript readBinary(@NotNull ByteBuffer buffer) throws IOException {
+        byte delayType = buffer.get();
+        DelayType[] delayTypes = DelayType.values();
+        if (delayType < -1 || delayType >= delayTypes.length) {
+            throw new IOException("Unknown delay type: " + delayType);
+        }
+        double delay = buffer.getDouble();
+        int commandCount = buffer.getInt();
+        if (commandCount < 0 || commandCount > buffer.remaining() / Integer.BYTES) {
+            throw new BufferUnderflowException(); // Every command starts with the length of its method name
+        }
+        List<SendableCommand> commands = new ArrayList<>(commandCount);
+        for (int i = 0; i < commandCount; i++) {
+            commands.add(SendableCommand.readBinary(buffer));
+        }
+        return new SendableScript(delayType < 0 ? null : delayTypes[delayType], delay, commands);
+    }
+
     @Override
     public int compareTo(@NotNull SendableScript o) {
         return Double.compare(delay, o.delay);
@@ -0,0 +1,59 @@
+package com.dacubeking.AutoBuilder.robot;
+
+import com.dacubeking.AutoBuilder.robot.robotinterface.FakeDrive;
+import com.dacubeking.AutoBuilder.robot.serialization.AutoTask;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GuiAutoTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    private static final String AUTO_JSON = "{\"autonomousSteps\":[{\"type\":\"trajectory\",\"states\":["
+            + "{\"time\":0.0,\"velocity\":0.0,\"acceleration\":1.0,\"pose\":{\"translation\":{\"x\":1.0,\"y\":2.0},\"rotation\":{\"radians\":0.0}},\"curvature\":0.0},"
+            + "{\"time\":1.0,\"velocity\":1.0,\"acceleration\":0.0,\"pose\":{\"translation\":{\"x\":1.5,\"y\":2.0},\"rotation\":{\"radians\":0.0}},\"curvature\":0.0}],"
+            + "\"rotations\":[{\"time\":0.0,\"rotation\":{\"radians\":0.25}}]}]}";
+
+    @Test
+    void testCooperativeRunDrivesTheTrajectory() throws Exception {
+        FakeDrive drive = new FakeDrive(true);
+        drive.runMainThreadPeriodic(); // This thread is the main thread
+        AutoTask auto = new GuiAuto(AUTO_JSON).createTask();
+
+        assertFalse(auto.tick(0));
+        assertEquals(List.of("setRobotPose 1.0 2.0", "setNewTrajectory"), drive.getCalls());
+        assertEquals(1, drive.getDriveStatePolls());
+
+        // The drive state is only polled every 20ms
+        for (long time = 1; time < 20; time++) {
+            assertFalse(auto.tick(time * MILLIS));
+        }
+        assertEquals(1, drive.getDriveStatePolls());
+        assertFalse(auto.tick(20 * MILLIS));
+        assertEquals(2, drive.getDriveStatePolls());
+
+        drive.trajectoryDone = true;
+        assertFalse(auto.tick(39 * MILLIS));
+        assertEquals(2, drive.getDriveStatePolls());
+        assertTrue(auto.tick(40 * MILLIS));
+        assertEquals(3, drive.getDriveStatePolls());
+        // Stopped once when the trajectory is done, and once when the auto is done
+        assertEquals(List.of("setRobotPose 1.0 2.0", "setNewTrajectory", "stopRobot", "stopRobot"), drive.getCalls());
+    }
+
+    @Test
+    void testFailedNetworkAutoDoesNothing() throws Exception {
+        FakeDrive drive = new FakeDrive(true);
+        drive.runMainThreadPeriodic();
+        AutoTask auto = NetworkAuto.createFailed().createTask();
+
+        // Reported as not loaded, instead of finishing like an empty auto would
+        assertTrue(auto.tick(0));
+        assertEquals(List.of(), drive.getCalls());
+    }
+}
@@ -0,0 +1,70 @@
+package com.dacubeking.AutoBuilder.robot.robotinterface;
+
+import com.dacubeking.AutoBuilder.robot.serialization.Autonomous;
+import com.dacubeking.AutoBuilder.robot.serialization.Serializer;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AutoCacheTest {
+
+    private static final String AUTO_JSON = "{\"autonomousSteps\":[{\"type\":\"trajectory\",\"states\":["
+            + "{\"time\":0.0,\"velocity\":0.0,\"acceleration\":1.0,\"pose\":{\"translation\":{\"x\":1.0,\"y\":2.0},\"rotation\":{\"radians\":0.0}},\"curvature\":0.0},"
+            + "{\"time\":1.0,\"velocity\":1.0,\"acceleration\":0.0,\"pose\":{\"translation\":{\"x\":1.5,\"y\":2.0},\"rotation\":{\"radians\":0.0}},\"curvature\":0.0}],"
+            + "\"rotations\":[{\"time\":0.0,\"rotation\":{\"radians\":0.25}}]}]}";
+
+    @Test
+    void testHashDependsOnlyOnContents() {
+        ByteBuffer data = ByteBuffer.wrap(AUTO_JSON.getBytes(StandardCharsets.UTF_8));
+        String hash = AutoCache.hash(data);
+        assertEquals(0, data.position());
+        assertEquals(64, hash.length());
+        assertEquals(hash, AutoCache.hash(ByteBuffer.wrap(AUTO_JSON.getBytes(StandardCharsets.UTF_8))));
+        assertNotEquals(hash, AutoCache.hash(ByteBuffer.wrap((AUTO_JSON + " ").getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void testStoreAndPrune() throws IOException {
+        File directory = Files.createTempDirectory("autobuilder-cache").toFile();
+        File source = new File(directory.getParentFile(), "test-" + System.nanoTime() + ".json");
+        Files.write(source.toPath(), AUTO_JSON.getBytes(StandardCharsets.UTF_8));
+        try {
+            AutoCache cache = new AutoCache(directory);
+            ByteBuffer data = Serializer.readAutoFile(source);
+            String hash = AutoCache.hash(data);
+            assertNull(cache.getSnapshot(hash));
+
+            cache.store(hash, data, source);
+            File snapshot = cache.getSnapshot(hash);
+            assertNotNull(snapshot);
+            Autonomous autonomous = Serializer.deserializeAuto(Serializer.readAutoFile(snapshot), snapshot);
+            assertEquals(1, autonomous.getAutonomousSteps().size());
+
+            // A new cache (ex: after a reboot) that never looks up the auto should prune it
+            cache.prune();
+            assertTrue(snapshot.isFile());
+            new AutoCache(directory).prune();
+            assertFalse(snapshot.isFile());
+        } finally {
+            Files.deleteIfExists(source.toPath());
+            File[] files = directory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    Files.deleteIfExists(file.toPath());
+                }
+            }
+            Files.deleteIfExists(directory.toPath());
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.dacubeking.AutoBuilder.robot.robotinterface;
+
+import com.dacubeking.AutoBuilder.robot.GuiAuto;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AutoLoaderTest {
+
+    /**
+     * Parsing a script that uses this blocks until the test lets it finish, since the parser calls {@link #getInstance()} to resolve its methods. Each test uses a different method, so that the
+     * resolved method isn't cached between tests.
+     */
+    private static final class SlowMechanism {
+        private static final SlowMechanism INSTANCE = new SlowMechanism();
+        static volatile CountDownLatch parsing = new CountDownLatch(1);
+        static volatile CountDownLatch finishParsing = new CountDownLatch(1);
+
+        private static SlowMechanism getInstance() throws InterruptedException {
+            parsing.countDown();
+            assertTrue(finishParsing.await(5, TimeUnit.SECONDS));
+            return INSTANCE;
+        }
+
+        private void intakeForRemoveTest() {
+        }
+
+        private void intakeForReloadTest() {
+        }
+    }
+
+    /**
+     * @param x      The x coordinate that the auto starts at, so that versions of the auto can be told apart
+     * @param method The method of {@link SlowMechanism} to run before the trajectory, or null to load the auto straight away
+     */
+    static String autoJson(double x, String method) {
+        String trajectory = "{\"type\":\"trajectory\",\"states\":["
+                + "{\"time\":0.0,\"velocity\":0.0,\"acceleration\":1.0,\"pose\":{\"translation\":{\"x\":" + x + ",\"y\":2.0},\"rotation\":{\"radians\":0.0}},\"curvature\":0.0},"
+                + "{\"time\":1.0,\"velocity\":1.0,\"acceleration\":0.0,\"pose\":{\"translation\":{\"x\":" + (x + 0.5) + ",\"y\":2.0},\"rotation\":{\"radians\":0.0}},\"curvature\":0.0}],"
+                + "\"rotations\":[{\"time\":0.0,\"rotation\":{\"radians\":0.25}}]}";
+        if (method == null) {
+            return "{\"autonomousSteps\":[" + trajectory + "]}";
+        }
+        String script = "{\"type\":\"script\",\"sendableScript\":{\"delayType\":\"NONE\",\"delay\":0.0,\"commands\":[{\"methodName\":\""
+                + SlowMechanism.class.getName() + "." + method + "\",\"args\":[],\"argTypes\":[],\"reflection\":true,\"command\":false}]}}";
+        return "{\"autonomousSteps\":[" + script + "," + trajectory + "]}";
+    }
+
+    static File writeAuto(File file, String json) throws IOException {
+        Files.write(file.toPath(), json.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out");
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    void testRemoveDuringLoad() throws Exception {
+        SlowMechanism.parsing = new CountDownLatch(1);
+        SlowMechanism.finishParsing = new CountDownLatch(1);
+        try {
+            File file = writeAuto(Files.createTempFile("autobuilder-remove", ".json").toFile(), autoJson(1, "intakeForRemoveTest"));
+            ConcurrentHashMap<File, GuiAuto> loadedAutos = new ConcurrentHashMap<>();
+            AutoLoader autoLoader = new AutoLoader(loadedAutos);
+            autoLoader.index(file);
+            autoLoader.start(1, null);
+            assertTrue(SlowMechanism.parsing.await(5, TimeUnit.SECONDS));
+
+            // The auto is deleted while it's being parsed
+            autoLoader.remove(file);
+            SlowMechanism.finishParsing.countDown();
+            awaitCondition(() -> autoLoader.getLoadedCount() == 1);
+
+            assertFalse(autoLoader.isIndexed(file));
+            assertTrue(loadedAutos.isEmpty());
+            assertTrue(autoLoader.getLoadTimes().isEmpty());
+            assertNull(autoLoader.get(file));
+        } finally {
+            SlowMechanism.finishParsing.countDown();
+        }
+    }
+
+    @Test
+    void testReloadDuringLoad() throws Exception {
+        SlowMechanism.parsing = new CountDownLatch(1);
+        SlowMechanism.finishParsing = new CountDownLatch(1);
+        try {
+            File file = writeAuto(Files.createTempFile("autobuilder-reload", ".json").toFile(), autoJson(1, "intakeForReloadTest"));
+            ConcurrentHashMap<File, GuiAuto> loadedAutos = new ConcurrentHashMap<>();
+            AutoLoader autoLoader = new AutoLoader(loadedAutos);
+            autoLoader.index(file);
+            autoLoader.start(2, null);
+            assertTrue(SlowMechanism.parsing.await(5, TimeUnit.SECONDS));
+
+            // A new version is written while the first one is still being parsed, and is loaded first
+            writeAuto(file, autoJson(3, null));
+            autoLoader.reload(file);
+            awaitCondition(() -> loadedAutos.containsKey(file));
+            assertEquals(3.0, loadedAutos.get(file).getInitialPose().getX(), 1e-9);
+
+            // The old version finishing doesn't replace it
+            SlowMechanism.finishParsing.countDown();
+            awaitCondition(() -> autoLoader.getLoadedCount() == 1);
+            assertEquals(3.0, loadedAutos.get(file).getInitialPose().getX(), 1e-9);
+            assertEquals(3.0, autoLoader.get(file).getInitialPose().getX(), 1e-9);
+        } finally {
+            SlowMechanism.finishParsing.countDown();
+        }
+    }
+}
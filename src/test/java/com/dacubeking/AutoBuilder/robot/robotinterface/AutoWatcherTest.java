@@ -0,0 +1,69 @@
+package com.dacubeking.AutoBuilder.robot.robotinterface;
+
+import com.dacubeking.AutoBuilder.robot.GuiAuto;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.dacubeking.AutoBuilder.robot.robotinterface.AutoLoaderTest.autoJson;
+import static com.dacubeking.AutoBuilder.robot.robotinterface.AutoLoaderTest.awaitCondition;
+import static com.dacubeking.AutoBuilder.robot.robotinterface.AutoLoaderTest.writeAuto;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AutoWatcherTest {
+
+    /**
+     * Counts the autos that are published by the loader
+     */
+    private static final class PublishedAutos extends ConcurrentHashMap<File, GuiAuto> {
+        final AtomicInteger puts = new AtomicInteger(0);
+
+        @Override
+        public GuiAuto put(File key, GuiAuto value) {
+            puts.incrementAndGet();
+            return super.put(key, value);
+        }
+    }
+
+    @Test
+    void testChangesAreDebounced() throws Exception {
+        File directory = Files.createTempDirectory("autobuilder-watch").toFile();
+        PublishedAutos loadedAutos = new PublishedAutos();
+        AutoLoader autoLoader = new AutoLoader(loadedAutos);
+        autoLoader.start(1, null);
+        AutoWatcher autoWatcher = new AutoWatcher(directory, autoLoader, file -> file.getName().endsWith(".json"));
+        autoWatcher.start();
+        try {
+            // The auto is written several times in quick succession, like a deploy or an editor would
+            File file = new File(directory, "auto.json").getAbsoluteFile();
+            long lastWriteTime = 0;
+            for (int i = 0; i < 3; i++) {
+                writeAuto(file, autoJson(i, null));
+                lastWriteTime = System.nanoTime();
+                Thread.sleep(50);
+            }
+            if (System.nanoTime() - lastWriteTime < TimeUnit.MILLISECONDS.toNanos(200)) {
+                assertFalse(autoLoader.isIndexed(file), "The auto was loaded before the writes settled");
+            }
+
+            // Only the last version is loaded, once
+            awaitCondition(() -> loadedAutos.containsKey(file));
+            Thread.sleep(500);
+            assertEquals(1, loadedAutos.puts.get());
+            assertEquals(2.0, loadedAutos.get(file).getInitialPose().getX(), 1e-9);
+
+            // Deleting the auto removes it
+            assertTrue(file.delete());
+            awaitCondition(() -> !autoLoader.isIndexed(file));
+            assertFalse(loadedAutos.containsKey(file));
+        } finally {
+            autoWatcher.stop();
+        }
+    }
+}
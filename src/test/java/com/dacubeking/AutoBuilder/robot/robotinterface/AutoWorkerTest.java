@@ -0,0 +1,99 @@
+package com.dacubeking.AutoBuilder.robot.robotinterface;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AutoWorkerTest {
+
+    private static void awaitFinished(AutoWorker.Job job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!job.isFinished()) {
+            assertTrue(System.nanoTime() < deadline, "The job didn't finish");
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    void testRunsAutosOnTheSameThread() throws Exception {
+        AutoWorker worker = new AutoWorker();
+        worker.start();
+
+        AtomicReference<Thread> firstThread = new AtomicReference<>();
+        AtomicReference<Thread> secondThread = new AtomicReference<>();
+        AutoWorker.Job first = worker.submit(() -> firstThread.set(Thread.currentThread()));
+        awaitFinished(first);
+        AutoWorker.Job second = worker.submit(() -> secondThread.set(Thread.currentThread()));
+        awaitFinished(second);
+
+        assertEquals("AutoBuilder Auto Worker", firstThread.get().getName());
+        assertEquals(firstThread.get(), secondThread.get());
+    }
+
+    @Test
+    void testCancelInterruptsTheRunningAuto() throws Exception {
+        AutoWorker worker = new AutoWorker();
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean(false);
+        AutoWorker.Job job = worker.submit(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        worker.cancel(job);
+        awaitFinished(job);
+        assertTrue(interrupted.get());
+
+        // The interrupt was only meant for the auto that was cancelled
+        AtomicBoolean nextInterrupted = new AtomicBoolean(true);
+        awaitFinished(worker.submit(() -> nextInterrupted.set(Thread.currentThread().isInterrupted())));
+        assertFalse(nextInterrupted.get());
+    }
+
+    @Test
+    void testCancelledAutosDontStart() throws Exception {
+        AutoWorker worker = new AutoWorker();
+        CountDownLatch release = new CountDownLatch(1);
+        AutoWorker.Job blocking = worker.submit(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+
+        // Still waiting for the worker to be free
+        AtomicBoolean ran = new AtomicBoolean(false);
+        AutoWorker.Job job = worker.submit(() -> ran.set(true));
+        worker.cancel(job);
+        assertTrue(job.isFinished());
+        release.countDown();
+        awaitFinished(blocking);
+
+        awaitFinished(worker.submit(() -> {}));
+        assertFalse(ran.get());
+    }
+
+    @Test
+    void testExceptionsDontStopTheWorker() throws Exception {
+        AutoWorker worker = new AutoWorker();
+        awaitFinished(worker.submit(() -> {
+            throw new IllegalStateException("Expected by the test");
+        }));
+
+        AtomicBoolean ran = new AtomicBoolean(false);
+        awaitFinished(worker.submit(() -> ran.set(true)));
+        assertTrue(ran.get());
+    }
+}
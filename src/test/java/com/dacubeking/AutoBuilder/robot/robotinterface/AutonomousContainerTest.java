@@ -0,0 +1,160 @@
+package com.dacubeking.AutoBuilder.robot.robotinterface;
+
+import com.dacubeking.AutoBuilder.robot.GuiAuto;
+import com.dacubeking.AutoBuilder.robot.serialization.BinaryAutoFormat;
+import com.dacubeking.AutoBuilder.robot.serialization.Serializer;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.dacubeking.AutoBuilder.robot.robotinterface.AutoLoaderTest.autoJson;
+import static com.dacubeking.AutoBuilder.robot.robotinterface.AutoLoaderTest.writeAuto;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AutonomousContainerTest {
+
+    private static final String TRAJECTORY_JSON = "{\"type\":\"trajectory\",\"states\":["
+            + "{\"time\":0.0,\"velocity\":0.0,\"acceleration\":1.0,\"pose\":{\"translation\":{\"x\":1.0,\"y\":2.0},\"rotation\":{\"radians\":0.0}},\"curvature\":0.0},"
+            + "{\"time\":1.0,\"velocity\":1.0,\"acceleration\":0.0,\"pose\":{\"translation\":{\"x\":1.5,\"y\":2.0},\"rotation\":{\"radians\":0.0}},\"curvature\":0.0}],"
+            + "\"rotations\":[{\"time\":0.0,\"rotation\":{\"radians\":0.25}}]}";
+
+    private static void brokenMechanism() {
+        throw new IllegalStateException("Expected by the test");
+    }
+
+    private static final CountDownLatch ticking = new CountDownLatch(1);
+    private static final CountDownLatch finishTick = new CountDownLatch(1);
+
+    private static void blockingMechanism() throws InterruptedException {
+        ticking.countDown();
+        assertTrue(finishTick.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testKillAutoDropsTheCooperativeAuto() throws Exception {
+        FakeDrive drive = new FakeDrive(true);
+        AutonomousContainer container = AutonomousContainer.getInstance();
+        container.setCooperativeExecutionEnabled(true);
+        try {
+            container.runAuto(new GuiAuto("{\"autonomousSteps\":[" + TRAJECTORY_JSON + "]}"));
+            container.onAutoPeriodic();
+            assertEquals(List.of("setRobotPose 1.0 2.0", "setNewTrajectory"), drive.getCalls());
+
+            container.killAuto();
+            assertEquals(List.of("setRobotPose 1.0 2.0", "setNewTrajectory", "stopRobot"), drive.getCalls());
+
+            // The auto isn't ticked anymore
+            int polls = drive.getDriveStatePolls();
+            for (int i = 0; i < 3; i++) {
+                Thread.sleep(25);
+                container.onAutoPeriodic();
+            }
+            assertEquals(polls, drive.getDriveStatePolls());
+            assertEquals(List.of("setRobotPose 1.0 2.0", "setNewTrajectory", "stopRobot"), drive.getCalls());
+        } finally {
+            container.setCooperativeExecutionEnabled(false);
+        }
+    }
+
+    @Test
+    void testExceptionEndsTheCooperativeAuto() throws Exception {
+        FakeDrive drive = new FakeDrive(true);
+        AutonomousContainer container = AutonomousContainer.getInstance();
+        container.setCooperativeExecutionEnabled(true);
+        try {
+            String script = "{\"type\":\"script\",\"sendableScript\":{\"delayType\":\"NONE\",\"delay\":0.0,\"commands\":[{\"methodName\":\""
+                    + AutonomousContainerTest.class.getName() + ".brokenMechanism\",\"args\":[],\"argTypes\":[],\"reflection\":true,\"command\":false}]}}";
+            container.runAuto(new GuiAuto("{\"autonomousSteps\":[" + script + "," + TRAJECTORY_JSON + "]}"));
+            container.onAutoPeriodic();
+            assertEquals(List.of("setRobotPose 1.0 2.0", "stopRobot"), drive.getCalls());
+
+            // The trajectory after the script is never driven
+            for (int i = 0; i < 3; i++) {
+                Thread.sleep(25);
+                container.onAutoPeriodic();
+            }
+            assertEquals(List.of("setRobotPose 1.0 2.0", "stopRobot"), drive.getCalls());
+            assertEquals(0, drive.getDriveStatePolls());
+        } finally {
+            container.setCooperativeExecutionEnabled(false);
+        }
+    }
+
+    @Test
+    void testKillAutoWaitsForTheTickInProgress() throws Exception {
+        FakeDrive drive = new FakeDrive(true);
+        AutonomousContainer container = AutonomousContainer.getInstance();
+        container.setCooperativeExecutionEnabled(true);
+        try {
+            String script = "{\"type\":\"script\",\"sendableScript\":{\"delayType\":\"NONE\",\"delay\":0.0,\"commands\":[{\"methodName\":\""
+                    + AutonomousContainerTest.class.getName() + ".blockingMechanism\",\"args\":[],\"argTypes\":[],\"reflection\":true,\"command\":false}]}}";
+            container.runAuto(new GuiAuto("{\"autonomousSteps\":[" + script + "," + TRAJECTORY_JSON + "]}"));
+            Thread tickThread = new Thread(container::onAutoPeriodic);
+            tickThread.start();
+            assertTrue(ticking.await(5, TimeUnit.SECONDS));
+
+            // The auto is killed while it's in the middle of a tick
+            Thread killThread = new Thread(container::killAuto);
+            killThread.start();
+            Thread.sleep(100);
+            assertTrue(killThread.isAlive());
+
+            // The robot is only stopped once the tick is over, so nothing that the tick did can move it afterwards
+            finishTick.countDown();
+            killThread.join(5000);
+            tickThread.join(5000);
+            container.onAutoPeriodic(); // Run the queued commands
+            List<String> calls = drive.getCalls();
+            assertEquals("stopRobot", calls.get(calls.size() - 1));
+        } finally {
+            finishTick.countDown();
+            container.setCooperativeExecutionEnabled(false);
+        }
+    }
+
+    @Test
+    void testStaleBinaryAutoIsSkipped() throws Exception {
+        String directory = Files.createTempDirectory("autobuilder-autos").toFile().getAbsolutePath() + "/";
+        File source = writeAuto(new File(directory + "auto.json"), autoJson(1, null));
+        File binary = Serializer.convertToBinary(source);
+        assertTrue(binary.setLastModified(source.lastModified() + 1000));
+        AutoLoader autoLoader = new AutoLoader(new ConcurrentHashMap<>());
+        autoLoader.index(source);
+        autoLoader.index(binary);
+
+        // The binary auto is preferred while it's up-to-date
+        assertEquals(List.of(binary, source), AutonomousContainer.findAutoFiles(autoLoader, directory, "auto", "left"));
+
+        // The auto is changed after it was converted
+        writeAuto(source, autoJson(3, null));
+        assertTrue(source.setLastModified(binary.lastModified() + 1000));
+        assertEquals(List.of(source), AutonomousContainer.findAutoFiles(autoLoader, directory, "auto", "left"));
+    }
+
+    @Test
+    void testBinaryAutoThatFailsToLoadFallsBack() throws Exception {
+        String directory = Files.createTempDirectory("autobuilder-autos").toFile().getAbsolutePath() + "/";
+        File source = writeAuto(new File(directory + "auto.json"), autoJson(1, null));
+        File binary = Serializer.convertToBinary(source);
+        assertTrue(binary.setLastModified(source.lastModified() + 1000));
+        // Written by an older version of the format
+        byte[] data = Files.readAllBytes(binary.toPath());
+        data[5] = BinaryAutoFormat.VERSION - 1;
+        Files.write(binary.toPath(), data);
+        assertTrue(binary.setLastModified(source.lastModified() + 1000));
+        AutoLoader autoLoader = new AutoLoader(new ConcurrentHashMap<>());
+        autoLoader.index(source);
+        autoLoader.index(binary);
+
+        List<File> autoFiles = AutonomousContainer.findAutoFiles(autoLoader, directory, "auto", "left");
+        assertEquals(List.of(binary, source), autoFiles);
+        GuiAuto auto = AutonomousContainer.loadFirst(autoLoader, autoFiles);
+        assertEquals(1.0, auto.getInitialPose().getX(), 1e-9);
+    }
+}
@@ -0,0 +1,79 @@
+package com.dacubeking.AutoBuilder.robot.robotinterface;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommandQueueTest {
+
+    @Test
+    void testBounded() {
+        CommandQueue queue = new CommandQueue(4);
+        Runnable first = () -> {};
+        assertTrue(queue.offer(first));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(queue.offer(() -> {}));
+        }
+        assertFalse(queue.offer(() -> {}));
+        assertEquals(4, queue.size());
+
+        assertSame(first, queue.peek());
+        assertSame(first, queue.poll());
+        assertTrue(queue.offer(() -> {}));
+        for (int i = 0; i < 4; i++) {
+            queue.poll();
+        }
+        assertNull(queue.poll());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void testProducersKeepTheirOrder() throws InterruptedException {
+        int producerCount = 4;
+        int commandsPerProducer = 20_000;
+        CommandQueue queue = new CommandQueue(64);
+        int[] lastRun = new int[producerCount];
+
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < producerCount; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 1; i <= commandsPerProducer; i++) {
+                    int command = i;
+                    Runnable runnable = () -> {
+                        assertEquals(command - 1, lastRun[producer]);
+                        lastRun[producer] = command;
+                    };
+                    while (!queue.offer(runnable)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            thread.start();
+            producers.add(thread);
+        }
+
+        int commandsRun = 0;
+        while (commandsRun < producerCount * commandsPerProducer) {
+            Runnable command = queue.poll();
+            if (command != null) {
+                command.run();
+                commandsRun++;
+            }
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        for (int last : lastRun) {
+            assertEquals(commandsPerProducer, last);
+        }
+        assertNull(queue.poll());
+    }
+}
@@ -0,0 +1,229 @@
+package com.dacubeking.AutoBuilder.robot.robotinterface;
+
+import com.sun.management.ThreadMXBean;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.math.trajectory.Trajectory.State;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommandTranslatorTest {
+
+    private static final int WARMUP_TICKS = 20_000;
+    private static final int MEASURED_TICKS = 10_000;
+
+    private static CommandTranslator createTranslator(AtomicInteger trajectoriesSet) {
+        return new CommandTranslator(
+                trajectory -> trajectoriesSet.incrementAndGet(),
+                () -> {},
+                null,
+                () -> trajectoriesSet.get() > 0,
+                () -> 1.5,
+                pose -> {},
+                true
+        );
+    }
+
+    /**
+     * Runs the main thread's periodic loop on another thread
+     */
+    private static Thread startMainThread(CommandTranslator translator, AtomicBoolean running) {
+        Thread mainThread = new Thread(() -> {
+            while (running.get()) {
+                translator.onPeriodic();
+            }
+        });
+        mainThread.setDaemon(true);
+        mainThread.start();
+        return mainThread;
+    }
+
+    @Test
+    void testRequestsSeeEarlierCommands() throws Exception {
+        AtomicInteger trajectoriesSet = new AtomicInteger(0);
+        CommandTranslator translator = createTranslator(trajectoriesSet);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread mainThread = startMainThread(translator, running);
+        try {
+            for (int i = 0; i < 1000; i++) {
+                translator.runOnMainThread(trajectoriesSet::incrementAndGet);
+                int expected = i + 1;
+                assertTrue(translator.callOnMainThread(() -> trajectoriesSet.get() == expected));
+            }
+            assertEquals(1.5, translator.getTrajectoryElapsedTime());
+
+            IllegalStateException failure = new IllegalStateException();
+            ExecutionException thrown = assertThrows(ExecutionException.class, () -> translator.callOnMainThread(() -> {
+                throw failure;
+            }));
+            assertSame(failure, thrown.getCause());
+        } finally {
+            running.set(false);
+            mainThread.join();
+        }
+    }
+
+    @Test
+    void testDriveStateSnapshots() throws Exception {
+        AtomicInteger trajectoriesSet = new AtomicInteger(0);
+        CommandTranslator translator = createTranslator(trajectoriesSet);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread mainThread = startMainThread(translator, running);
+        translator.startDriveStateSampling();
+        try {
+            DriveStateSnapshot snapshot = translator.awaitNextDriveState();
+            assertFalse(snapshot.isTrajectoryDone);
+            assertEquals(1.5, snapshot.trajectoryElapsedTime);
+
+            // The next sample has to be taken after the queued command has run
+            translator.runOnMainThread(trajectoriesSet::incrementAndGet);
+            DriveStateSnapshot next = translator.awaitNextDriveState();
+            assertTrue(next.isTrajectoryDone);
+            assertTrue(next.sequence > snapshot.sequence);
+            assertTrue(translator.getDriveState().sequence >= next.sequence);
+        } finally {
+            translator.stopDriveStateSampling();
+            running.set(false);
+            mainThread.join();
+        }
+    }
+
+    @Test
+    void testMainThreadCallsRunQueuedCommandsFirst() throws Exception {
+        AtomicInteger trajectoriesSet = new AtomicInteger(0);
+        CommandTranslator translator = createTranslator(trajectoriesSet);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread mainThread = new Thread(() -> {
+            try {
+                translator.onPeriodic(); // Makes this the main thread
+
+                // Each call must run the command that another thread (ex: the auto thread) queued before it, instead of waiting for the main thread (which is us)
+                queueFromAnotherThread(translator, trajectoriesSet::incrementAndGet);
+                assertEquals(1, translator.getCommandQueueDepth());
+                assertTrue(translator.isTrajectoryDone());
+
+                queueFromAnotherThread(translator, trajectoriesSet::incrementAndGet);
+                assertTrue(translator.callOnMainThread(() -> trajectoriesSet.get() == 2));
+
+                queueFromAnotherThread(translator, () -> trajectoriesSet.set(0));
+                assertFalse(translator.getDriveState().isTrajectoryDone);
+                assertEquals(0, translator.getCommandQueueDepth());
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        mainThread.setDaemon(true);
+        mainThread.start();
+        mainThread.join(5000);
+        assertFalse(mainThread.isAlive(), "The main thread deadlocked");
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+    }
+
+    private static void queueFromAnotherThread(CommandTranslator translator, Runnable command) throws InterruptedException {
+        Thread autoThread = new Thread(() -> translator.runOnMainThread(command));
+        autoThread.start();
+        autoThread.join();
+    }
+
+    @Test
+    void testDrainStopsAtTimeBudget() {
+        AtomicInteger trajectoriesSet = new AtomicInteger(0);
+        CommandTranslator translator = createTranslator(trajectoriesSet);
+        translator.setCommandDrainTimeBudget(1e-9);
+        AtomicInteger commandsRun = new AtomicInteger(0);
+        translator.runOnMainThread(commandsRun::incrementAndGet);
+        translator.clearCommandQueue();
+        for (int i = 0; i < 10; i++) {
+            translator.runOnMainThread(commandsRun::incrementAndGet);
+        }
+
+        translator.onPeriodic();
+        assertEquals(1, commandsRun.get()); // The cleared command is skipped
+        assertEquals(9, translator.getCommandQueueDepth());
+        assertEquals(1, translator.getCommandDrainOverrunCount());
+
+        translator.setCommandDrainTimeBudget(1);
+        translator.onPeriodic();
+        assertEquals(10, commandsRun.get());
+        assertEquals(0, translator.getCommandQueueDepth());
+        assertEquals(1, translator.getCommandDrainOverrunCount());
+
+        // Commands queued from the main thread are run straight away when nothing is waiting in front of them
+        translator.runOnMainThread(commandsRun::incrementAndGet);
+        assertEquals(11, commandsRun.get());
+    }
+
+    @Test
+    void testSampleTableIsDroppedWhenTheRobotStops() {
+        AtomicInteger trajectoriesSet = new AtomicInteger(0);
+        CommandTranslator translator = createTranslator(trajectoriesSet);
+        translator.onPeriodic(); // This thread is the main thread
+        Trajectory trajectory = new Trajectory(List.of(new State(0, 0, 1, new Pose2d(), 0), new State(1, 1, 1, new Pose2d(0.5, 0, new Rotation2d()), 0)));
+        TrajectorySample sample = new TrajectorySample();
+
+        translator.setNewTrajectory(trajectory, new TrajectorySampleTable(trajectory));
+        assertTrue(translator.sampleTrajectory(0.5, sample));
+        assertEquals(0.125, sample.getX(), 1e-9);
+        translator.stopRobot();
+        assertFalse(translator.sampleTrajectory(0.5, sample));
+        assertEquals(0.125, sample.getX(), 1e-9);
+
+        // Killing the auto clears the queue (including the stop it queued)
+        translator.setNewTrajectory(trajectory, new TrajectorySampleTable(trajectory));
+        assertTrue(translator.sampleTrajectory(0.5, sample));
+        translator.clearCommandQueue();
+        assertFalse(translator.sampleTrajectory(0.5, sample));
+    }
+
+    @Test
+    void testSteadyStateTicksDontAllocate() throws Exception {
+        ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assertTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        AtomicInteger trajectoriesSet = new AtomicInteger(0);
+        CommandTranslator translator = createTranslator(trajectoriesSet);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread mainThread = startMainThread(translator, running);
+        try {
+            double elapsedTime = 0;
+            for (int i = 0; i < WARMUP_TICKS; i++) {
+                assertFalse(translator.isTrajectoryDone());
+                elapsedTime += translator.getTrajectoryElapsedTime();
+            }
+
+            long autoThreadBytes = threadMXBean.getCurrentThreadAllocatedBytes();
+            long mainThreadBytes = threadMXBean.getThreadAllocatedBytes(mainThread.getId());
+            for (int i = 0; i < MEASURED_TICKS; i++) {
+                // What TrajectoryAutonomousStep asks for on every tick
+                if (translator.isTrajectoryDone()) break;
+                elapsedTime += translator.getTrajectoryElapsedTime();
+            }
+            autoThreadBytes = threadMXBean.getCurrentThreadAllocatedBytes() - autoThreadBytes;
+            mainThreadBytes = threadMXBean.getThreadAllocatedBytes(mainThread.getId()) - mainThreadBytes;
+
+            assertEquals(1.5 * (WARMUP_TICKS + MEASURED_TICKS), elapsedTime);
+            // Allow a little slack for anything the JVM allocates on its own, but nothing close to an object per tick
+            assertTrue(autoThreadBytes < MEASURED_TICKS, "The autonomous thread allocated " + autoThreadBytes + " bytes");
+            assertTrue(mainThreadBytes < MEASURED_TICKS, "The main thread allocated " + mainThreadBytes + " bytes");
+        } finally {
+            running.set(false);
+            mainThread.join();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.dacubeking.AutoBuilder.robot.robotinterface;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drive code for tests. It records the calls that AutoBuilder makes to it, and is installed as the command translator of the {@link AutonomousContainer} so that autos can be run without a robot.
+ */
+public final class FakeDrive {
+    private final List<String> calls = new ArrayList<>();
+    private final AtomicInteger driveStatePolls = new AtomicInteger(0);
+    public volatile boolean trajectoryDone = false;
+    public volatile double trajectoryElapsedTime = 0;
+    public final CommandTranslator commandTranslator;
+
+    /**
+     * @param runOnMainThread If the commands should be run on the main thread (the thread that calls {@link #runMainThreadPeriodic()})
+     */
+    public FakeDrive(boolean runOnMainThread) {
+        commandTranslator = new CommandTranslator(
+                trajectory -> record("setNewTrajectory"),
+                () -> record("stopRobot"),
+                null,
+                () -> {
+                    driveStatePolls.incrementAndGet();
+                    return trajectoryDone;
+                },
+                () -> trajectoryElapsedTime,
+                pose -> record("setRobotPose " + pose.getX() + " " + pose.getY()),
+                runOnMainThread
+        );
+        AutonomousContainer.setCommandTranslatorForTesting(commandTranslator);
+    }
+
+    private synchronized void record(String call) {
+        calls.add(call);
+    }
+
+    /**
+     * @return The calls that have been made to the drive code, in order
+     */
+    public synchronized List<String> getCalls() {
+        return new ArrayList<>(calls);
+    }
+
+    /**
+     * @return The number of times the drive state has been read
+     */
+    public int getDriveStatePolls() {
+        return driveStatePolls.get();
+    }
+
+    /**
+     * Runs the main thread's periodic once. The calling thread becomes the main thread.
+     */
+    public void runMainThreadPeriodic() {
+        commandTranslator.onPeriodic();
+    }
+
+    /**
+     * Runs the main thread's periodic loop on another thread until the returned flag is cleared
+     */
+    public AtomicBoolean startMainThread() {
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread mainThread = new Thread(() -> {
+            while (running.get()) {
+                commandTranslator.onPeriodic();
+                Thread.yield();
+            }
+        });
+        mainThread.setDaemon(true);
+        mainThread.start();
+        return running;
+    }
+}
@@ -0,0 +1,138 @@
+package com.dacubeking.AutoBuilder.robot.robotinterface;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MainThreadBridgeTest {
+
+    private static Thread startCaller(MainThreadBridge bridge, double value, AtomicReference<Object> result) {
+        Thread caller = new Thread(() -> {
+            try {
+                result.set(bridge.callDouble(() -> value));
+            } catch (Exception e) {
+                result.set(e);
+            }
+        });
+        caller.setDaemon(true);
+        caller.start();
+        return caller;
+    }
+
+    private static void awaitState(Thread thread, Thread.State state) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != state) {
+            assertTrue(System.nanoTime() < deadline, "The thread is " + thread.getState());
+            Thread.sleep(1);
+        }
+    }
+
+    private static void awaitRequest(MainThreadBridge bridge) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bridge.getWaitingRequestCount() == 0) {
+            assertTrue(System.nanoTime() < deadline, "The request wasn't made");
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    void testCallersParkWhileEverySlotIsInUse() throws InterruptedException {
+        MainThreadBridge bridge = new MainThreadBridge(1, () -> 0);
+        AtomicReference<Object> firstResult = new AtomicReference<>();
+        AtomicReference<Object> secondResult = new AtomicReference<>();
+        Thread first = startCaller(bridge, 1, firstResult);
+        awaitRequest(bridge);
+
+        // The second caller can't get a slot, so it parks instead of spinning
+        Thread second = startCaller(bridge, 2, secondResult);
+        awaitState(second, Thread.State.WAITING);
+        assertEquals(1, bridge.getWaitingRequestCount());
+
+        // Freeing the slot wakes it up
+        bridge.serviceRequests(0);
+        first.join(5000);
+        assertEquals(1.0, firstResult.get());
+        awaitRequest(bridge);
+        bridge.serviceRequests(0);
+        second.join(5000);
+        assertEquals(2.0, secondResult.get());
+    }
+
+    @Test
+    void testInterruptWaitsForARunningCall() throws InterruptedException {
+        MainThreadBridge bridge = new MainThreadBridge(1, () -> 0);
+        CountDownLatch callStarted = new CountDownLatch(1);
+        CountDownLatch finishCall = new CountDownLatch(1);
+        AtomicReference<Object> result = new AtomicReference<>();
+        Thread caller = new Thread(() -> {
+            try {
+                result.set(bridge.callBoolean(() -> {
+                    callStarted.countDown();
+                    return finishCall.await(5, TimeUnit.SECONDS);
+                }));
+            } catch (Exception e) {
+                result.set(e);
+            }
+        });
+        caller.setDaemon(true);
+        caller.start();
+        awaitRequest(bridge);
+
+        Thread mainThread = new Thread(() -> bridge.serviceRequests(0));
+        mainThread.setDaemon(true);
+        mainThread.start();
+        assertTrue(callStarted.await(5, TimeUnit.SECONDS));
+
+        // The caller can't give up the slot while the main thread is using it, so it parks until the call is done
+        caller.interrupt();
+        awaitState(caller, Thread.State.WAITING);
+        assertNull(result.get());
+
+        finishCall.countDown();
+        caller.join(5000);
+        assertFalse(caller.isAlive());
+        assertTrue(result.get() instanceof InterruptedException, "Returned " + result.get());
+        mainThread.join(5000);
+    }
+
+    @Test
+    void testRequestsWaitForTheCommandsQueuedBeforeThem() throws InterruptedException {
+        AtomicLong commandTailIndex = new AtomicLong(5);
+        MainThreadBridge bridge = new MainThreadBridge(2, commandTailIndex::get);
+        AtomicReference<Object> firstResult = new AtomicReference<>();
+        AtomicReference<Object> secondResult = new AtomicReference<>();
+        Thread first = startCaller(bridge, 1, firstResult);
+        awaitRequest(bridge);
+
+        // More commands keep being queued after the first request
+        commandTailIndex.set(10);
+        Thread second = startCaller(bridge, 2, secondResult);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bridge.getWaitingRequestCount() < 2) {
+            assertTrue(System.nanoTime() < deadline, "The request wasn't made");
+            Thread.sleep(1);
+        }
+
+        // Nothing is serviced until the commands before it have run
+        bridge.serviceRequests(4);
+        assertEquals(2, bridge.getWaitingRequestCount());
+
+        // The first request doesn't wait for the commands that were queued after it
+        bridge.serviceRequests(5);
+        first.join(5000);
+        assertEquals(1.0, firstResult.get());
+        assertEquals(1, bridge.getWaitingRequestCount());
+
+        bridge.serviceRequests(10);
+        second.join(5000);
+        assertEquals(2.0, secondResult.get());
+    }
+}
@@ -0,0 +1,57 @@
+package com.dacubeking.AutoBuilder.robot.robotinterface;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PeriodicSchedulerTest {
+
+    @Test
+    void testDeadlinesDontDrift() throws InterruptedException {
+        long wakeUps = Arrays.stream(PeriodicScheduler.getWakeUpJitterHistogram()).sum();
+        long missedDeadlines = PeriodicScheduler.getMissedDeadlineCount();
+        long startTime = System.nanoTime();
+        PeriodicScheduler scheduler = new PeriodicScheduler(0.005);
+        for (int i = 0; i < 20; i++) {
+            // Spend part of the period working, which would add up to 40ms of drift with relative sleeps
+            long workEnd = System.nanoTime() + 2_000_000;
+            while (System.nanoTime() < workEnd) {
+                Thread.onSpinWait();
+            }
+            scheduler.waitForNextPeriod();
+        }
+        long elapsedTime = System.nanoTime() - startTime;
+
+        assertTrue(elapsedTime >= 100_000_000, "Finished early: " + elapsedTime);
+        // A stalled machine can make the loop miss deadlines, which are skipped (and legitimately make it take longer). Anything else past the 100ms is drift.
+        long skippedTime = (PeriodicScheduler.getMissedDeadlineCount() - missedDeadlines) * 5_000_000;
+        assertTrue(elapsedTime - skippedTime < 130_000_000, "Drifted: " + elapsedTime + " (" + skippedTime + " skipped)");
+        assertEquals(wakeUps + 20, Arrays.stream(PeriodicScheduler.getWakeUpJitterHistogram()).sum());
+    }
+
+    @Test
+    void testMissedDeadlinesAreSkipped() throws InterruptedException {
+        long missedDeadlines = PeriodicScheduler.getMissedDeadlineCount();
+        PeriodicScheduler scheduler = new PeriodicScheduler(0.05);
+        Thread.sleep(160); // Miss the first three deadlines
+        scheduler.waitForNextPeriod(); // Returns immediately for the first deadline
+
+        long startTime = System.nanoTime();
+        scheduler.waitForNextPeriod(); // Waits for the deadline at 200ms instead of running the missed ones
+        assertTrue(System.nanoTime() - startTime > 5_000_000);
+        assertTrue(PeriodicScheduler.getMissedDeadlineCount() - missedDeadlines >= 2);
+    }
+
+    @Test
+    void testInterrupted() {
+        PeriodicScheduler scheduler = new PeriodicScheduler(10);
+        Thread.currentThread().interrupt();
+        assertThrows(InterruptedException.class, scheduler::waitForNextPeriod);
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+}
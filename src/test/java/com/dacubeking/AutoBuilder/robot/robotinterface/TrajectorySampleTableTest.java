@@ -0,0 +1,80 @@
+package com.dacubeking.AutoBuilder.robot.robotinterface;
+
+import com.sun.management.ThreadMXBean;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.math.trajectory.Trajectory.State;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrajectorySampleTableTest {
+
+    /**
+     * Accelerates at 1 m/s^2 along a line at 45 degrees for 2.05 seconds (so the last sample is closer than an interval to the one before it)
+     */
+    private static Trajectory createTrajectory() {
+        List<State> states = new ArrayList<>();
+        for (int i = 0; i <= 41; i++) {
+            double time = i * 0.05;
+            double distance = 0.5 * time * time;
+            states.add(new State(time, time, 1, new Pose2d(distance / Math.sqrt(2), distance / Math.sqrt(2), new Rotation2d(Math.PI / 4)), 0));
+        }
+        return new Trajectory(states);
+    }
+
+    @Test
+    void testMatchesTrajectorySample() {
+        Trajectory trajectory = createTrajectory();
+        TrajectorySampleTable table = new TrajectorySampleTable(trajectory);
+        TrajectorySample sample = new TrajectorySample();
+
+        for (double time = 0; time <= trajectory.getTotalTimeSeconds(); time += 0.0137) {
+            State expected = trajectory.sample(time);
+            table.sample(time, sample);
+            assertEquals(time, sample.getTime(), 1e-12);
+            assertEquals(expected.velocityMetersPerSecond, sample.getVelocity(), 1e-4);
+            assertEquals(expected.accelerationMetersPerSecondSq, sample.getAcceleration(), 1e-4);
+            assertEquals(expected.poseMeters.getX(), sample.getX(), 1e-4);
+            assertEquals(expected.poseMeters.getY(), sample.getY(), 1e-4);
+            assertEquals(expected.poseMeters.getRotation().getRadians(), sample.getHeading(), 1e-9);
+        }
+
+        // Times outside the trajectory are sampled at its ends
+        table.sample(-1, sample);
+        assertEquals(0.0, sample.getTime());
+        assertEquals(0, sample.getVelocity(), 1e-12);
+        table.sample(10, sample);
+        assertEquals(trajectory.getTotalTimeSeconds(), sample.getTime(), 1e-12);
+        assertEquals(2.05, sample.getVelocity(), 1e-12);
+    }
+
+    @Test
+    void testSamplingDoesntAllocate() {
+        ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assertTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        TrajectorySampleTable table = new TrajectorySampleTable(createTrajectory());
+        TrajectorySample sample = new TrajectorySample();
+        double x = 0;
+        for (int i = 0; i < 20_000; i++) {
+            x += table.sample(i * 1e-4, sample).getX();
+        }
+
+        long bytes = threadMXBean.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 10_000; i++) {
+            x += table.sample(i * 2e-4, sample).getX();
+        }
+        bytes = threadMXBean.getCurrentThreadAllocatedBytes() - bytes;
+
+        assertTrue(x > 0);
+        assertTrue(bytes < 10_000, "Sampling allocated " + bytes + " bytes");
+    }
+}
@@ -0,0 +1,105 @@
+package com.dacubeking.AutoBuilder.robot.serialization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.wpi.first.math.trajectory.Trajectory.State;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryAutoFormatTest {
+
+    private static final String AUTO_JSON = "{\"autonomousSteps\":[{\"type\":\"trajectory\",\"states\":["
+            + "{\"time\":0.0,\"velocity\":0.0,\"acceleration\":1.5,\"pose\":{\"translation\":{\"x\":1.0,\"y\":2.0},\"rotation\":{\"radians\":0.5}},\"curvature\":0.0},"
+            + "{\"time\":0.5,\"velocity\":0.75,\"acceleration\":1.5,\"pose\":{\"translation\":{\"x\":1.2,\"y\":2.1},\"rotation\":{\"radians\":0.6}},\"curvature\":0.1},"
+            + "{\"time\":1.0,\"velocity\":0.0,\"acceleration\":-1.5,\"pose\":{\"translation\":{\"x\":1.5,\"y\":2.3},\"rotation\":{\"radians\":0.7}},\"curvature\":0.2}],"
+            + "\"rotations\":[{\"time\":0.0,\"rotation\":{\"radians\":1.0}},{\"time\":0.8,\"rotation\":{\"radians\":-1.0}}]}]}";
+
+    private static byte[] toBinary(String json) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            BinaryAutoFormat.write(new ObjectMapper().readTree(json), out);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    void testRoundTrip() throws IOException {
+        Autonomous autonomous = BinaryAutoFormat.read(ByteBuffer.wrap(toBinary(AUTO_JSON)));
+
+        assertEquals(1, autonomous.getAutonomousSteps().size());
+        assertTrue(autonomous.getAutonomousSteps().get(0) instanceof TrajectoryAutonomousStep);
+        TrajectoryAutonomousStep step = (TrajectoryAutonomousStep) autonomous.getAutonomousSteps().get(0);
+
+        List<State> states = step.getTrajectory().getStates();
+        assertEquals(3, states.size());
+        assertEquals(0.5, states.get(1).timeSeconds, 1e-12);
+        assertEquals(0.75, states.get(1).velocityMetersPerSecond, 1e-12);
+        assertEquals(1.5, states.get(1).accelerationMetersPerSecondSq, 1e-12);
+        assertEquals(1.2, states.get(1).poseMeters.getX(), 1e-12);
+        assertEquals(2.1, states.get(1).poseMeters.getY(), 1e-12);
+        assertEquals(0.6, states.get(1).poseMeters.getRotation().getRadians(), 1e-12);
+        assertEquals(0.1, states.get(1).curvatureRadPerMeter, 1e-12);
+        assertEquals(1.0, step.getTrajectory().getTotalTimeSeconds(), 1e-12);
+
+        assertEquals(2, step.getRotations().size());
+        assertEquals(0.8, step.getRotations().get(1).time, 1e-12);
+        assertEquals(-1.0, step.getRotations().get(1).getRotation().getRadians(), 1e-12);
+    }
+
+    @Test
+    void testParallelRoundTrip() throws IOException {
+        String trajectory = AUTO_JSON.substring("{\"autonomousSteps\":[".length(), AUTO_JSON.length() - 2);
+        String json = "{\"autonomousSteps\":[{\"type\":\"parallel\",\"joinType\":\"RACE\",\"steps\":[" + trajectory + ",{\"type\":\"parallel\",\"steps\":[]}]}]}";
+        Autonomous autonomous = BinaryAutoFormat.read(ByteBuffer.wrap(toBinary(json)));
+
+        ParallelAutonomousStep parallel = (ParallelAutonomousStep) autonomous.getAutonomousSteps().get(0);
+        assertEquals(ParallelAutonomousStep.JoinType.RACE, parallel.getJoinType());
+        assertEquals(2, parallel.getSteps().size());
+        assertEquals(3, ((TrajectoryAutonomousStep) parallel.getSteps().get(0)).getTrajectory().getStates().size());
+        ParallelAutonomousStep nested = (ParallelAutonomousStep) parallel.getSteps().get(1);
+        assertEquals(ParallelAutonomousStep.JoinType.ALL, nested.getJoinType());
+        assertTrue(nested.getSteps().isEmpty());
+    }
+
+    @Test
+    void testTruncatedFile() throws IOException {
+        byte[] binary = toBinary(AUTO_JSON);
+        ByteBuffer truncated = ByteBuffer.wrap(binary, 0, binary.length - 9).slice();
+        assertThrows(IOException.class, () -> BinaryAutoFormat.read(truncated));
+    }
+
+    @Test
+    void testNotABinaryAuto() {
+        assertThrows(IOException.class, () -> BinaryAutoFormat.read(ByteBuffer.wrap(AUTO_JSON.getBytes())));
+    }
+
+    @Test
+    void testCorruptScript() throws IOException {
+        String json = "{\"autonomousSteps\":[{\"type\":\"script\",\"sendableScript\":{\"delayType\":\"NONE\",\"delay\":0.0,\"commands\":["
+                + "{\"methodName\":\"print\",\"args\":[\"hi\"],\"argTypes\":[\"java.lang.String\"],\"reflection\":false,\"command\":false}]}}]}";
+        byte[] binary = toBinary(json);
+        assertTrue(BinaryAutoFormat.read(ByteBuffer.wrap(binary)).getAutonomousSteps().get(0) instanceof ScriptAutonomousStep);
+
+        // Offsets in the file: delay type at 11, command count at 20, method name at 24, arg count at 33, arg type count at 43
+        assertCorrupt(ByteBuffer.wrap(binary.clone()).put(11, (byte) 7));
+        assertCorrupt(ByteBuffer.wrap(binary.clone()).put(11, (byte) -2));
+        assertCorrupt(ByteBuffer.wrap(binary.clone()).putInt(20, Integer.MAX_VALUE));
+        assertCorrupt(ByteBuffer.wrap(binary.clone()).putInt(20, -1));
+        assertCorrupt(ByteBuffer.wrap(binary.clone()).putInt(24, -1));
+        assertCorrupt(ByteBuffer.wrap(binary.clone()).putInt(33, -5));
+        assertCorrupt(ByteBuffer.wrap(binary.clone()).putInt(33, Integer.MAX_VALUE));
+        assertCorrupt(ByteBuffer.wrap(binary.clone()).putInt(43, 0));
+    }
+
+    private static void assertCorrupt(ByteBuffer corrupted) {
+        assertThrows(IOException.class, () -> BinaryAutoFormat.read(corrupted));
+    }
+}
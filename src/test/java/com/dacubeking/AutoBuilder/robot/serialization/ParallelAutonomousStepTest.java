@@ -0,0 +1,210 @@
+package com.dacubeking.AutoBuilder.robot.serialization;
+
+import com.dacubeking.AutoBuilder.robot.serialization.ParallelAutonomousStep.JoinType;
+import com.dacubeking.AutoBuilder.robot.serialization.command.CommandExecutionFailedException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelAutonomousStepTest {
+
+    /**
+     * A step that waits for a while, like a mechanism that takes time to spin up
+     */
+    private static final class SleepStep extends AbstractAutonomousStep {
+        private final long sleepMillis;
+        private final boolean fail;
+        /**
+         * How long the step takes to stop after it's interrupted, like a mechanism that has to be put away
+         */
+        private final long stopMillis;
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private volatile boolean interrupted = false;
+
+        SleepStep(long sleepMillis, boolean fail) {
+            this(sleepMillis, fail, 0);
+        }
+
+        SleepStep(long sleepMillis, boolean fail, long stopMillis) {
+            this.sleepMillis = sleepMillis;
+            this.fail = fail;
+            this.stopMillis = stopMillis;
+        }
+
+        @Override
+        public void execute() throws InterruptedException, CommandExecutionFailedException {
+            started.countDown();
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                interrupted = true;
+                long stopTime = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(stopMillis);
+                while (System.nanoTime() < stopTime) {
+                    Thread.onSpinWait(); // Ignores the interrupt while it stops
+                }
+                throw e;
+            } finally {
+                finished.countDown();
+            }
+            if (fail) {
+                throw new CommandExecutionFailedException("Failed");
+            }
+        }
+
+        @Override
+        public AutoTask createTask() {
+            long sleepNanos = TimeUnit.MILLISECONDS.toNanos(sleepMillis);
+            return new AutoTask() {
+                private long startTime = -1;
+
+                @Override
+                public boolean tick(long nowNanos) throws CommandExecutionFailedException {
+                    if (startTime == -1) {
+                        startTime = nowNanos;
+                    }
+                    if (nowNanos - startTime < sleepNanos) {
+                        return false;
+                    }
+                    if (fail) {
+                        throw new CommandExecutionFailedException("Failed");
+                    }
+                    return true;
+                }
+            };
+        }
+    }
+
+    @Test
+    void testAllRunsStepsConcurrently() throws Exception {
+        // Run the same steps one after another on this machine, to compare against
+        long start = System.nanoTime();
+        new SleepStep(300, false).execute();
+        new SleepStep(300, false).execute();
+        long serialMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        SleepStep shooter = new SleepStep(300, false);
+        SleepStep intake = new SleepStep(300, false);
+        ParallelAutonomousStep parallel = new ParallelAutonomousStep(JoinType.ALL, List.of(shooter, intake));
+
+        start = System.nanoTime();
+        parallel.execute();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(0, shooter.finished.getCount());
+        assertEquals(0, intake.finished.getCount());
+        // Running them concurrently saves a whole step (300ms). Only half of that is required, so that a slow machine doesn't fail the test.
+        assertTrue(elapsedMillis < serialMillis - 150, "Running the steps took " + elapsedMillis + "ms, running them one after another took " + serialMillis + "ms");
+    }
+
+    @Test
+    void testRaceInterruptsTheOtherSteps() throws Exception {
+        SleepStep fast = new SleepStep(50, false);
+        SleepStep slow = new SleepStep(10_000, false);
+        ParallelAutonomousStep parallel = new ParallelAutonomousStep(JoinType.RACE, List.of(slow, fast));
+
+        long start = System.nanoTime();
+        parallel.execute();
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5_000);
+
+        // The step that lost the race has stopped by the time the group ends
+        assertEquals(0, slow.finished.getCount());
+        assertTrue(slow.interrupted);
+        assertFalse(fast.interrupted);
+    }
+
+    @Test
+    void testGroupWaitsForInterruptedStepsToStop() throws Exception {
+        SleepStep fast = new SleepStep(50, false);
+        SleepStep slowToStop = new SleepStep(10_000, false, 200);
+        ParallelAutonomousStep parallel = new ParallelAutonomousStep(JoinType.RACE, List.of(slowToStop, fast));
+
+        long start = System.nanoTime();
+        parallel.execute();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(0, slowToStop.finished.getCount());
+        assertTrue(elapsedMillis >= 250, "The group ended " + elapsedMillis + "ms after it started, before the interrupted step stopped");
+    }
+
+    @Test
+    void testFailureInterruptsTheOtherSteps() throws Exception {
+        SleepStep failing = new SleepStep(50, true);
+        SleepStep slow = new SleepStep(10_000, false);
+        ParallelAutonomousStep parallel = new ParallelAutonomousStep(JoinType.ALL, List.of(failing, slow));
+
+        assertThrows(CommandExecutionFailedException.class, parallel::execute);
+        assertEquals(0, slow.finished.getCount());
+        assertTrue(slow.interrupted);
+    }
+
+    @Test
+    void testInterruptionIsShared() throws Exception {
+        SleepStep first = new SleepStep(10_000, false);
+        SleepStep second = new SleepStep(10_000, false);
+        ParallelAutonomousStep parallel = new ParallelAutonomousStep(JoinType.ALL, List.of(first, second));
+
+        AtomicBoolean autoInterrupted = new AtomicBoolean(false);
+        Thread autoThread = new Thread(() -> {
+            try {
+                parallel.execute();
+            } catch (InterruptedException e) {
+                autoInterrupted.set(true);
+            } catch (Exception ignored) {
+            }
+        });
+        autoThread.start();
+        assertTrue(first.started.await(5, TimeUnit.SECONDS));
+        assertTrue(second.started.await(5, TimeUnit.SECONDS));
+
+        autoThread.interrupt(); // Killing the auto
+        autoThread.join();
+        assertTrue(autoInterrupted.get());
+        assertEquals(0, first.finished.getCount());
+        assertEquals(0, second.finished.getCount());
+        assertTrue(first.interrupted);
+        assertTrue(second.interrupted);
+    }
+
+    @Test
+    void testCooperativeTask() throws Exception {
+        ParallelAutonomousStep all = new ParallelAutonomousStep(JoinType.ALL, List.of(new SleepStep(10, false), new SleepStep(20, false)));
+        ParallelAutonomousStep race = new ParallelAutonomousStep(JoinType.RACE, List.of(new SleepStep(10, false), new SleepStep(20, false)));
+        AutoTask allTask = all.createTask();
+        AutoTask raceTask = race.createTask();
+
+        long millis = TimeUnit.MILLISECONDS.toNanos(1);
+        assertFalse(allTask.tick(0));
+        assertFalse(raceTask.tick(0));
+        assertFalse(allTask.tick(10 * millis));
+        assertTrue(raceTask.tick(10 * millis));
+        assertTrue(allTask.tick(20 * millis));
+
+        AutoTask failingTask = new ParallelAutonomousStep(JoinType.ALL, List.of(new SleepStep(0, true), new SleepStep(20, false))).createTask();
+        assertThrows(CommandExecutionFailedException.class, () -> failingTask.tick(0));
+    }
+
+    @Test
+    void testDeserialization() throws IOException {
+        String trajectory = "{\"type\":\"trajectory\",\"states\":["
+                + "{\"time\":0.0,\"velocity\":0.0,\"acceleration\":1.0,\"pose\":{\"translation\":{\"x\":1.0,\"y\":2.0},\"rotation\":{\"radians\":0.0}},\"curvature\":0.0},"
+                + "{\"time\":1.0,\"velocity\":1.0,\"acceleration\":0.0,\"pose\":{\"translation\":{\"x\":1.5,\"y\":2.0},\"rotation\":{\"radians\":0.0}},\"curvature\":0.0}],"
+                + "\"rotations\":[{\"time\":0.0,\"rotation\":{\"radians\":0.25}}]}";
+        String json = "{\"autonomousSteps\":[{\"type\":\"parallel\",\"joinType\":\"RACE\",\"steps\":[" + trajectory + ",{\"type\":\"parallel\",\"steps\":[]}]}]}";
+
+        Autonomous autonomous = Serializer.deserializeAuto(json.getBytes(), true, () -> false);
+        ParallelAutonomousStep parallel = (ParallelAutonomousStep) autonomous.getAutonomousSteps().get(0);
+        assertEquals(JoinType.RACE, parallel.getJoinType());
+        assertTrue(parallel.getSteps().get(0) instanceof TrajectoryAutonomousStep);
+        assertEquals(JoinType.ALL, ((ParallelAutonomousStep) parallel.getSteps().get(1)).getJoinType());
+    }
+}
@@ -0,0 +1,55 @@
+package com.dacubeking.AutoBuilder.robot.serialization;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class RotationProfileTest {
+
+    private static final RotationProfile PROFILE = RotationProfile.compile(List.of(
+            new TimedRotation(0.0, new Rotation2d(0.0)),
+            new TimedRotation(1.0, new Rotation2d(1.0)),
+            new TimedRotation(1.01, new Rotation2d(2.0)),
+            new TimedRotation(1.02, new Rotation2d(3.0)),
+            new TimedRotation(2.0, new Rotation2d(-3.0))
+    ));
+
+    @Test
+    void testAdvanceSkipsEveryPassedRotation() {
+        int cursor = PROFILE.advance(0, 0.5);
+        assertEquals(0, cursor);
+        cursor = PROFILE.advance(cursor, 1.0);
+        assertEquals(0, cursor); // A rotation is only targeted once its time has been passed
+
+        // The three rotations around 1s all pass within one 20ms tick
+        cursor = PROFILE.advance(cursor, 1.03);
+        assertEquals(3, cursor);
+        assertEquals(3.0, PROFILE.getRadians(cursor));
+
+        cursor = PROFILE.advance(cursor, 100);
+        assertEquals(4, cursor);
+    }
+
+    @Test
+    void testInterpolation() {
+        assertEquals(0.0, PROFILE.interpolateRadians(0, 0.0), 1e-12);
+        assertEquals(0.25, PROFILE.interpolateRadians(0, 0.25), 1e-12);
+        assertEquals(1.0, PROFILE.interpolateRadians(0, 1.0), 1e-12);
+
+        // 3 to -3 radians is shorter going past pi than going back through 0
+        double halfway = PROFILE.interpolateRadians(3, 1.51);
+        assertEquals(Math.PI, halfway, 1e-12);
+
+        assertEquals(-3.0, PROFILE.interpolateRadians(4, 5.0), 1e-12);
+    }
+
+    @Test
+    void testEmptyProfile() {
+        assertSame(RotationProfile.EMPTY, RotationProfile.compile(List.of()));
+        assertEquals(0, RotationProfile.EMPTY.size());
+    }
+}
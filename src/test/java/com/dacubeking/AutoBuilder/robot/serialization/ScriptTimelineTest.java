@@ -0,0 +1,42 @@
+package com.dacubeking.AutoBuilder.robot.serialization;
+
+import com.dacubeking.AutoBuilder.robot.serialization.command.SendableScript;
+import com.dacubeking.AutoBuilder.robot.serialization.command.SendableScript.DelayType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ScriptTimelineTest {
+
+    private static SendableScript script(DelayType delayType, double delay) {
+        return new SendableScript(delayType, delay, new ArrayList<>());
+    }
+
+    @Test
+    void testMergesTimeAndPercentScripts() {
+        SendableScript late = script(DelayType.TIME, 3.0);
+        SendableScript early = script(DelayType.TIME, 0.5);
+        SendableScript tied = script(DelayType.TIME, 2.0);
+        SendableScript halfway = script(DelayType.PERCENT, 0.5);
+        SendableScript start = script(DelayType.PERCENT, 0);
+
+        ScriptTimeline timeline = ScriptTimeline.compile(List.of(late, early, tied), List.of(halfway, start), 4.0);
+
+        assertEquals(5, timeline.size());
+        SendableScript[] expectedScripts = {start, early, tied, halfway, late};
+        double[] expectedTimes = {0, 0.5, 2.0, 2.0, 3.0};
+        for (int i = 0; i < expectedScripts.length; i++) {
+            assertSame(expectedScripts[i], timeline.getScript(i));
+            assertEquals(expectedTimes[i], timeline.getTime(i));
+        }
+    }
+
+    @Test
+    void testNoScripts() {
+        assertSame(ScriptTimeline.EMPTY, ScriptTimeline.compile(List.of(), List.of(), 4.0));
+    }
+}
@@ -0,0 +1,70 @@
+package com.dacubeking.AutoBuilder.robot.serialization;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SerializerTest {
+
+    private static final String AUTO_JSON = "{\"autonomousSteps\":[{\"type\":\"trajectory\",\"states\":["
+            + "{\"time\":0.0,\"velocity\":0.0,\"acceleration\":1.0,\"pose\":{\"translation\":{\"x\":1.0,\"y\":2.0},\"rotation\":{\"radians\":0.0}},\"curvature\":0.0},"
+            + "{\"time\":1.0,\"velocity\":1.0,\"acceleration\":0.0,\"pose\":{\"translation\":{\"x\":1.5,\"y\":2.0},\"rotation\":{\"radians\":0.0}},\"curvature\":0.0}],"
+            + "\"rotations\":[{\"time\":0.0,\"rotation\":{\"radians\":0.25}}]}]}";
+
+    @Test
+    void testMsgPackBytesRoundTrip() throws IOException {
+        JsonNode tree = new ObjectMapper().readTree(AUTO_JSON);
+        byte[] msgPack = Serializer.serializeToBytes(tree, false);
+        byte[] json = Serializer.serializeToBytes(tree, true);
+        assertEquals(AUTO_JSON, new String(json));
+
+        Autonomous autonomous = (Autonomous) Serializer.deserialize(msgPack, Autonomous.class, false);
+        TrajectoryAutonomousStep step = (TrajectoryAutonomousStep) autonomous.getAutonomousSteps().get(0);
+        assertEquals(2, step.getTrajectory().getStates().size());
+        assertEquals(1.5, step.getTrajectory().getStates().get(1).poseMeters.getX());
+        assertEquals(0.25, step.getRotations().get(0).getRotation().getRadians());
+    }
+
+    @Test
+    void testCancellation() throws IOException {
+        byte[] json = AUTO_JSON.getBytes();
+        assertEquals(1, Serializer.deserializeAuto(json, true, () -> false).getAutonomousSteps().size());
+        assertThrows(DeserializationCancelledException.class, () -> Serializer.deserializeAuto(json, true, () -> true));
+
+        // Cancelled while the trajectory is being read
+        AtomicInteger checks = new AtomicInteger(0);
+        assertThrows(DeserializationCancelledException.class, () -> Serializer.deserializeAuto(json, true, () -> checks.getAndIncrement() == 0));
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void testStringIsAlwaysJson() throws IOException {
+        JsonNode tree = new ObjectMapper().readTree(AUTO_JSON);
+        assertEquals(AUTO_JSON, Serializer.serializeToString(tree));
+        assertEquals(AUTO_JSON, Serializer.serializeToString(tree, true));
+        assertEquals(AUTO_JSON, Serializer.serializeToString(tree, false));
+    }
+
+    @Test
+    void testMainConvertsADirectory() throws IOException {
+        File directory = Files.createTempDirectory("autobuilder-convert").toFile();
+        File sideDirectory = new File(directory, "left");
+        assertTrue(sideDirectory.mkdir());
+        Files.write(new File(sideDirectory, "auto.json").toPath(), AUTO_JSON.getBytes());
+
+        Serializer.main(new String[]{directory.getPath()});
+
+        File binary = new File(sideDirectory, "auto" + BinaryAutoFormat.FILE_EXTENSION);
+        assertTrue(binary.isFile());
+        assertEquals(1, Serializer.deserializeBinaryAutoFromFile(binary).getAutonomousSteps().size());
+    }
+}
@@ -0,0 +1,68 @@
+package com.dacubeking.AutoBuilder.robot.serialization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.wpi.first.math.trajectory.Trajectory.State;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TrajectoryAutonomousStepDeserializerTest {
+
+    // The type isn't the first property, there are unknown properties, and some numbers are written as integers
+    private static final String AUTO_JSON = "{\"autonomousSteps\":[{\"states\":["
+            + "{\"time\":0,\"velocity\":0.0,\"acceleration\":1.5,\"pose\":{\"translation\":{\"x\":1.0,\"y\":2},\"rotation\":{\"radians\":0.5}},\"curvature\":0.0},"
+            + "{\"time\":0.5,\"velocity\":0.75,\"acceleration\":1.5,\"pose\":{\"rotation\":{\"radians\":0.6},\"translation\":{\"y\":2.1,\"x\":1.2}},\"curvature\":0.1,\"extra\":[1,{\"a\":2}]},"
+            + "{\"curvature\":0.2,\"time\":1.0,\"velocity\":0.0,\"acceleration\":-1.5,\"pose\":{\"translation\":{\"x\":1.5,\"y\":2.3},\"rotation\":{\"radians\":0.7}}}],"
+            + "\"color\":\"#ffffff\",\"type\":\"trajectory\","
+            + "\"rotations\":[{\"time\":0.0,\"rotation\":{\"radians\":1.0}},{\"rotation\":{\"radians\":-1.0},\"time\":0.8}]}]}";
+
+    private static Autonomous deserialize(String json) throws IOException {
+        return Serializer.deserializeAuto(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)), new File("test.json"));
+    }
+
+    @Test
+    void testMatchesDatabind() throws IOException {
+        TrajectoryAutonomousStep expected = (TrajectoryAutonomousStep) new ObjectMapper().readValue(AUTO_JSON, Autonomous.class)
+                .getAutonomousSteps().get(0);
+        TrajectoryAutonomousStep actual = (TrajectoryAutonomousStep) deserialize(AUTO_JSON).getAutonomousSteps().get(0);
+
+        List<State> expectedStates = expected.getTrajectory().getStates();
+        List<State> actualStates = actual.getTrajectory().getStates();
+        assertEquals(expectedStates.size(), actualStates.size());
+        for (int i = 0; i < expectedStates.size(); i++) {
+            State expectedState = expectedStates.get(i);
+            State actualState = actualStates.get(i);
+            assertEquals(expectedState.timeSeconds, actualState.timeSeconds);
+            assertEquals(expectedState.velocityMetersPerSecond, actualState.velocityMetersPerSecond);
+            assertEquals(expectedState.accelerationMetersPerSecondSq, actualState.accelerationMetersPerSecondSq);
+            assertEquals(expectedState.poseMeters.getX(), actualState.poseMeters.getX());
+            assertEquals(expectedState.poseMeters.getY(), actualState.poseMeters.getY());
+            assertEquals(expectedState.poseMeters.getRotation().getRadians(), actualState.poseMeters.getRotation().getRadians());
+            assertEquals(expectedState.curvatureRadPerMeter, actualState.curvatureRadPerMeter);
+        }
+        assertEquals(expected.getTrajectory().getTotalTimeSeconds(), actual.getTrajectory().getTotalTimeSeconds());
+
+        assertEquals(expected.getRotations().size(), actual.getRotations().size());
+        for (int i = 0; i < expected.getRotations().size(); i++) {
+            assertEquals(expected.getRotations().get(i).time, actual.getRotations().get(i).time);
+            assertEquals(expected.getRotations().get(i).getRotation().getRadians(), actual.getRotations().get(i).getRotation().getRadians());
+        }
+    }
+
+    @Test
+    void testMissingRotations() {
+        assertThrows(IOException.class, () -> deserialize("{\"autonomousSteps\":[{\"type\":\"trajectory\",\"states\":[]}]}"));
+    }
+
+    @Test
+    void testInvalidState() {
+        assertThrows(IOException.class, () -> deserialize("{\"autonomousSteps\":[{\"type\":\"trajectory\",\"states\":[1.0],\"rotations\":[]}]}"));
+    }
+}
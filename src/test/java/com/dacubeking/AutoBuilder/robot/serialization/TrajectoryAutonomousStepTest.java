@@ -0,0 +1,264 @@
+package com.dacubeking.AutoBuilder.robot.serialization;
+
+import com.dacubeking.AutoBuilder.robot.annotations.RequireWait;
+import com.dacubeking.AutoBuilder.robot.robotinterface.AutonomousContainer;
+import com.dacubeking.AutoBuilder.robot.robotinterface.FakeDrive;
+import com.dacubeking.AutoBuilder.robot.serialization.command.CommandExecutionFailedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs trajectories with {@link AutonomousContainer#setConcurrentScriptsEnabled(boolean) concurrent scripts}, on a thread and cooperatively
+ */
+class TrajectoryAutonomousStepTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    private static final List<String> events = new ArrayList<>();
+    private static volatile CountDownLatch release = new CountDownLatch(1);
+    private static volatile boolean released = false;
+
+    private static void record(String event) {
+        synchronized (events) {
+            events.add(event);
+        }
+    }
+
+    private static List<String> getEvents() {
+        synchronized (events) {
+            return new ArrayList<>(events);
+        }
+    }
+
+    /**
+     * Blocks the script's thread until the test releases it. Takes 100ms to stop if it's interrupted.
+     */
+    private static void blockUntilReleased() throws InterruptedException {
+        record("blocking");
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            long stopTime = System.nanoTime() + 100 * MILLIS;
+            while (System.nanoTime() < stopTime) {
+                Thread.onSpinWait();
+            }
+            record("interrupted");
+            throw e;
+        }
+        record("released");
+    }
+
+    /**
+     * The cooperative version of {@link #blockUntilReleased()}
+     */
+    @RequireWait
+    private static boolean waitUntilReleased() {
+        record("polled");
+        return released;
+    }
+
+    private static void remaining() {
+        record("remaining");
+    }
+
+    private static void brokenMechanism() {
+        throw new IllegalStateException("Expected by the test");
+    }
+
+    /**
+     * @param scripts The methods of this class that are run by the scripts, and the time (in seconds) to run them at. The trajectory is 1s long, so a script at 100s runs after it's done.
+     */
+    private static TrajectoryAutonomousStep createStep(Object... scripts) throws IOException {
+        StringBuilder json = new StringBuilder("{\"autonomousSteps\":[");
+        for (int i = 0; i < scripts.length; i += 2) {
+            json.append("{\"type\":\"script\",\"sendableScript\":{\"delayType\":\"TIME\",\"delay\":").append(scripts[i + 1]).append(",\"commands\":[{\"methodName\":\"")
+                    .append(TrajectoryAutonomousStepTest.class.getName()).append('.').append(scripts[i])
+                    .append("\",\"args\":[],\"argTypes\":[],\"reflection\":true,\"command\":false}]}},");
+        }
+        json.append("{\"type\":\"trajectory\",\"states\":[")
+                .append("{\"time\":0.0,\"velocity\":0.0,\"acceleration\":1.0,\"pose\":{\"translation\":{\"x\":1.0,\"y\":2.0},\"rotation\":{\"radians\":0.0}},\"curvature\":0.0},")
+                .append("{\"time\":1.0,\"velocity\":1.0,\"acceleration\":0.0,\"pose\":{\"translation\":{\"x\":1.5,\"y\":2.0},\"rotation\":{\"radians\":0.0}},\"curvature\":0.0}],")
+                .append("\"rotations\":[{\"time\":0.0,\"rotation\":{\"radians\":0.25}}]}]}");
+        Autonomous autonomous = Serializer.deserializeAuto(json.toString().getBytes(), true, () -> false);
+        return (TrajectoryAutonomousStep) autonomous.getAutonomousSteps().get(autonomous.getAutonomousSteps().size() - 1);
+    }
+
+    /**
+     * Runs the step on its own thread, like the auto worker does
+     */
+    private static Thread startStep(TrajectoryAutonomousStep step, AtomicReference<Throwable> failure) {
+        Thread autoThread = new Thread(() -> {
+            try {
+                step.execute();
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        autoThread.setDaemon(true);
+        autoThread.start();
+        return autoThread;
+    }
+
+    private static void awaitPolls(FakeDrive drive, int polls) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (drive.getDriveStatePolls() < polls) {
+            assertTrue(System.nanoTime() < deadline, "The trajectory stopped being followed");
+            Thread.sleep(1);
+        }
+    }
+
+    @BeforeEach
+    void reset() {
+        synchronized (events) {
+            events.clear();
+        }
+        release = new CountDownLatch(1);
+        released = false;
+    }
+
+    @Test
+    void testTrajectoryKeepsRunningWhileAScriptBlocks() throws Exception {
+        FakeDrive drive = new FakeDrive(false);
+        AutonomousContainer.getInstance().setConcurrentScriptsEnabled(true);
+        try {
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread autoThread = startStep(createStep("blockUntilReleased", 0.0), failure);
+
+            awaitPolls(drive, 5);
+            assertEquals(List.of("blocking"), getEvents());
+
+            drive.trajectoryDone = true;
+            release.countDown();
+            autoThread.join(5000);
+            assertFalse(autoThread.isAlive());
+            assertEquals(null, failure.get());
+            assertEquals(List.of("blocking", "released"), getEvents());
+        } finally {
+            AutonomousContainer.getInstance().setConcurrentScriptsEnabled(false);
+        }
+    }
+
+    @Test
+    void testScriptsAreJoinedBeforeTheRemainingScripts() throws Exception {
+        FakeDrive drive = new FakeDrive(false);
+        AutonomousContainer.getInstance().setConcurrentScriptsEnabled(true);
+        try {
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread autoThread = startStep(createStep("blockUntilReleased", 0.0, "remaining", 100.0), failure);
+
+            awaitPolls(drive, 2);
+            drive.trajectoryDone = true;
+            Thread.sleep(100);
+            assertTrue(autoThread.isAlive(), "The step didn't wait for the script");
+            assertEquals(List.of("blocking"), getEvents());
+
+            release.countDown();
+            autoThread.join(5000);
+            assertFalse(autoThread.isAlive());
+            assertEquals(null, failure.get());
+            assertEquals(List.of("blocking", "released", "remaining"), getEvents());
+            assertEquals("stopRobot", drive.getCalls().get(drive.getCalls().size() - 1));
+        } finally {
+            AutonomousContainer.getInstance().setConcurrentScriptsEnabled(false);
+        }
+    }
+
+    @Test
+    void testScriptFailureFailsTheStep() throws Exception {
+        new FakeDrive(false);
+        AutonomousContainer.getInstance().setConcurrentScriptsEnabled(true);
+        try {
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread autoThread = startStep(createStep("brokenMechanism", 0.0, "blockUntilReleased", 0.0), failure);
+
+            // The trajectory never finishes, so the failure has to be noticed while it's being followed
+            autoThread.join(5000);
+            assertFalse(autoThread.isAlive());
+            assertTrue(failure.get() instanceof CommandExecutionFailedException, "Failed with " + failure.get());
+            // The other script was interrupted, and had stopped when the step ended
+            List<String> events = getEvents();
+            assertTrue(!events.contains("blocking") || events.contains("interrupted"), "Events: " + events);
+        } finally {
+            AutonomousContainer.getInstance().setConcurrentScriptsEnabled(false);
+        }
+    }
+
+    @Test
+    void testInterruptingTheStepWaitsForTheScripts() throws Exception {
+        FakeDrive drive = new FakeDrive(false);
+        AutonomousContainer.getInstance().setConcurrentScriptsEnabled(true);
+        try {
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread autoThread = startStep(createStep("blockUntilReleased", 0.0), failure);
+            awaitPolls(drive, 2);
+            assertEquals(List.of("blocking"), getEvents());
+
+            autoThread.interrupt(); // Killing the auto
+            autoThread.join(5000);
+            assertFalse(autoThread.isAlive());
+            assertTrue(failure.get() instanceof InterruptedException, "Failed with " + failure.get());
+            // The script takes 100ms to stop, and the step waited for it
+            assertEquals(List.of("blocking", "interrupted"), getEvents());
+        } finally {
+            AutonomousContainer.getInstance().setConcurrentScriptsEnabled(false);
+        }
+    }
+
+    @Test
+    void testCooperativeConcurrentScripts() throws Exception {
+        FakeDrive drive = new FakeDrive(true);
+        drive.runMainThreadPeriodic(); // This thread is the main thread
+        AutonomousContainer.getInstance().setConcurrentScriptsEnabled(true);
+        AutoTask task;
+        try {
+            task = createStep("waitUntilReleased", 0.0, "remaining", 100.0).createTask();
+        } finally {
+            AutonomousContainer.getInstance().setConcurrentScriptsEnabled(false);
+        }
+
+        // The trajectory keeps being followed while the script is waiting
+        assertFalse(task.tick(0));
+        assertFalse(task.tick(20 * MILLIS));
+        assertFalse(task.tick(40 * MILLIS));
+        assertEquals(3, drive.getDriveStatePolls());
+        assertEquals(List.of("polled", "polled", "polled"), getEvents());
+
+        // The remaining scripts wait for the script to finish
+        drive.trajectoryDone = true;
+        assertFalse(task.tick(60 * MILLIS));
+        assertFalse(task.tick(80 * MILLIS));
+        assertEquals(List.of("polled", "polled", "polled", "polled", "polled"), getEvents());
+        released = true;
+        assertTrue(task.tick(100 * MILLIS));
+        assertEquals(List.of("polled", "polled", "polled", "polled", "polled", "polled", "remaining"), getEvents());
+    }
+
+    @Test
+    void testCooperativeScriptFailureFailsTheStep() throws Exception {
+        FakeDrive drive = new FakeDrive(true);
+        drive.runMainThreadPeriodic();
+        AutonomousContainer.getInstance().setConcurrentScriptsEnabled(true);
+        AutoTask task;
+        try {
+            task = createStep("waitUntilReleased", 0.0, "brokenMechanism", 0.05).createTask();
+        } finally {
+            AutonomousContainer.getInstance().setConcurrentScriptsEnabled(false);
+        }
+
+        assertFalse(task.tick(0));
+        drive.trajectoryElapsedTime = 0.05;
+        assertThrows(CommandExecutionFailedException.class, () -> task.tick(20 * MILLIS));
+    }
+}
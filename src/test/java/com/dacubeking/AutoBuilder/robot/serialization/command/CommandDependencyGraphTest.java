@@ -0,0 +1,56 @@
+package com.dacubeking.AutoBuilder.robot.serialization.command;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommandDependencyGraphTest {
+
+    /**
+     * The same rule as {@link SendableCommand#conflictsWith(SendableCommand)}, with the required subsystems as sets (null if they weren't declared)
+     */
+    private static boolean conflicts(Set<String> a, Set<String> b) {
+        return a == null || b == null || a.stream().anyMatch(b::contains);
+    }
+
+    @Test
+    void testUndeclaredCommandsRunInOrder() {
+        CommandDependencyGraph graph = CommandDependencyGraph.build(Arrays.asList(null, null, null), CommandDependencyGraphTest::conflicts);
+        assertTrue(graph.isSequential());
+        assertArrayEquals(new int[]{0, 1, 2}, graph.copyDependencyCounts());
+        assertArrayEquals(new int[]{1, 2}, graph.getDependents(0));
+    }
+
+    @Test
+    void testIndependentCommandsRunTogether() {
+        List<Set<String>> commands = Arrays.asList(
+                Set.of("shooter"),
+                Set.of("intake"),
+                Set.of("shooter", "indexer"),
+                null, // Waits for everything before it, and everything after it waits for it
+                Set.of("intake")
+        );
+        CommandDependencyGraph graph = CommandDependencyGraph.build(commands, CommandDependencyGraphTest::conflicts);
+
+        assertFalse(graph.isSequential());
+        assertArrayEquals(new int[]{0, 0, 1, 3, 2}, graph.copyDependencyCounts());
+        assertArrayEquals(new int[]{2, 3}, graph.getDependents(0));
+        assertArrayEquals(new int[]{3, 4}, graph.getDependents(1));
+        assertArrayEquals(new int[]{3}, graph.getDependents(2));
+        assertArrayEquals(new int[]{4}, graph.getDependents(3));
+        assertArrayEquals(new int[0], graph.getDependents(4));
+    }
+
+    @Test
+    void testEmptyScript() {
+        CommandDependencyGraph graph = CommandDependencyGraph.build(List.<Set<String>>of(), CommandDependencyGraphTest::conflicts);
+        assertTrue(graph.isSequential());
+        assertArrayEquals(new int[0], graph.copyDependencyCounts());
+    }
+}
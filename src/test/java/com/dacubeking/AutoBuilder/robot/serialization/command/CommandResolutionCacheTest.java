@@ -0,0 +1,74 @@
+package com.dacubeking.AutoBuilder.robot.serialization.command;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommandResolutionCacheTest {
+
+    private static final class Target {
+        int calls = 0;
+
+        private boolean isDone(double value, int times, boolean flag) {
+            calls += times;
+            return flag && value > 0;
+        }
+
+        private Boolean isBoxedDone(TimeUnit unit) {
+            return unit == TimeUnit.SECONDS;
+        }
+
+        private int count() {
+            return ++calls;
+        }
+
+        private static void doNothing() {
+        }
+    }
+
+    private static MethodHandle compile(Target target, String name, Class<?>[] parameterTypes, Object... args) throws ReflectiveOperationException {
+        Method method = Target.class.getDeclaredMethod(name, parameterTypes);
+        method.setAccessible(true);
+        return SendableCommand.bindArguments(CommandResolutionCache.createHandle(method, target), args);
+    }
+
+    @Test
+    void testInvoker() throws Throwable {
+        Target target = new Target();
+        MethodHandle done = compile(target, "isDone", new Class[]{double.class, int.class, boolean.class}, 1.0, 2, true);
+        MethodHandle notDone = compile(target, "isDone", new Class[]{double.class, int.class, boolean.class}, -1.0, 3, true);
+        assertTrue((boolean) done.invokeExact());
+        assertFalse((boolean) notDone.invokeExact());
+        assertEquals(5, target.calls);
+
+        assertTrue((boolean) compile(target, "isBoxedDone", new Class[]{TimeUnit.class}, TimeUnit.SECONDS).invokeExact());
+        assertFalse((boolean) compile(target, "isBoxedDone", new Class[]{TimeUnit.class}, TimeUnit.DAYS).invokeExact());
+        assertTrue((boolean) compile(target, "count", new Class[0]).invokeExact()); // Methods that don't return a boolean are always finished
+        assertEquals(6, target.calls);
+        assertTrue((boolean) compile(null, "doNothing", new Class[0]).invokeExact());
+    }
+
+    @Test
+    void testEnumConstantsAreCached() throws ClassNotFoundException {
+        assertSame(TimeUnit.SECONDS, CommandResolutionCache.getEnumConstant(TimeUnit.class.getName(), "SECONDS"));
+        // Whether the first lookup hit the class cache depends on which tests ran before this one, so only count the second
+        long hits = CommandResolutionCache.getHits();
+        assertSame(TimeUnit.SECONDS, CommandResolutionCache.getEnumConstant(TimeUnit.class.getName(), "SECONDS"));
+        assertEquals(hits + 1, CommandResolutionCache.getHits());
+    }
+
+    @Test
+    void testFailedLookupsAreNotCached() {
+        assertThrows(IllegalArgumentException.class, () -> CommandResolutionCache.getEnumConstant(TimeUnit.class.getName(), "FORTNIGHTS"));
+        assertThrows(ClassNotFoundException.class, () -> CommandResolutionCache.getClass("com.dacubeking.DoesNotExist"));
+        assertThrows(ClassNotFoundException.class, () -> CommandResolutionCache.getClass("com.dacubeking.DoesNotExist"));
+    }
+}
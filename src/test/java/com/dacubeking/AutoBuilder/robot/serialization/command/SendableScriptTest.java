@@ -0,0 +1,242 @@
+package com.dacubeking.AutoBuilder.robot.serialization.command;
+
+import com.dacubeking.AutoBuilder.robot.annotations.RequireWait;
+import com.dacubeking.AutoBuilder.robot.robotinterface.AutonomousContainer;
+import com.dacubeking.AutoBuilder.robot.robotinterface.FakeDrive;
+import com.dacubeking.AutoBuilder.robot.serialization.AutoTask;
+import com.dacubeking.AutoBuilder.robot.serialization.command.SendableScript.DelayType;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Subsystem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SendableScriptTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    private static final List<String> events = new ArrayList<>();
+    private static final AtomicInteger spinUpPolls = new AtomicInteger(0);
+    private static volatile CyclicBarrier meeting = new CyclicBarrier(2);
+    private static volatile CountDownLatch blocking = new CountDownLatch(1);
+
+    /**
+     * A command that AutoBuilder waits for until it's no longer scheduled
+     */
+    @RequireWait
+    private static final class FakeCommand implements Command {
+        volatile boolean scheduled = false;
+        int scheduleCount = 0;
+
+        @Override
+        public Set<Subsystem> getRequirements() {
+            return Set.of();
+        }
+
+        @Override
+        public void schedule() {
+            scheduled = true;
+            scheduleCount++;
+        }
+
+        @Override
+        public boolean isScheduled() {
+            return scheduled;
+        }
+    }
+
+    private static void record(String event) {
+        synchronized (events) {
+            events.add(event);
+        }
+    }
+
+    private static List<String> getEvents() {
+        synchronized (events) {
+            return new ArrayList<>(events);
+        }
+    }
+
+    /**
+     * Takes 3 polls to get up to speed
+     */
+    @RequireWait
+    private static boolean spinUp() {
+        record("spinUp");
+        return spinUpPolls.incrementAndGet() >= 3;
+    }
+
+    /**
+     * Only returns once another command has met it, so it fails unless the commands are run at the same time
+     */
+    private static void meet(String name) throws Exception {
+        meeting.await(5, TimeUnit.SECONDS);
+        record(name);
+    }
+
+    private static void slowRecord(String event) throws InterruptedException {
+        Thread.sleep(50);
+        record(event);
+    }
+
+    /**
+     * Blocks until it's interrupted, and then takes 100ms to stop
+     */
+    private static void blockUntilInterrupted(String name) {
+        record(name);
+        blocking.countDown();
+        try {
+            new CountDownLatch(1).await();
+        } catch (InterruptedException e) {
+            long stopTime = System.nanoTime() + 100 * MILLIS;
+            while (System.nanoTime() < stopTime) {
+                Thread.onSpinWait();
+            }
+            record(name + " stopped");
+        }
+    }
+
+    private static void fail(String name) throws InterruptedException {
+        assertTrue(blocking.await(5, TimeUnit.SECONDS));
+        throw new IllegalStateException(name + " is broken");
+    }
+
+    static SendableCommand method(String name, String arg, String... requires) {
+        return new SendableCommand(SendableScriptTest.class.getName() + "." + name,
+                arg == null ? new String[0] : new String[]{arg},
+                arg == null ? new String[0] : new String[]{String.class.getName()},
+                true, false, requires.length == 0 ? null : requires);
+    }
+
+    static SendableCommand sleep(long millis) {
+        return new SendableCommand("sleep", new String[]{Long.toString(millis)}, new String[]{"long"}, false, false, null);
+    }
+
+    static SendableScript script(SendableCommand... commands) {
+        return new SendableScript(DelayType.NONE, 0, List.of(commands));
+    }
+
+    @BeforeEach
+    void reset() {
+        synchronized (events) {
+            events.clear();
+        }
+        spinUpPolls.set(0);
+        meeting = new CyclicBarrier(2);
+        blocking = new CountDownLatch(1);
+        AutonomousContainer.getInstance().getAccessibleInstances().put("shooter", new Object());
+        AutonomousContainer.getInstance().getAccessibleInstances().put("intake", new Object());
+    }
+
+    @Test
+    void testExecuteRunsNonConflictingCommandsAtTheSameTime() throws Exception {
+        new FakeDrive(false);
+        script(method("meet", "shooter", "shooter"), method("meet", "intake", "intake")).execute();
+        assertEquals(Set.of("shooter", "intake"), Set.copyOf(getEvents()));
+    }
+
+    @Test
+    void testExecuteKeepsConflictingCommandsInOrder() throws Exception {
+        new FakeDrive(false);
+        script(method("slowRecord", "aim", "shooter"), method("record", "shoot", "shooter"), method("slowRecord", "intake", "intake")).execute();
+        List<String> events = getEvents();
+        assertEquals(3, events.size());
+        assertTrue(events.indexOf("aim") < events.indexOf("shoot"), "Events: " + events);
+    }
+
+    @Test
+    void testExecuteStopsTheOtherCommandsWhenOneFails() {
+        new FakeDrive(false);
+        SendableScript script = script(method("blockUntilInterrupted", "shooter", "shooter"), method("fail", "intake", "intake"),
+                method("record", "after shooter", "shooter"));
+        assertThrows(CommandExecutionFailedException.class, script::execute);
+        // The blocked command had stopped when the script ended, and the commands after it never ran
+        assertEquals(List.of("shooter", "shooter stopped"), getEvents());
+    }
+
+    @Test
+    void testTickRunsNonConflictingCommandsAtTheSameTime() throws Exception {
+        FakeDrive drive = new FakeDrive(true);
+        drive.runMainThreadPeriodic(); // This thread is the main thread
+        AutoTask task = script(method("spinUp", null, "shooter"), method("record", "shoot", "shooter"), method("record", "intake", "intake")).createTask();
+
+        // The intake doesn't wait for the shooter, but shooting does
+        assertFalse(task.tick(0));
+        assertEquals(List.of("spinUp", "intake"), getEvents());
+        assertFalse(task.tick(20 * MILLIS));
+        assertTrue(task.tick(40 * MILLIS));
+        assertEquals(List.of("spinUp", "intake", "spinUp", "spinUp", "shoot"), getEvents());
+    }
+
+    @Test
+    void testTickStopsWhenACommandFails() throws Exception {
+        FakeDrive drive = new FakeDrive(true);
+        drive.runMainThreadPeriodic();
+        blocking.countDown();
+        AutoTask task = script(method("spinUp", null, "shooter"), method("fail", "intake", "intake"), method("record", "after intake", "intake")).createTask();
+
+        assertThrows(CommandExecutionFailedException.class, () -> task.tick(0));
+        // The shooter was started in the same tick, but nothing after the failure was run
+        assertEquals(List.of("spinUp"), getEvents());
+    }
+
+    @Test
+    void testSleepIsATimedWait() throws Exception {
+        AutoTask task = script(sleep(100), method("record", "after sleep")).createTask();
+
+        long start = System.nanoTime();
+        assertFalse(task.tick(0));
+        assertTrue(System.nanoTime() - start < 50 * MILLIS, "The sleep blocked the main thread");
+        assertFalse(task.tick(99 * MILLIS));
+        assertEquals(List.of(), getEvents());
+        assertTrue(task.tick(100 * MILLIS));
+        assertEquals(List.of("after sleep"), getEvents());
+    }
+
+    @Test
+    void testRequireWaitMethodsArePolledEveryLoopingPeriod() throws Exception {
+        AutoTask task = script(method("spinUp", null), method("record", "shoot")).createTask();
+
+        assertFalse(task.tick(0));
+        assertFalse(task.tick(19 * MILLIS));
+        assertEquals(List.of("spinUp"), getEvents());
+        assertFalse(task.tick(20 * MILLIS));
+        assertFalse(task.tick(30 * MILLIS));
+        assertEquals(List.of("spinUp", "spinUp"), getEvents());
+        // The next command runs in the same tick that the method finishes
+        assertTrue(task.tick(40 * MILLIS));
+        assertEquals(List.of("spinUp", "spinUp", "spinUp", "shoot"), getEvents());
+    }
+
+    @Test
+    void testCommandIsWaitedForUntilItIsNotScheduled() throws Exception {
+        FakeCommand intakeCommand = new FakeCommand();
+        AutonomousContainer.getInstance().getAccessibleInstances().put("intakeCommand", intakeCommand);
+        SendableCommand command = new SendableCommand("intakeCommand", new String[0], null, true, true, null);
+        AutoTask task = script(command, method("record", "after intake")).createTask();
+
+        assertFalse(task.tick(0));
+        assertEquals(1, intakeCommand.scheduleCount);
+        assertFalse(task.tick(20 * MILLIS));
+        assertFalse(task.tick(40 * MILLIS));
+        assertEquals(List.of(), getEvents());
+
+        intakeCommand.scheduled = false; // The command has finished
+        assertFalse(task.tick(50 * MILLIS)); // Not polled until the next period
+        assertTrue(task.tick(60 * MILLIS));
+        assertEquals(1, intakeCommand.scheduleCount);
+        assertEquals(List.of("after intake"), getEvents());
+    }
+}